@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.web.toolkit.benchmarks;
+
+import com.agapsys.web.toolkit.AbstractApplication;
+import com.agapsys.web.toolkit.Service;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Service and property lookups performed by application on every request.
+ *
+ * "Contended" variants run with one thread per available processor against
+ * the same application instance.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ApplicationBenchmark {
+
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    public static class TargetService extends Service {}
+    // =========================================================================
+    // </editor-fold>
+
+    private AbstractApplication app;
+
+    @Setup
+    public void setup() {
+        app = new BenchmarkApplication();
+        app.start();
+        app.getServiceOnDemand(TargetService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        app.stop();
+    }
+
+    @Benchmark
+    public TargetService getService() {
+        return app.getService(TargetService.class, false);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public TargetService getServiceContended() {
+        return app.getService(TargetService.class, false);
+    }
+
+    @Benchmark
+    public String getProperty() {
+        return app.getProperty(BenchmarkApplication.KEY_BENCHMARK_PROPERTY, null);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String getPropertyContended() {
+        return app.getProperty(BenchmarkApplication.KEY_BENCHMARK_PROPERTY, null);
+    }
+
+}
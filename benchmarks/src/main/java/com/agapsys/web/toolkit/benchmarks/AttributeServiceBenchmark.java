@@ -0,0 +1,95 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.web.toolkit.benchmarks;
+
+import com.agapsys.web.toolkit.services.AttributeService;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Request attribute handling: an attribute is set, read and destroyed on
+ * every request (see {@linkplain com.agapsys.web.toolkit.filters.AttributeServiceFilter}).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AttributeServiceBenchmark {
+
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    private static final String ATTRIBUTE_NAME = "benchmark";
+
+    @State(Scope.Benchmark)
+    public static class ServiceState {
+        final AttributeService service = new AttributeService();
+    }
+
+    /** Keeps an attribute set by each benchmark thread. */
+    @State(Scope.Thread)
+    public static class AttributeState {
+        AttributeService service;
+
+        @Setup
+        public void setup(ServiceState serviceState) {
+            service = serviceState.service;
+            service.setAttribute(ATTRIBUTE_NAME, this);
+        }
+    }
+
+    private static Object __request(AttributeService service) {
+        service.setAttribute(ATTRIBUTE_NAME, service);
+        Object attribute = service.getAttribute(ATTRIBUTE_NAME);
+        service.destroyAttributes();
+        return attribute;
+    }
+    // =========================================================================
+    // </editor-fold>
+
+    @Benchmark
+    public Object getAttribute(AttributeState state) {
+        return state.service.getAttribute(ATTRIBUTE_NAME);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Object getAttributeContended(AttributeState state) {
+        return state.service.getAttribute(ATTRIBUTE_NAME);
+    }
+
+    @Benchmark
+    public Object setGetDestroy(ServiceState state) {
+        return __request(state.service);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Object setGetDestroyContended(ServiceState state) {
+        return __request(state.service);
+    }
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.web.toolkit.benchmarks;
+
+import com.agapsys.web.toolkit.AbstractWebApplication;
+import com.agapsys.web.toolkit.Service;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Properties;
+
+/**
+ * Application used by benchmarks.
+ *
+ * Application directory is placed into a temporary directory and given
+ * services are registered before application starts.
+ */
+public class BenchmarkApplication extends AbstractWebApplication {
+
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    public static final String KEY_BENCHMARK_PROPERTY = "benchmark.property";
+    public static final String BENCHMARK_PROPERTY_VALUE = "benchmark-value";
+    // =========================================================================
+    // </editor-fold>
+
+    private final File parentDir;
+    private final Service[] services;
+
+    public BenchmarkApplication(Service...services) {
+        try {
+            this.parentDir = Files.createTempDirectory("web-app-toolkit-benchmark").toFile();
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+
+        this.services = services;
+    }
+
+    @Override
+    public String getRootName() {
+        return "benchmark";
+    }
+
+    @Override
+    public String getVersion() {
+        return "0.0.0";
+    }
+
+    @Override
+    protected File getParentDir() {
+        return parentDir;
+    }
+
+    @Override
+    protected Properties getDefaultProperties() {
+        Properties properties = new Properties();
+        properties.setProperty(KEY_BENCHMARK_PROPERTY, BENCHMARK_PROPERTY_VALUE);
+        return properties;
+    }
+
+    @Override
+    protected void beforeStart() {
+        super.beforeStart();
+
+        for (Service service : services) {
+            registerService(service);
+        }
+    }
+
+}
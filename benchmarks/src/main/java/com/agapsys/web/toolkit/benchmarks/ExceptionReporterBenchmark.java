@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.web.toolkit.benchmarks;
+
+import com.agapsys.web.toolkit.services.ExceptionReporterService;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Duplicate detection performed by {@linkplain ExceptionReporterService} before reporting an error.
+ *
+ * Since the service invokes skipErrorReport() while holding its lock, benchmarks do the same.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExceptionReporterBenchmark {
+
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    private static class BenchmarkExceptionReporterService extends ExceptionReporterService {
+        private boolean __skipErrorReport(Throwable t) {
+            synchronized(this) {
+                return skipErrorReport(t);
+            }
+        }
+    }
+
+    /** Number of distinct errors (larger than the stack trace history, so new errors always miss). */
+    private static final int DISTINCT_ERROR_COUNT = ExceptionReporterService.DEFAULT_STACK_TRACE_HISTORY_SIZE * 4;
+    // =========================================================================
+    // </editor-fold>
+
+    private final BenchmarkExceptionReporterService service = new BenchmarkExceptionReporterService();
+    private final Throwable duplicateError = new RuntimeException("Duplicate error");
+    private final Throwable[] distinctErrors = new Throwable[DISTINCT_ERROR_COUNT];
+    private int distinctErrorIndex = 0;
+
+    public ExceptionReporterBenchmark() {
+        for (int i = 0; i < distinctErrors.length; i++) {
+            distinctErrors[i] = new RuntimeException("Error " + i);
+        }
+    }
+
+    @Benchmark
+    public boolean skipDuplicate() {
+        return service.__skipErrorReport(duplicateError);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean skipDuplicateContended() {
+        return service.__skipErrorReport(duplicateError);
+    }
+
+    /** Benchmark runs in a single thread, so index is not shared. */
+    @Benchmark
+    public boolean skipDistinct() {
+        Throwable error = distinctErrors[distinctErrorIndex];
+        distinctErrorIndex = (distinctErrorIndex + 1) % distinctErrors.length;
+        return service.__skipErrorReport(error);
+    }
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.web.toolkit.benchmarks;
+
+import com.agapsys.web.toolkit.AbstractApplication;
+import com.agapsys.web.toolkit.LogType;
+import com.agapsys.web.toolkit.services.LogService;
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of {@linkplain LogService#log(LogType, String, Object...)} with each logger.
+ *
+ * Console output is redirected to a discarding stream, so console results
+ * measure formatting and locking rather than terminal speed.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LogServiceBenchmark {
+
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    private static final PrintStream NULL_STREAM = new PrintStream(new OutputStream() {
+        @Override
+        public void write(int b) {}
+
+        @Override
+        public void write(byte[] b, int off, int len) {}
+    });
+    // =========================================================================
+    // </editor-fold>
+
+    @Param({"none", "console", "dailyFile"})
+    public String logger;
+
+    private AbstractApplication app;
+    private LogService logService;
+    private PrintStream stdout;
+
+    @Setup
+    public void setup() {
+        stdout = System.out;
+        System.setOut(NULL_STREAM);
+
+        switch (logger) {
+            case "none":
+                logService = new LogService();
+                break;
+
+            case "console":
+                logService = new LogService(new LogService.ConsoleLogger());
+                break;
+
+            case "dailyFile":
+                logService = new LogService(new LogService.DailyFileLogger(new File(System.getProperty("java.io.tmpdir"), "web-app-toolkit-benchmark-logs")));
+                break;
+
+            default:
+                throw new IllegalArgumentException("Invalid logger: " + logger);
+        }
+
+        app = new BenchmarkApplication(logService);
+        app.start();
+        app.getService(LogService.class, false);
+    }
+
+    @TearDown
+    public void tearDown() {
+        try {
+            app.stop();
+        } finally {
+            System.setOut(stdout);
+        }
+    }
+
+    @Benchmark
+    public void log() {
+        logService.log(LogType.INFO, "Benchmark message");
+    }
+
+    @Benchmark
+    public void logFormatted() {
+        logService.log(LogType.INFO, "Benchmark message: %d", 42);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void logContended() {
+        logService.log(LogType.INFO, "Benchmark message");
+    }
+
+}
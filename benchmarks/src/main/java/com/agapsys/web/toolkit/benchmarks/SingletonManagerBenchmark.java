@@ -0,0 +1,77 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.web.toolkit.benchmarks;
+
+import com.agapsys.web.toolkit.utils.SingletonManager;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Instance registration and lookup in {@linkplain SingletonManager}. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SingletonManagerBenchmark {
+
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    public static class Base {}
+
+    public static class Registered extends Base {}
+
+    public static class SubRegistered extends Registered {}
+    // =========================================================================
+    // </editor-fold>
+
+    private final SingletonManager<Base> manager = new SingletonManager<>(Base.class);
+    private final SubRegistered instance = new SubRegistered();
+
+    @Setup
+    public void setup() {
+        manager.registerInstance(instance);
+    }
+
+    /** Registration replaces the instance registered for the whole class hierarchy. */
+    @Benchmark
+    public SingletonManager<Base> registerInstance() {
+        manager.registerInstance(instance);
+        return manager;
+    }
+
+    @Benchmark
+    public Registered getInstance() {
+        return manager.getInstance(Registered.class);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Registered getInstanceContended() {
+        return manager.getInstance(Registered.class);
+    }
+
+}
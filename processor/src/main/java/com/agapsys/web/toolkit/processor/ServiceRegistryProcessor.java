@@ -0,0 +1,393 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.web.toolkit.processor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Generates a registry of the services compiled along with an application.
+ *
+ * Generated registry declares, for each public concrete subclass of
+ * com.agapsys.web.toolkit.Service, its concrete hierarchy, its dependencies
+ * (declared through com.agapsys.web.toolkit.DependsOn) and a factory invoking
+ * its injection constructor, so applications boot without reflection. Registry
+ * is published through META-INF/services/com.agapsys.web.toolkit.ServiceRegistry.
+ *
+ * Generated class name can be defined through processor option
+ * {@value ServiceRegistryProcessor#OPTION_REGISTRY_CLASS} (each compilation
+ * unit packaged in a distinct archive should use a distinct name).
+ */
+@SupportedAnnotationTypes("*")
+@SupportedOptions(ServiceRegistryProcessor.OPTION_REGISTRY_CLASS)
+public class ServiceRegistryProcessor extends AbstractProcessor {
+
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    public static final String OPTION_REGISTRY_CLASS  = "agapsys.serviceRegistry";
+    public static final String DEFAULT_REGISTRY_CLASS = "com.agapsys.web.toolkit.generated.GeneratedServiceRegistry";
+
+    private static final String SERVICE_CLASS          = "com.agapsys.web.toolkit.Service";
+    private static final String DEPENDS_ON_CLASS       = "com.agapsys.web.toolkit.DependsOn";
+    private static final String SERVICE_REGISTRY_CLASS = "com.agapsys.web.toolkit.ServiceRegistry";
+    private static final String INSTANCE_FACTORY_CLASS = "com.agapsys.web.toolkit.utils.SingletonManager.InstanceFactory";
+
+    /** Generated registration of a service class. */
+    private static final class ServiceEntry {
+        private final String       serviceClass;
+        private final List<String> hierarchy;
+        private final List<String> dependencies;     // <-- null: resolved at runtime
+        private final List<String> constructorParams; // <-- null: no factory
+
+        private ServiceEntry(String serviceClass, List<String> hierarchy, List<String> dependencies, List<String> constructorParams) {
+            this.serviceClass = serviceClass;
+            this.hierarchy = hierarchy;
+            this.dependencies = dependencies;
+            this.constructorParams = constructorParams;
+        }
+    }
+
+    private static String __getClassArray(List<String> classes) {
+        StringBuilder sb = new StringBuilder("new Class<?>[] {");
+
+        for (int i = 0; i < classes.size(); i++) {
+            if (i > 0)
+                sb.append(", ");
+
+            sb.append(classes.get(i)).append(".class");
+        }
+
+        return sb.append("}").toString();
+    }
+    // =========================================================================
+    // </editor-fold>
+
+    private final Map<String, ServiceEntry> entryMap = new LinkedHashMap<>();
+    private boolean generated = false;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement serviceElement = processingEnv.getElementUtils().getTypeElement(SERVICE_CLASS);
+
+        if (serviceElement == null)
+            return false; // <-- core library is not in classpath
+
+        int previousCount = entryMap.size();
+
+        for (TypeElement typeElement : ElementFilter.typesIn(roundEnv.getRootElements())) {
+            __collect(typeElement, serviceElement);
+        }
+
+        if (generated) {
+            if (entryMap.size() > previousCount)
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Services generated by other processors after service registry generation are not registered");
+
+            return false;
+        }
+
+        if (!entryMap.isEmpty() && (roundEnv.processingOver() || entryMap.size() > previousCount)) {
+            __generate();
+            generated = true;
+        }
+
+        return false;
+    }
+
+    /** Collects given type and its nested types. */
+    private void __collect(TypeElement typeElement, TypeElement serviceElement) {
+        for (TypeElement nested : ElementFilter.typesIn(typeElement.getEnclosedElements())) {
+            __collect(nested, serviceElement);
+        }
+
+        if (typeElement.getKind() != ElementKind.CLASS || typeElement.getModifiers().contains(Modifier.ABSTRACT))
+            return;
+
+        if (!__isInstantiable(typeElement) || !__isService(typeElement, serviceElement))
+            return;
+
+        List<String> hierarchy = __getHierarchy(typeElement, serviceElement);
+
+        if (hierarchy == null)
+            return; // <-- hierarchy is resolved at runtime
+
+        String serviceClass = typeElement.getQualifiedName().toString();
+        entryMap.put(serviceClass, new ServiceEntry(serviceClass, hierarchy, __getDependencies(typeElement, serviceElement), __getConstructorParams(typeElement, serviceElement)));
+    }
+
+    private boolean __isService(TypeElement typeElement, TypeElement serviceElement) {
+        TypeMirror erasure = processingEnv.getTypeUtils().erasure(typeElement.asType());
+        return processingEnv.getTypeUtils().isSubtype(erasure, processingEnv.getTypeUtils().erasure(serviceElement.asType()));
+    }
+
+    /** Returns a boolean indicating if given type can be referenced from generated registry. */
+    private boolean __isAccessible(TypeElement typeElement) {
+        if (!typeElement.getModifiers().contains(Modifier.PUBLIC))
+            return false;
+
+        Element enclosing = typeElement.getEnclosingElement();
+
+        if (enclosing.getKind() == ElementKind.PACKAGE)
+            return true;
+
+        return enclosing instanceof TypeElement && __isAccessible((TypeElement) enclosing);
+    }
+
+    /** Returns a boolean indicating if given type can be instantiated from generated registry. */
+    private boolean __isInstantiable(TypeElement typeElement) {
+        if (!__isAccessible(typeElement))
+            return false;
+
+        Element enclosing = typeElement.getEnclosingElement();
+        return enclosing.getKind() == ElementKind.PACKAGE || typeElement.getModifiers().contains(Modifier.STATIC);
+    }
+
+    private TypeElement __getSuperclass(TypeElement typeElement) {
+        TypeMirror superclass = typeElement.getSuperclass();
+
+        if (superclass.getKind() != TypeKind.DECLARED)
+            return null;
+
+        return (TypeElement) ((DeclaredType) superclass).asElement();
+    }
+
+    /** Returns the concrete hierarchy of given class (null if it cannot be referenced from generated registry). */
+    private List<String> __getHierarchy(TypeElement typeElement, TypeElement serviceElement) {
+        List<String> hierarchy = new ArrayList<>();
+        hierarchy.add(typeElement.getQualifiedName().toString());
+
+        TypeElement superclass = __getSuperclass(typeElement);
+
+        while (superclass != null && !superclass.getModifiers().contains(Modifier.ABSTRACT) && __isService(superclass, serviceElement)) {
+            if (!__isAccessible(superclass))
+                return null;
+
+            hierarchy.add(superclass.getQualifiedName().toString());
+            superclass = __getSuperclass(superclass);
+        }
+
+        return hierarchy;
+    }
+
+    /**
+     * Returns the dependencies declared through DependsOn annotation (which is inherited).
+     *
+     * @return declared dependencies or null if they must be resolved at runtime
+     * (Service.getDependencies() is overridden or a dependency cannot be referenced from generated registry).
+     */
+    private List<String> __getDependencies(TypeElement typeElement, TypeElement serviceElement) {
+        AnnotationMirror dependsOn = null;
+
+        for (TypeElement tmp = typeElement; tmp != null && !tmp.equals(serviceElement); tmp = __getSuperclass(tmp)) {
+            for (ExecutableElement method : ElementFilter.methodsIn(tmp.getEnclosedElements())) {
+                if (method.getSimpleName().contentEquals("getDependencies") && method.getParameters().isEmpty())
+                    return null;
+            }
+
+            if (dependsOn == null) {
+                for (AnnotationMirror annotation : tmp.getAnnotationMirrors()) {
+                    if (((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().contentEquals(DEPENDS_ON_CLASS))
+                        dependsOn = annotation;
+                }
+            }
+        }
+
+        List<String> dependencies = new ArrayList<>();
+
+        if (dependsOn == null)
+            return dependencies;
+
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : dependsOn.getElementValues().entrySet()) {
+            if (!entry.getKey().getSimpleName().contentEquals("value"))
+                continue;
+
+            Object value = entry.getValue().getValue();
+            List<Object> values = new ArrayList<>();
+
+            if (value instanceof List) {
+                for (Object item : (List<?>) value) {
+                    values.add(((AnnotationValue) item).getValue());
+                }
+            } else {
+                values.add(value);
+            }
+
+            for (Object item : values) {
+                if (!(item instanceof DeclaredType))
+                    return null;
+
+                TypeElement dependency = (TypeElement) ((DeclaredType) item).asElement();
+
+                if (!__isAccessible(dependency))
+                    return null;
+
+                String name = dependency.getQualifiedName().toString();
+
+                if (!dependencies.contains(name))
+                    dependencies.add(name);
+            }
+        }
+
+        return dependencies;
+    }
+
+    /**
+     * Returns the parameters of injection constructor (public default constructor or the single public constructor).
+     *
+     * @return constructor parameter types or null if there is no injection constructor usable from generated registry.
+     */
+    private List<String> __getConstructorParams(TypeElement typeElement, TypeElement serviceElement) {
+        List<ExecutableElement> constructors = new ArrayList<>();
+
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(typeElement.getEnclosedElements())) {
+            if (!constructor.getModifiers().contains(Modifier.PUBLIC))
+                continue;
+
+            if (constructor.getParameters().isEmpty())
+                return new ArrayList<>();
+
+            constructors.add(constructor);
+        }
+
+        if (constructors.size() != 1)
+            return null;
+
+        List<String> params = new ArrayList<>();
+
+        for (VariableElement param : constructors.get(0).getParameters()) {
+            TypeMirror type = processingEnv.getTypeUtils().erasure(param.asType());
+
+            if (type.getKind() != TypeKind.DECLARED)
+                return null;
+
+            TypeElement paramElement = (TypeElement) ((DeclaredType) type).asElement();
+
+            if (!__isAccessible(paramElement) || !__isService(paramElement, serviceElement))
+                return null;
+
+            params.add(paramElement.getQualifiedName().toString());
+        }
+
+        return params;
+    }
+
+    private void __generate() {
+        String registryClass = processingEnv.getOptions().get(OPTION_REGISTRY_CLASS);
+
+        if (registryClass == null || registryClass.trim().isEmpty())
+            registryClass = DEFAULT_REGISTRY_CLASS;
+
+        registryClass = registryClass.trim();
+
+        int index = registryClass.lastIndexOf('.');
+        String packageName = index < 0 ? null : registryClass.substring(0, index);
+        String simpleName = registryClass.substring(index + 1);
+
+        try {
+            try (Writer writer = processingEnv.getFiler().createSourceFile(registryClass).openWriter()) {
+                PrintWriter out = new PrintWriter(writer);
+
+                if (packageName != null) {
+                    out.printf("package %s;%n", packageName);
+                    out.println();
+                }
+
+                out.printf("/** Registry of services known at compile time (generated by %s). */%n", getClass().getName());
+                out.printf("public final class %s extends %s {%n", simpleName, SERVICE_REGISTRY_CLASS);
+                out.println();
+                out.printf("    public %s() {%n", simpleName);
+
+                for (ServiceEntry entry : entryMap.values()) {
+                    out.println("        register(");
+                    out.printf("            %s.class,%n", entry.serviceClass);
+                    out.printf("            %s,%n", __getClassArray(entry.hierarchy));
+                    out.printf("            %s,%n", entry.dependencies == null ? "null" : __getClassArray(entry.dependencies));
+
+                    if (entry.constructorParams == null) {
+                        out.println("            null");
+                    } else {
+                        out.printf("            new %s<%s>() {%n", INSTANCE_FACTORY_CLASS, entry.serviceClass);
+                        out.println("                @Override");
+                        out.println("                public Class<?>[] getDependencies() {");
+                        out.printf("                    return %s;%n", __getClassArray(entry.constructorParams));
+                        out.println("                }");
+                        out.println();
+                        out.println("                @Override");
+                        out.printf("                public %s newInstance(Object...dependencies) {%n", entry.serviceClass);
+                        out.printf("                    return new %s(", entry.serviceClass);
+
+                        for (int i = 0; i < entry.constructorParams.size(); i++) {
+                            if (i > 0)
+                                out.print(", ");
+
+                            out.printf("(%s) dependencies[%d]", entry.constructorParams.get(i), i);
+                        }
+
+                        out.println(");");
+                        out.println("                }");
+                        out.println("            }");
+                    }
+
+                    out.println("        );");
+                }
+
+                out.println("    }");
+                out.println("}");
+                out.flush();
+            }
+
+            FileObject resource = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", "META-INF/services/" + SERVICE_REGISTRY_CLASS);
+
+            try (Writer writer = resource.openWriter()) {
+                writer.write(registryClass);
+                writer.write("\n");
+            }
+        } catch (IOException ex) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Error generating service registry: " + ex.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.web.toolkit.processor;
+
+import com.agapsys.web.toolkit.Service;
+import com.agapsys.web.toolkit.ServiceRegistry;
+import com.agapsys.web.toolkit.utils.SingletonManager.InstanceFactory;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ServiceRegistryProcessorTest {
+
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static void __delete(File file) {
+        File[] children = file.listFiles();
+
+        if (children != null) {
+            for (File child : children) {
+                __delete(child);
+            }
+        }
+
+        file.delete();
+    }
+    // =========================================================================
+    // </editor-fold>
+
+    private File dir;
+    private File sourceDir;
+    private File classDir;
+
+    @Before
+    public void before() throws IOException {
+        dir = Files.createTempDirectory("service-registry-processor-test").toFile();
+        sourceDir = new File(dir, "src");
+        classDir = new File(dir, "classes");
+        classDir.mkdirs();
+    }
+
+    @After
+    public void after() {
+        __delete(dir);
+    }
+
+    private void __write(String className, String... lines) throws IOException {
+        File file = new File(sourceDir, className.replace('.', File.separatorChar) + ".java");
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), Arrays.asList(lines), UTF8);
+    }
+
+    private String __read(String path) throws IOException {
+        return new String(Files.readAllBytes(new File(classDir, path).toPath()), UTF8);
+    }
+
+    /** Compiles sample sources running the processor. */
+    private void __compile(String... options) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Assert.assertNotNull("Tests must run on a JDK", compiler);
+
+        List<File> sources = new ArrayList<>();
+        List<File> pending = new ArrayList<>(Arrays.asList(sourceDir));
+
+        while (!pending.isEmpty()) {
+            File file = pending.remove(0);
+
+            if (file.isDirectory()) {
+                pending.addAll(Arrays.asList(file.listFiles()));
+            } else {
+                sources.add(file);
+            }
+        }
+
+        List<String> mOptions = new ArrayList<>(Arrays.asList(
+            "-classpath", System.getProperty("java.class.path"),
+            "-d", classDir.getAbsolutePath(),
+            "-s", classDir.getAbsolutePath() // <-- generated sources are kept along with classes
+        ));
+        mOptions.addAll(Arrays.asList(options));
+
+        StringWriter diagnostics = new StringWriter();
+
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, UTF8)) {
+            Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjectsFromFiles(sources);
+            JavaCompiler.CompilationTask task = compiler.getTask(diagnostics, fileManager, null, mOptions, null, units);
+            task.setProcessors(Arrays.asList(new ServiceRegistryProcessor()));
+
+            Assert.assertTrue(diagnostics.toString(), task.call());
+        }
+    }
+
+    private ServiceRegistry __loadRegistry(ClassLoader classLoader, String registryClass) throws Exception {
+        return (ServiceRegistry) classLoader.loadClass(registryClass).newInstance();
+    }
+
+    private void __writeSamples() throws IOException {
+        __write("sample.BaseService",
+            "package sample;",
+            "public class BaseService extends com.agapsys.web.toolkit.Service {}"
+        );
+        __write("sample.SubService",
+            "package sample;",
+            "public class SubService extends BaseService {}"
+        );
+        __write("sample.DependentService",
+            "package sample;",
+            "@com.agapsys.web.toolkit.DependsOn({BaseService.class})",
+            "public class DependentService extends com.agapsys.web.toolkit.Service {",
+            "    public final BaseService base;",
+            "    public DependentService(BaseService base) { this.base = base; }",
+            "}"
+        );
+        __write("sample.Holder",
+            "package sample;",
+            "public class Holder {",
+            "    public static class NestedService extends com.agapsys.web.toolkit.Service {}",
+            "    public class InnerService extends com.agapsys.web.toolkit.Service {}",
+            "}"
+        );
+        __write("sample.AbstractSampleService",
+            "package sample;",
+            "public abstract class AbstractSampleService extends com.agapsys.web.toolkit.Service {}"
+        );
+        __write("sample.HiddenService",
+            "package sample;",
+            "class HiddenService extends com.agapsys.web.toolkit.Service {}"
+        );
+        __write("sample.NotAService",
+            "package sample;",
+            "public class NotAService {}"
+        );
+    }
+
+    @Test
+    public void testGeneratedRegistry() throws Exception {
+        __writeSamples();
+        __compile();
+
+        String source = __read(ServiceRegistryProcessor.DEFAULT_REGISTRY_CLASS.replace('.', '/') + ".java");
+        Assert.assertTrue(source.contains("public final class GeneratedServiceRegistry extends com.agapsys.web.toolkit.ServiceRegistry"));
+        Assert.assertEquals(ServiceRegistryProcessor.DEFAULT_REGISTRY_CLASS, __read("META-INF/services/com.agapsys.web.toolkit.ServiceRegistry").trim());
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[] {classDir.toURI().toURL()}, getClass().getClassLoader())) {
+            ServiceRegistry registry = __loadRegistry(classLoader, ServiceRegistryProcessor.DEFAULT_REGISTRY_CLASS);
+
+            Class<? extends Service> baseService      = classLoader.loadClass("sample.BaseService").asSubclass(Service.class);
+            Class<? extends Service> subService       = classLoader.loadClass("sample.SubService").asSubclass(Service.class);
+            Class<? extends Service> dependentService = classLoader.loadClass("sample.DependentService").asSubclass(Service.class);
+            Class<? extends Service> nestedService    = classLoader.loadClass("sample.Holder$NestedService").asSubclass(Service.class);
+
+            Set<Class<? extends Service>> expected = new LinkedHashSet<>();
+            expected.add(baseService);
+            expected.add(subService);
+            expected.add(dependentService);
+            expected.add(nestedService);
+            Assert.assertEquals(expected, new LinkedHashSet<>(registry.getServiceClasses())); // <-- abstract, non-public, inner and non-service classes are skipped
+
+            Assert.assertEquals(Arrays.asList(subService, baseService), registry.getHierarchy(subService));
+            Assert.assertEquals(new LinkedHashSet<>(Arrays.asList(baseService)), registry.getDependencies(dependentService));
+            Assert.assertTrue(registry.getDependencies(baseService).isEmpty());
+
+            InstanceFactory<? extends Service> factory = registry.getFactory(dependentService);
+            Assert.assertArrayEquals(new Class<?>[] {baseService}, factory.getDependencies());
+
+            Service base = baseService.newInstance();
+            Service dependent = factory.newInstance(base);
+            Assert.assertSame(dependentService, dependent.getClass());
+            Assert.assertSame(base, dependentService.getField("base").get(dependent)); // <-- factory invokes injection constructor
+        }
+    }
+
+    @Test
+    public void testRuntimeResolvedEntries() throws Exception {
+        __write("sample.OverridingService",
+            "package sample;",
+            "public class OverridingService extends com.agapsys.web.toolkit.Service {",
+            "    @Override",
+            "    public java.util.Set<Class<? extends com.agapsys.web.toolkit.Service>> getDependencies() { return super.getDependencies(); }",
+            "}"
+        );
+        __write("sample.AmbiguousService",
+            "package sample;",
+            "public class AmbiguousService extends com.agapsys.web.toolkit.Service {",
+            "    public AmbiguousService(OverridingService a) {}",
+            "    public AmbiguousService(OverridingService a, OverridingService b) {}",
+            "}"
+        );
+        __compile();
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[] {classDir.toURI().toURL()}, getClass().getClassLoader())) {
+            ServiceRegistry registry = __loadRegistry(classLoader, ServiceRegistryProcessor.DEFAULT_REGISTRY_CLASS);
+
+            Class<? extends Service> overridingService = classLoader.loadClass("sample.OverridingService").asSubclass(Service.class);
+            Class<? extends Service> ambiguousService  = classLoader.loadClass("sample.AmbiguousService").asSubclass(Service.class);
+
+            Assert.assertTrue(registry.getServiceClasses().contains(ambiguousService));
+            Assert.assertNull(registry.getDependencies(overridingService)); // <-- overridden getDependencies() is resolved at runtime
+            Assert.assertNotNull(registry.getFactory(overridingService));
+            Assert.assertNull(registry.getFactory(ambiguousService));       // <-- no injection constructor
+        }
+    }
+
+    @Test
+    public void testRegistryClassOption() throws Exception {
+        __writeSamples();
+        __compile("-A" + ServiceRegistryProcessor.OPTION_REGISTRY_CLASS + "=sample.registry.SampleRegistry");
+
+        Assert.assertFalse(new File(classDir, ServiceRegistryProcessor.DEFAULT_REGISTRY_CLASS.replace('.', '/') + ".java").exists());
+        Assert.assertEquals("sample.registry.SampleRegistry", __read("META-INF/services/com.agapsys.web.toolkit.ServiceRegistry").trim());
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[] {classDir.toURI().toURL()}, getClass().getClassLoader())) {
+            Assert.assertEquals(4, __loadRegistry(classLoader, "sample.registry.SampleRegistry").getServiceClasses().size());
+        }
+    }
+
+    @Test
+    public void testWithoutServices() throws Exception {
+        __write("sample.NotAService",
+            "package sample;",
+            "public class NotAService {}"
+        );
+        __compile();
+
+        Assert.assertFalse(new File(classDir, "META-INF/services/com.agapsys.web.toolkit.ServiceRegistry").exists()); // <-- no registry is generated
+    }
+}
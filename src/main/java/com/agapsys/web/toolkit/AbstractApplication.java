@@ -20,19 +20,57 @@ import com.agapsys.web.toolkit.services.LogService;
 import com.agapsys.web.toolkit.utils.FileUtils;
 import com.agapsys.web.toolkit.utils.FileUtils.AccessError;
 import com.agapsys.web.toolkit.utils.SingletonManager;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Properties;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Represents an application.
@@ -41,6 +79,20 @@ public abstract class AbstractApplication {
 
     // <editor-fold desc="STATIC SCOPE">
     // =========================================================================
+    /** Listener notified when application properties are reloaded. */
+    public static interface PropertyListener {
+
+        /**
+         * Called when a property changed after properties were reloaded.
+         *
+         * @param app application.
+         * @param key changed property key.
+         * @param oldValue previous value (null if property did not exist).
+         * @param newValue current value (null if property was removed).
+         */
+        public void onPropertyChanged(AbstractApplication app, String key, String oldValue, String newValue);
+    }
+
     private static interface StringConverter<T> {
         public T fromString(String str);
 
@@ -170,17 +222,72 @@ public abstract class AbstractApplication {
     protected static final String PROPERTIES_FILENAME = "application.properties";
     protected static final String LOG_DIR             = "log";
 
-    private static AbstractApplication runningInstance = null;
+    private static final String PROPERTY_PREFIX = AbstractApplication.class.getName();
 
-    private static void __setRunningInstance(AbstractApplication app) {
-        synchronized(AbstractApplication.class) {
-            runningInstance = app;
-        }
+    /** Comma-delimited list of service classes which shall be started (and warmed-up) along with the application. */
+    public static final String KEY_EAGER_SERVICES = PROPERTY_PREFIX + ".eagerServices";
+
+    /** Defines if properties file shall be watched and reloaded upon changes. */
+    public static final String KEY_WATCH_PROPERTIES = PROPERTY_PREFIX + ".watchProperties";
+
+    /** Defines if start/stop timeline shall be written into application directory (see {@linkplain AbstractApplication#getTimeline()}). */
+    public static final String KEY_DUMP_TIMELINE = PROPERTY_PREFIX + ".dumpTimeline";
+
+    public static final String  DEFAULT_EAGER_SERVICES   = "";
+    public static final boolean DEFAULT_WATCH_PROPERTIES = false;
+    /** Default time (in milliseconds) given to each service to stop (see {@linkplain Service#getStopTimeout()}). */
+    public static final String KEY_SERVICE_STOP_TIMEOUT = PROPERTY_PREFIX + ".serviceStopTimeout";
+
+    /** Default time (in milliseconds) callers wait for an asynchronously started service to be ready (see {@linkplain Service#getReadyTimeout()}). */
+    public static final String KEY_SERVICE_READY_TIMEOUT = PROPERTY_PREFIX + ".serviceReadyTimeout";
+
+    /** Default time (in milliseconds) a service stop waits for calls in progress to finish (see {@linkplain Service#getDrainTimeout()}). */
+    public static final String KEY_SERVICE_DRAIN_TIMEOUT = PROPERTY_PREFIX + ".serviceDrainTimeout";
+
+    /** Default time (in milliseconds) a call waits for a service being restarted (see {@linkplain Service#getCallWaitTimeout()}). */
+    public static final String KEY_SERVICE_CALL_WAIT_TIMEOUT = PROPERTY_PREFIX + ".serviceCallWaitTimeout";
+
+    public static final boolean DEFAULT_DUMP_TIMELINE             = false;
+    public static final long    DEFAULT_SERVICE_STOP_TIMEOUT      = 30000;
+    public static final long    DEFAULT_SERVICE_READY_TIMEOUT     = 30000;
+    public static final long    DEFAULT_SERVICE_DRAIN_TIMEOUT     = 10000;
+    public static final long    DEFAULT_SERVICE_CALL_WAIT_TIMEOUT = 5000;
+
+    protected static final String TIMELINE_FILENAME = "timeline.json";
+
+    /** Delay used to coalesce bursts of file system events while a properties file is being written. */
+    private static final long PROPERTIES_WATCH_DELAY = 200;
+
+    /** Running applications (key: context class loader of the thread which started the application). */
+    private static final ConcurrentMap<ClassLoader, AbstractApplication> RUNNING_INSTANCE_MAP = new ConcurrentHashMap<>();
+
+    /** Returns the key identifying current context in running instance registry. */
+    private static ClassLoader __getContextKey() {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        return classLoader != null ? classLoader : AbstractApplication.class.getClassLoader();
     }
 
+    /**
+     * Returns the application running in current context.
+     *
+     * Applications are registered by the context class loader of the thread
+     * which started them (in a servlet container, each web application has its
+     * own class loader), so several applications can share the same JVM.
+     *
+     * @return the application running in current context or null if there is
+     * no application registered for current context (applications registered
+     * by other contexts are never returned).
+     */
     public static AbstractApplication getRunningInstance() {
-        synchronized(AbstractApplication.class) {
-            return runningInstance;
+        return RUNNING_INSTANCE_MAP.get(__getContextKey());
+    }
+
+    /** Resolved log service (service may be null if there is no registered log service). */
+    private static final class LogServiceRef {
+        private final LogService service;
+
+        private LogServiceRef(LogService service) {
+            this.service = service;
         }
     }
     // =========================================================================
@@ -188,8 +295,67 @@ public abstract class AbstractApplication {
 
     private final SingletonManager<Service>       serviceManager              = new SingletonManager<>(Service.class);
     private final List<Service>                   initializedServiceList      = new LinkedList<>();
-    private final List<Class<? extends Service>>  serviceCircularRefCheckList = new LinkedList<>();
-    private final Properties                      properties                  = new Properties();
+    private final Object                          lifecycleLock               = new Object();
+
+    /** Services being started by current thread (used to detect circular references). */
+    private final ThreadLocal<List<Class<? extends Service>>> serviceCircularRefCheckList = new ThreadLocal<List<Class<? extends Service>>>() {
+        @Override
+        protected List<Class<? extends Service>> initialValue() {
+            return new LinkedList<>();
+        }
+    };
+
+    /** Thread starting each service (used to detect circular references across threads). */
+    private final ConcurrentMap<Service, Thread> serviceStartOwnerMap = new ConcurrentHashMap<>();
+
+    /** Service whose start each thread is waiting for (used to detect circular references across threads). */
+    private final ConcurrentMap<Thread, Service> serviceStartWaitMap = new ConcurrentHashMap<>();
+
+    /** Services started by other services during their start (key: dependent service class). */
+    private final Map<Class<? extends Service>, Set<Service>> runtimeDependencyMap = new LinkedHashMap<>();
+
+    /** Dependencies declared through service registries (see {@linkplain AbstractApplication#getServiceRegistries()}). */
+    private final Map<Class<? extends Service>, Set<Class<? extends Service>>> registeredDependencyMap = new ConcurrentHashMap<>();
+
+    /** Cached log service (null if it was not resolved yet). */
+    private volatile LogServiceRef logServiceRef = null;
+
+    /** Incremented whenever service registrations change (used to invalidate cached log service). */
+    private int serviceRegistrationRevision = 0;
+
+    /** Immutable snapshot of started services (lookups through this index do not lock the application). */
+    private volatile Map<Class<? extends Service>, Service> serviceIndex = Collections.emptyMap();
+
+    /** Current properties (replaced atomically when properties are loaded). */
+    private volatile Properties properties = new Properties();
+
+    /** Immutable copy of current properties (read path does not go through synchronized {@linkplain Properties} methods). */
+    private volatile Map<String, String> propertySnapshot = Collections.emptyMap();
+
+    /** Incremented whenever properties change (used to invalidate {@linkplain PropertyKey} cached values). */
+    private volatile int propertiesRevision = 0;
+
+    /** Property changes not written into properties file yet (null values denote removed keys; guarded by application lock). */
+    private final Map<String, String> unsavedPropertyMap = new LinkedHashMap<>();
+
+    /** Digest of latest properties file written by this application (used to ignore its own writes while watching the file). */
+    private volatile byte[] writtenPropertiesDigest = null;
+
+    private final Map<String, List<PropertyListener>> propertyListenerMap = new ConcurrentHashMap<>();
+
+    private volatile WatchService propertiesWatchService = null;
+
+    private final Object        propertiesWriteLock    = new Object();
+    private final AtomicBoolean propertiesSavePending  = new AtomicBoolean(false);
+    private final AtomicBoolean propertiesSaveSchedule = new AtomicBoolean(false);
+
+    private ScheduledExecutorService propertiesSaveExecutor = null;
+
+    /** Timeline of latest start/stop cycle. */
+    private volatile Timeline timeline = null;
+
+    /** Key of this application in running instance registry. */
+    private ClassLoader contextKey = null;
 
     private volatile boolean settingsLoaded;
     private File             appDirectory;
@@ -197,84 +363,846 @@ public abstract class AbstractApplication {
 
     /** Resets instance. */
     private synchronized void __reset() {
-        properties.clear();
+        properties = new Properties();
+        propertySnapshot = Collections.emptyMap();
+        propertiesRevision++;
         serviceManager.clear();
+        serviceIndex = Collections.emptyMap();
+        logServiceRef = null;
+        serviceRegistrationRevision++;
         initializedServiceList.clear();
-        serviceCircularRefCheckList.clear();
+        runtimeDependencyMap.clear();
+        registeredDependencyMap.clear();
+        propertyListenerMap.clear();
+        unsavedPropertyMap.clear();
+        writtenPropertiesDigest = null;
+        serviceCircularRefCheckList.remove();
         settingsLoaded = false;
     }
 
     /** Returns the circular reference path ending in given class. */
-    private synchronized String __getCicularReferencePath(Class<? extends Service> clazz) {
+    private String __getCicularReferencePath(List<Class<? extends Service>> checkList, Class<? extends Service> clazz) {
         StringBuilder sb = new StringBuilder();
 
         int i = 0;
-        for (Class<? extends Service> serviceClass : serviceCircularRefCheckList) {
+        for (Class<? extends Service> serviceClass : checkList) {
             if (i > 0)
                 sb.append(" --> ");
 
-            sb.append(serviceClass.getName());
+            sb.append(serviceClass.getName());
+
+            i++;
+        }
+
+        sb.append(" --> ").append(clazz.getName());
+        return sb.toString();
+    }
+
+    /** Registers the factory of given service class. */
+    private <S extends Service> void __registerFactory(ServiceRegistry registry, Class<S> serviceClass) {
+        SingletonManager.InstanceFactory<S> factory = registry.getFactory(serviceClass);
+
+        if (factory != null)
+            serviceManager.registerFactory(serviceClass, factory);
+    }
+
+    /** Loads the services known at compile time (see {@linkplain AbstractApplication#getServiceRegistries()}). */
+    private synchronized void __loadServiceRegistries() {
+        Iterable<ServiceRegistry> registries = getServiceRegistries();
+
+        if (registries == null)
+            return;
+
+        for (ServiceRegistry registry : registries) {
+            for (Class<? extends Service> serviceClass : registry.getServiceClasses()) {
+                serviceManager.registerHierarchy(serviceClass, registry.getHierarchy(serviceClass));
+                __registerFactory(registry, serviceClass);
+
+                Set<Class<? extends Service>> dependencies = registry.getDependencies(serviceClass);
+
+                if (dependencies != null)
+                    registeredDependencyMap.put(serviceClass, dependencies);
+            }
+        }
+    }
+
+    /** Returns the dependencies of given service (declared through a service registry or by the service itself). */
+    private Set<Class<? extends Service>> __getDependencies(Service service) {
+        Set<Class<? extends Service>> dependencies = registeredDependencyMap.get(service.getClass());
+        return dependencies != null ? dependencies : service.getDependencies();
+    }
+
+    /** Registers that given dependent service must be stopped before given dependency. */
+    private static void __addStopDependency(Map<Service, Set<Service>> dependencyMap, Service dependent, Service dependency) {
+        if (dependent == null || dependency == null || dependent == dependency)
+            return;
+
+        if (!dependencyMap.containsKey(dependent) || !dependencyMap.containsKey(dependency))
+            return;
+
+        dependencyMap.get(dependent).add(dependency);
+    }
+
+    /**
+     * Stops initialized services.
+     *
+     * A service is stopped only after the services depending on it (either
+     * declared, see {@linkplain Service#getDependencies()}, or required during
+     * their start) are stopped, so independent services are stopped concurrently.
+     * Services which do not stop within their deadline (see {@linkplain Service#getStopTimeout()})
+     * are abandoned and reported in application timeline.
+     */
+    private void __stopServices() {
+        List<Service> services;
+        Map<Service, Set<Service>> dependencyMap = new LinkedHashMap<>();
+
+        synchronized(this) {
+            serviceIndex = Collections.emptyMap();
+            services = new ArrayList<>(initializedServiceList);
+
+            for (Service service : services) {
+                dependencyMap.put(service, new LinkedHashSet<Service>());
+            }
+
+            for (Service service : services) {
+                for (Class<? extends Service> dependencyClass : __getDependencies(service)) {
+                    __addStopDependency(dependencyMap, service, serviceManager.getInstance(dependencyClass, false, false));
+                }
+            }
+
+            for (Map.Entry<Class<? extends Service>, Set<Service>> entry : runtimeDependencyMap.entrySet()) {
+                Service dependent = serviceManager.getInstance(entry.getKey(), false, false);
+
+                for (Service dependency : entry.getValue()) {
+                    __addStopDependency(dependencyMap, dependent, dependency);
+                }
+            }
+
+            // Log service is stopped last (services log their stop)...
+            for (Service service : services) {
+                if (service instanceof LogService) {
+                    for (Service dependent : services) {
+                        __addStopDependency(dependencyMap, dependent, service);
+                    }
+                }
+            }
+        }
+
+        if (services.isEmpty())
+            return;
+
+        final Map<Service, Integer> pendingDependentCountMap = new LinkedHashMap<>();
+
+        for (Service service : services) {
+            pendingDependentCountMap.put(service, 0);
+        }
+
+        for (Set<Service> dependencies : dependencyMap.values()) {
+            for (Service dependency : dependencies) {
+                pendingDependentCountMap.put(dependency, pendingDependentCountMap.get(dependency) + 1);
+            }
+        }
+
+        LinkedList<Service> pendingList = new LinkedList<>(services);
+        Collections.reverse(pendingList); // <-- most recent services first
+
+        ExecutorService executor = Executors.newCachedThreadPool(__getThreadFactory("shutdown")); // <-- abandoned services may hold their threads
+        CompletionService<Service> completionService = new ExecutorCompletionService<>(executor);
+        Map<Future<Service>, Service> inFlightMap = new LinkedHashMap<>();
+        Map<Future<Service>, Long> startMap = new HashMap<>();
+        Map<Future<Service>, Long> deadlineMap = new HashMap<>();
+
+        RuntimeException error = null;
+
+        try {
+            while (!pendingList.isEmpty() || !inFlightMap.isEmpty()) {
+                // Submits services without running dependents...
+                for (Iterator<Service> it = pendingList.iterator(); it.hasNext();) {
+                    Service service = it.next();
+
+                    if (pendingDependentCountMap.get(service) == 0) {
+                        it.remove();
+                        __submitStopTask(completionService, service, inFlightMap, startMap, deadlineMap);
+                    }
+                }
+
+                if (inFlightMap.isEmpty()) {
+                    // Dependency cycle: falls back to reverse start order...
+                    __submitStopTask(completionService, pendingList.removeFirst(), inFlightMap, startMap, deadlineMap);
+                }
+
+                long now = System.nanoTime();
+                long nextDeadline = Long.MAX_VALUE;
+
+                for (long deadline : deadlineMap.values()) {
+                    nextDeadline = Math.min(nextDeadline, deadline);
+                }
+
+                List<Service> stoppedList = new LinkedList<>();
+                Future<Service> future = completionService.poll(Math.max(0, nextDeadline - now), TimeUnit.NANOSECONDS);
+
+                if (future != null) {
+                    Service service = inFlightMap.remove(future);
+
+                    if (service == null)
+                        continue; // <-- abandoned service
+
+                    startMap.remove(future);
+                    deadlineMap.remove(future);
+
+                    try {
+                        future.get();
+                    } catch (ExecutionException ex) {
+                        Throwable cause = ex.getCause();
+
+                        if (error == null)
+                            error = cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
+                    }
+
+                    stoppedList.add(service);
+                } else {
+                    now = System.nanoTime();
+
+                    for (Iterator<Map.Entry<Future<Service>, Service>> it = inFlightMap.entrySet().iterator(); it.hasNext();) {
+                        Map.Entry<Future<Service>, Service> entry = it.next();
+                        Future<Service> expiredFuture = entry.getKey();
+
+                        if (deadlineMap.get(expiredFuture) > now)
+                            continue;
+
+                        Service service = entry.getValue();
+                        it.remove();
+                        expiredFuture.cancel(true);
+
+                        long t0 = startMap.remove(expiredFuture);
+                        deadlineMap.remove(expiredFuture);
+                        timeline._record(Timeline.Phase.SERVICE_STOP_TIMEOUT, service.getClass(), null, t0);
+
+                        if (!(service instanceof LogService)) // <-- an abandoned log service may be holding its lock
+                            log(LogType.WARNING, "Service stop timed out and was abandoned after %d ms: %s", TimeUnit.NANOSECONDS.toMillis(now - t0), service.getClass().getName());
+
+                        stoppedList.add(service);
+                    }
+                }
+
+                for (Service stopped : stoppedList) {
+                    for (Service dependency : dependencyMap.get(stopped)) {
+                        pendingDependentCountMap.put(dependency, pendingDependentCountMap.get(dependency) - 1);
+                    }
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(ex);
+        } finally {
+            executor.shutdown();
+        }
+
+        if (error != null)
+            throw error;
+    }
+
+    private void __submitStopTask(CompletionService<Service> completionService, final Service service, Map<Future<Service>, Service> inFlightMap, Map<Future<Service>, Long> startMap, Map<Future<Service>, Long> deadlineMap) {
+        long timeout = service.getStopTimeout();
+
+        if (timeout <= 0)
+            timeout = getLong(KEY_SERVICE_STOP_TIMEOUT, DEFAULT_SERVICE_STOP_TIMEOUT);
+
+        final long t0 = timeline._now();
+
+        Future<Service> future = completionService.submit(new Callable<Service>() {
+            @Override
+            public Service call() throws Exception {
+                service._stop();
+                timeline._record(Timeline.Phase.SERVICE_STOP, service.getClass(), null, t0);
+                return service;
+            }
+        });
+
+        inFlightMap.put(future, service);
+        startMap.put(future, t0);
+        deadlineMap.put(future, t0 + TimeUnit.MILLISECONDS.toNanos(timeout));
+    }
+
+    /**
+     * Starts given service instance if it is not running.
+     *
+     * Application lock is not held while service is starting, so unrelated
+     * services can be resolved (or started) concurrently. If service is being
+     * restarted (or stopped), current thread waits for the transition to
+     * finish instead of starting the service on its own.
+     *
+     * @param triggerClass service which triggered the start (null to use the service being started by current thread, if any).
+     */
+    private void __startService(Class<? extends Service> serviceClass, Service service, Class<? extends Service> triggerClass) {
+        while (true) {
+            if (service.isRunning() || service._isStartingAsync())
+                return;
+
+            service._awaitTransition(this); // <-- service lock must not be held while waiting
+
+            Thread currentThread = Thread.currentThread();
+            serviceStartWaitMap.put(currentThread, service);
+
+            try {
+                __checkStartDeadlock(service);
+
+                synchronized(service) {
+                    serviceStartWaitMap.remove(currentThread);
+
+                    if (service._isInTransition())
+                        continue;
+
+                    serviceStartOwnerMap.put(service, currentThread);
+
+                    try {
+                        __doStartService(serviceClass, service, triggerClass);
+                    } finally {
+                        serviceStartOwnerMap.remove(service);
+                    }
+
+                    return;
+                }
+            } finally {
+                serviceStartWaitMap.remove(currentThread);
+            }
+        }
+    }
+
+    /**
+     * Fails if waiting for the start of given service would deadlock current thread.
+     *
+     * This happens when the thread starting given service is waiting (directly
+     * or through other threads) for a service being started by current thread.
+     * Since every thread registers the service it waits for before checking,
+     * at least one of the threads involved in such cycle detects it.
+     */
+    private void __checkStartDeadlock(Service service) {
+        Thread currentThread = Thread.currentThread();
+        Thread owner = serviceStartOwnerMap.get(service);
+
+        if (owner == null || owner == currentThread)
+            return; // <-- circular references within current thread are detected through check list
+
+        StringBuilder sb = new StringBuilder(service.getClass().getName());
+        Set<Thread> visitedThreads = new HashSet<>();
+
+        while (owner != null && visitedThreads.add(owner)) {
+            Service awaitedService = serviceStartWaitMap.get(owner);
+
+            if (awaitedService == null)
+                return;
+
+            sb.append(" --> ").append(awaitedService.getClass().getName());
+            owner = serviceStartOwnerMap.get(awaitedService);
+
+            if (owner == currentThread)
+                throw new RuntimeException("Circular service reference: " + sb.append(" --> ").append(service.getClass().getName()));
+        }
+    }
+
+    /**
+     * Starts given service (service lock must be held by current thread).
+     *
+     * Declared dependencies (see {@linkplain Service#getDependencies()}) are
+     * started before given service, so lazily started services see the same
+     * dependencies as the ones started along with the application.
+     */
+    private void __doStartService(Class<? extends Service> serviceClass, Service service, Class<? extends Service> triggerClass) {
+        if (service.isRunning() || service._isStartingAsync())
+            return;
+
+        List<Class<? extends Service>> checkList = serviceCircularRefCheckList.get();
+
+        if (checkList.contains(serviceClass))
+            throw new RuntimeException("Circular service reference: " + __getCicularReferencePath(checkList, serviceClass));
+
+        Class<? extends Service> parentClass = triggerClass;
+
+        if (parentClass == null && !checkList.isEmpty())
+            parentClass = checkList.get(checkList.size() - 1);
+
+        Timeline mTimeline = timeline;
+
+        checkList.add(serviceClass);
+        try {
+            for (Class<? extends Service> dependencyClass : __getDependencies(service)) {
+                Service dependency;
+
+                synchronized(this) {
+                    dependency = serviceManager.getInstance(dependencyClass, true, false);
+                }
+
+                __startService(dependencyClass, dependency, serviceClass); // <-- circular dependencies are detected through check list
+                __publishService(dependencyClass, dependency);
+            }
+
+            long t0 = mTimeline._now();
+            service._start(this);
+            mTimeline._record(Timeline.Phase.SERVICE_START, serviceClass, parentClass, t0);
+        } finally {
+            checkList.remove(checkList.size() - 1);
+        }
+
+        synchronized(this) {
+            initializedServiceList.add(service);
+
+            if (!checkList.isEmpty()) {
+                // Service was required by another service during its start...
+                Class<? extends Service> dependentClass = checkList.get(checkList.size() - 1);
+                Set<Service> dependencies = runtimeDependencyMap.get(dependentClass);
+
+                if (dependencies == null) {
+                    dependencies = new LinkedHashSet<>();
+                    runtimeDependencyMap.put(dependentClass, dependencies);
+                }
+
+                dependencies.add(service);
+            }
+        }
+    }
+
+    /**
+     * Starts given services (and their declared dependencies) using a bounded thread pool.
+     *
+     * A service is started as soon as all of its declared dependencies are running,
+     * so independent services are started concurrently.
+     */
+    private void __startServices(Collection<Class<? extends Service>> serviceClasses) {
+        if (serviceClasses == null || serviceClasses.isEmpty())
+            return;
+
+        // Resolves dependency graph...
+        Map<Class<? extends Service>, Set<Class<? extends Service>>> dependencyMap = new LinkedHashMap<>();
+        LinkedList<Class<? extends Service>> pendingList = new LinkedList<>(serviceClasses);
+
+        while (!pendingList.isEmpty()) {
+            Class<? extends Service> serviceClass = pendingList.removeFirst();
+
+            if (dependencyMap.containsKey(serviceClass))
+                continue;
+
+            Service service;
+            synchronized(this) {
+                service = serviceManager.getInstance(serviceClass, true, false);
+            }
+
+            Set<Class<? extends Service>> dependencies = __getDependencies(service);
+            dependencyMap.put(serviceClass, dependencies);
+            pendingList.addAll(dependencies);
+        }
+
+        Map<Class<? extends Service>, Integer> pendingDependencyCountMap = new LinkedHashMap<>();
+        Map<Class<? extends Service>, List<Class<? extends Service>>> dependentMap = new LinkedHashMap<>();
+
+        for (Map.Entry<Class<? extends Service>, Set<Class<? extends Service>>> entry : dependencyMap.entrySet()) {
+            pendingDependencyCountMap.put(entry.getKey(), entry.getValue().size());
+
+            for (Class<? extends Service> dependency : entry.getValue()) {
+                List<Class<? extends Service>> dependents = dependentMap.get(dependency);
+
+                if (dependents == null) {
+                    dependents = new LinkedList<>();
+                    dependentMap.put(dependency, dependents);
+                }
+
+                dependents.add(entry.getKey());
+            }
+        }
+
+        // Starts services...
+        Set<Service> warmedUpSet = Collections.newSetFromMap(new ConcurrentHashMap<Service, Boolean>());
+        int threadCount = Math.max(1, Math.min(getStartupThreadCount(), dependencyMap.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount, __getThreadFactory("startup"));
+        CompletionService<Class<? extends Service>> completionService = new ExecutorCompletionService<>(executor);
+
+        int inFlight = 0;
+        int started = 0;
+
+        try {
+            for (Map.Entry<Class<? extends Service>, Integer> entry : pendingDependencyCountMap.entrySet()) {
+                if (entry.getValue() == 0) {
+                    completionService.submit(__getStartTask(entry.getKey(), null, warmedUpSet));
+                    inFlight++;
+                }
+            }
+
+            while (inFlight > 0) {
+                Class<? extends Service> startedClass = completionService.take().get();
+                inFlight--;
+                started++;
+
+                List<Class<? extends Service>> dependents = dependentMap.get(startedClass);
+
+                if (dependents == null)
+                    continue;
+
+                for (Class<? extends Service> dependent : dependents) {
+                    int pendingDependencyCount = pendingDependencyCountMap.get(dependent) - 1;
+                    pendingDependencyCountMap.put(dependent, pendingDependencyCount);
+
+                    if (pendingDependencyCount == 0) {
+                        completionService.submit(__getStartTask(dependent, startedClass, warmedUpSet)); // <-- last started dependency triggers the start
+                        inFlight++;
+                    }
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+
+            throw new RuntimeException(cause);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (started < dependencyMap.size()) {
+            Set<Class<? extends Service>> notStartedSet = new LinkedHashSet<>();
+
+            for (Map.Entry<Class<? extends Service>, Integer> entry : pendingDependencyCountMap.entrySet()) {
+                if (entry.getValue() > 0)
+                    notStartedSet.add(entry.getKey());
+            }
+
+            throw new RuntimeException("Circular service dependency: " + notStartedSet);
+        }
+    }
+
+    private Callable<Class<? extends Service>> __getStartTask(final Class<? extends Service> serviceClass, final Class<? extends Service> triggerClass, final Set<Service> warmedUpSet) {
+        return new Callable<Class<? extends Service>>() {
+            @Override
+            public Class<? extends Service> call() throws Exception {
+                long t0 = System.nanoTime();
+                Service service = __getService(serviceClass, true, triggerClass);
+                long t1 = System.nanoTime();
+
+                if (warmedUpSet.add(service)) {
+                    if (!service._warmUpWhenReady()) {
+                        log(LogType.INFO, "Service is starting in background: %s (warm-up deferred)", serviceClass.getName());
+                        return serviceClass;
+                    }
+
+                    long t2 = System.nanoTime();
+                    timeline._record(Timeline.Phase.SERVICE_WARM_UP, serviceClass, null, t1);
+
+                    log(LogType.INFO, "Service ready: %s (start: %d ms, warm-up: %d ms)", serviceClass.getName(), TimeUnit.NANOSECONDS.toMillis(t1 - t0), TimeUnit.NANOSECONDS.toMillis(t2 - t1));
+                }
+
+                return serviceClass;
+            }
+        };
+    }
+
+    /** Returns the services which shall be started along with the application (see {@linkplain AbstractApplication#KEY_EAGER_SERVICES}). */
+    private Set<Class<? extends Service>> __getEagerServices() {
+        Set<Class<? extends Service>> eagerServices = new LinkedHashSet<>();
+
+        Collection<Class<? extends Service>> startupServices = getStartupServices();
+
+        if (startupServices != null)
+            eagerServices.addAll(startupServices);
+
+        for (String className : getProperty(KEY_EAGER_SERVICES, DEFAULT_EAGER_SERVICES).split(",")) {
+            className = className.trim();
+
+            if (className.isEmpty())
+                continue;
+
+            Class<?> clazz;
+            try {
+                clazz = Class.forName(className, true, getClass().getClassLoader());
+            } catch (ClassNotFoundException ex) {
+                throw new RuntimeException("Invalid eager service: " + className, ex);
+            }
+
+            if (!Service.class.isAssignableFrom(clazz))
+                throw new RuntimeException("Invalid eager service (not a service class): " + className);
+
+            eagerServices.add(clazz.asSubclass(Service.class));
+        }
+
+        return eagerServices;
+    }
+
+    /** Returns a factory of daemon threads named after this application. */
+    private ThreadFactory __getThreadFactory(final String purpose) {
+        final String prefix = String.format("%s-%s-", getName(), purpose);
+
+        return new ThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, prefix + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    /** Creates a daemon thread used by this application. */
+    Thread _newThread(String purpose, Runnable runnable) {
+        return __getThreadFactory(purpose).newThread(runnable);
+    }
+
+    /** Publishes a started service into service index. */
+    private synchronized void __publishService(Class<? extends Service> serviceClass, Service service) {
+        Map<Class<? extends Service>, Service> newIndex = new HashMap<>(serviceIndex);
+        newIndex.put(serviceClass, service);
+        serviceIndex = Collections.unmodifiableMap(newIndex);
+    }
+
+    /** Always returns a non-null instance. */
+    private synchronized Properties __getDefaultProperties() {
+        Properties mProperties = getDefaultProperties();
+
+        if (mProperties == null)
+            mProperties = new Properties();
+
+        return mProperties;
+    }
+
+    /**
+     * Loads application properties.
+     *
+     * Property changes which were not written into properties file yet are
+     * preserved (see {@linkplain AbstractApplication#saveProperties()}).
+     *
+     * @param createFile define if a default properties file should be created when there is default properties.
+     * @throws IOException if there was an I/O error while reading/creating properties file.
+     * @return the keys whose values changed.
+     */
+    private Set<String> __loadProperties(boolean createFile) throws IOException {
+        Properties properties = new Properties();
+        Set<String> changedKeys;
+
+        File propertiesFile = new File(getDirectory(), PROPERTIES_FILENAME);
+
+        synchronized(this) {
+            // Loads properties from file...
+            if (propertiesFile.exists()) {
+                try (FileInputStream fis = new FileInputStream(propertiesFile)) {
+                    properties.load(fis);
+                }
+            }
+
+            // Applies default properties...
+            for (Map.Entry<Object, Object> entry : __getDefaultProperties().entrySet()) {
+                String key = (String) entry.getKey();
+                String value = (String) entry.getValue();
+
+                if (!properties.containsKey(key))
+                    properties.setProperty(key, value);
+            }
+
+            // Applies unsaved changes...
+            for (Map.Entry<String, String> entry : unsavedPropertyMap.entrySet()) {
+                if (entry.getValue() == null) {
+                    properties.remove(entry.getKey());
+                } else {
+                    properties.setProperty(entry.getKey(), entry.getValue());
+                }
+            }
+
+            changedKeys = __getChangedKeys(this.properties, properties);
+
+            this.properties = properties;
+            propertySnapshot = __getSnapshot(properties);
+            propertiesRevision++;
+            settingsLoaded = true;
+        }
+
+        if (!propertiesFile.exists() && !properties.isEmpty() && createFile)
+            saveProperties(); // <-- application lock is not held while file is written
+
+        return changedKeys;
+    }
+
+    /** Returns an immutable copy of given properties. */
+    private static Map<String, String> __getSnapshot(Properties properties) {
+        Map<String, String> snapshot = new HashMap<>();
+
+        for (String key : properties.stringPropertyNames()) {
+            snapshot.put(key, properties.getProperty(key));
+        }
+
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    /** Returns the keys whose values differ between given properties. */
+    private static Set<String> __getChangedKeys(Properties oldProperties, Properties newProperties) {
+        Set<String> changedKeys = new LinkedHashSet<>();
+
+        for (String key : oldProperties.stringPropertyNames()) {
+            if (!oldProperties.getProperty(key).equals(newProperties.getProperty(key)))
+                changedKeys.add(key);
+        }
+
+        for (String key : newProperties.stringPropertyNames()) {
+            if (!oldProperties.containsKey(key))
+                changedKeys.add(key);
+        }
+
+        return changedKeys;
+    }
+
+    /** Notifies property listeners and running services about changed properties. */
+    private void __notifyPropertyChanges(Properties oldProperties, Set<String> changedKeys) {
+        if (changedKeys.isEmpty() || !isRunning())
+            return;
+
+        Properties newProperties = properties;
 
-            i++;
+        for (String key : changedKeys) {
+            List<PropertyListener> listeners = propertyListenerMap.get(key);
+
+            if (listeners == null)
+                continue;
+
+            for (PropertyListener listener : listeners) {
+                try {
+                    listener.onPropertyChanged(this, key, oldProperties.getProperty(key), newProperties.getProperty(key));
+                } catch (RuntimeException ex) {
+                    log(LogType.ERROR, "Error notifying property change (%s): %s", key, ex.getMessage());
+                }
+            }
         }
 
-        sb.append(" --> ").append(clazz.getName());
-        return sb.toString();
-    }
+        Set<String> roChangedKeys = Collections.unmodifiableSet(changedKeys);
+        List<Service> services;
+
+        synchronized(this) {
+            services = new LinkedList<>(initializedServiceList);
+        }
 
-    /** Stops initialized services in appropriate sequence. */
-    private synchronized  void __stopServices() {
-        for (int i = initializedServiceList.size() - 1; i >= 0; i--) {
-            Service service = initializedServiceList.get(i);
-            service._stop();
+        for (Service service : services) {
+            try {
+                service._propertiesChanged(roChangedKeys);
+            } catch (RuntimeException ex) {
+                log(LogType.ERROR, "Error reconfiguring service (%s): %s", service.getClass().getName(), ex.getMessage());
+            }
         }
     }
 
-    /** Always returns a non-null instance. */
-    private synchronized Properties __getDefaultProperties() {
-        Properties mProperties = getDefaultProperties();
+    /** Starts watching application directory for changes in properties file. */
+    private void __startPropertiesWatcher() throws IOException {
+        Path directory = getDirectory().toPath();
 
-        if (mProperties == null)
-            mProperties = new Properties();
+        final WatchService watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        propertiesWatchService = watchService;
 
-        return mProperties;
-    }
+        Thread watcherThread = __getThreadFactory("properties-watcher").newThread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (true) {
+                        WatchKey watchKey = watchService.take();
+                        boolean changed = false;
+
+                        for (WatchEvent<?> event : watchKey.pollEvents()) {
+                            if (event.kind() == StandardWatchEventKinds.OVERFLOW || PROPERTIES_FILENAME.equals(String.valueOf(event.context())))
+                                changed = true;
+                        }
+
+                        watchKey.reset();
+
+                        if (!changed)
+                            continue;
+
+                        // Coalesces events generated while file is being written...
+                        Thread.sleep(PROPERTIES_WATCH_DELAY);
+                        while ((watchKey = watchService.poll()) != null) {
+                            watchKey.pollEvents();
+                            watchKey.reset();
+                        }
+
+                        try {
+                            if (__isWrittenPropertiesFile())
+                                continue; // <-- file was written by this application
+
+                            loadProperties();
+                        } catch (IOException | RuntimeException ex) {
+                            if (isRunning())
+                                log(LogType.ERROR, "Error reloading properties: %s", ex.getMessage());
+                        }
+                    }
+                } catch (InterruptedException | ClosedWatchServiceException ex) {
+                    // Watcher was stopped
+                }
+            }
+        });
 
-    /**
-     * Loads application properties.
-     *
-     * @param createFile define if a default properties file should be created when there is default properties.
-     * @throws IOException if there was an I/O error while reading/creating properties file.
-     */
-    private synchronized void __loadProperties(boolean createFile) throws IOException {
-        settingsLoaded = false;
+        watcherThread.start();
+    }
 
-        properties.clear();
+    private static byte[] __getDigest(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
 
+    /** Returns a boolean indicating if properties file contents are the ones latest written by this application. */
+    private boolean __isWrittenPropertiesFile() throws IOException {
+        byte[] digest = writtenPropertiesDigest;
         File propertiesFile = new File(getDirectory(), PROPERTIES_FILENAME);
 
-        // Loads properties from file...
-        if (propertiesFile.exists()) {
-            try (FileInputStream fis = new FileInputStream(propertiesFile)) {
-                properties.load(fis);
+        if (digest == null || !propertiesFile.exists())
+            return false;
+
+        return Arrays.equals(digest, __getDigest(Files.readAllBytes(propertiesFile.toPath())));
+    }
+
+    /** Stops watching properties file. */
+    private void __stopPropertiesWatcher() {
+        WatchService watchService = propertiesWatchService;
+        propertiesWatchService = null;
+
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ex) {
+                throw new RuntimeException(ex);
             }
         }
+    }
 
-        // Applies default properties...
-        for (Map.Entry<Object, Object> entry : __getDefaultProperties().entrySet()) {
-            String key = (String) entry.getKey();
-            String value = (String) entry.getValue();
+    /** Registers this instance as the application running in current context. */
+    private void __registerRunningInstance() {
+        ClassLoader mContextKey = __getContextKey();
+        AbstractApplication runningInstance = RUNNING_INSTANCE_MAP.putIfAbsent(mContextKey, this);
 
-            if (!properties.containsKey(key))
-                properties.setProperty(key, value);
-        }
+        if (runningInstance != null && runningInstance != this)
+            throw new IllegalStateException(String.format("Another application instance is already running in this context (class: %s, name: %s, version: %s)", runningInstance.getClass().getName(), runningInstance.getName(), runningInstance.getVersion()));
 
-        if (!propertiesFile.exists() && !properties.isEmpty() && createFile)
-            saveProperties();
+        contextKey = mContextKey;
+    }
+
+    /** Removes this instance from running instance registry. */
+    private void __unregisterRunningInstance() {
+        if (contextKey != null)
+            RUNNING_INSTANCE_MAP.remove(contextKey, this);
 
-        settingsLoaded = true;
+        contextKey = null;
     }
 
+    /** Writes current timeline into application directory. */
+    private void __dumpTimeline() {
+        File timelineFile = new File(getDirectory(), TIMELINE_FILENAME);
+
+        try (FileOutputStream fos = new FileOutputStream(timelineFile)) {
+            fos.write(timeline.toJson().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
 
     public AbstractApplication() {
         __reset();
@@ -304,22 +1232,70 @@ public abstract class AbstractApplication {
      * @param msgArgs message parameters (see {@linkplain String#format(String, Object...)}).
      */
     public void log(Date timestamp, LogType logType, String message, Object...msgArgs) {
-        synchronized (this) {
-            if (!isRunning())
-                throw new IllegalStateException("Application is not running");
+        if (!isRunning())
+            throw new IllegalStateException("Application is not running");
 
-            LogService logService = getService(LogService.class, false);
+        LogService logService = __getLogService();
 
-            if (logService != null)
-                logService.log(timestamp, logType, message, msgArgs);
-        }
+        if (logService != null && logService.isLoggable(logType))
+            logService.log(timestamp, logType, message, msgArgs);
     }
 
-    /** Convenience method for log(new Date(), logType, message, msgArgs). */
+    /**
+     * Convenience method for log(new Date(), logType, message, msgArgs).
+     *
+     * Message is always delegated to {@linkplain AbstractApplication#log(Date, LogType, String, Object...)},
+     * which discards messages not accepted by the log service.
+     */
     public final void log(LogType logType, String message, Object...msgArgs) {
         log(new Date(), logType, message, msgArgs);
     }
 
+    /**
+     * Returns a boolean indicating if messages of given type would be logged.
+     *
+     * @param logType log message type.
+     * @return a boolean indicating if messages of given type would be logged
+     * (there is a registered log service accepting given type).
+     */
+    public boolean isLoggable(LogType logType) {
+        if (!isRunning())
+            throw new IllegalStateException("Application is not running");
+
+        LogService logService = __getLogService();
+        return logService != null && logService.isLoggable(logType);
+    }
+
+    /**
+     * Returns registered log service.
+     *
+     * Resolved service is cached until service registrations change, so
+     * logging does not lock the application.
+     *
+     * @return registered log service or null if there is no such service.
+     */
+    private LogService __getLogService() {
+        LogServiceRef ref = logServiceRef;
+
+        if (ref != null)
+            return ref.service;
+
+        int revision;
+
+        synchronized(this) {
+            revision = serviceRegistrationRevision;
+        }
+
+        LogService logService = getService(LogService.class, false);
+
+        synchronized(this) {
+            if (revision == serviceRegistrationRevision)
+                logServiceRef = new LogServiceRef(logService);
+        }
+
+        return logService;
+    }
+
     /**
      * Return a boolean indicating if application is running.
      *
@@ -367,6 +1343,17 @@ public abstract class AbstractApplication {
         return FileUtils.USER_HOME;
     }
 
+    /**
+     * Returns the timeline of latest application start (and stop).
+     *
+     * Timeline is replaced whenever application starts and is kept after application stops.
+     *
+     * @return the timeline of latest application start (and stop) or null if application was never started.
+     */
+    public final Timeline getTimeline() {
+        return timeline;
+    }
+
     /**
      * Register a service instance.
      *
@@ -376,6 +1363,9 @@ public abstract class AbstractApplication {
     public void registerService(Service service, boolean overrideClassHierarchy) {
         synchronized(this) {
             serviceManager.registerInstance(service, overrideClassHierarchy);
+            serviceIndex = Collections.emptyMap(); // <-- registration may replace indexed instances
+            logServiceRef = null;
+            serviceRegistrationRevision++;
         }
     }
 
@@ -388,29 +1378,43 @@ public abstract class AbstractApplication {
      * Returns a service instance.
      *
      * @param <S> Service type.
-     * @param serviceClass expected service class. Service class must be a concrete class.
+     * @param serviceClass expected service class. If an interface or an abstract class is given, the single registered service of such type is returned.
      * @param autoRegistration defines if service instance should be registered. An attempt to get a service which is not registered will return null.
      * @return service instance.
      */
     public <S extends Service> S getService(Class<S> serviceClass, boolean autoRegistration) {
-        synchronized(this) {
-            if (!isRunning())
-                throw new IllegalStateException("Application is not running");
+        S service = __getService(serviceClass, autoRegistration, null);
+
+        // An asynchronous start may have already finished (or failed) at this point...
+        if (service != null && !service.isRunning())
+            service._awaitReady(getLong(KEY_SERVICE_READY_TIMEOUT, DEFAULT_SERVICE_READY_TIMEOUT));
 
-            S service = serviceManager.getInstance(serviceClass, autoRegistration, false);
+        return service;
+    }
 
-            if (service != null && !service.isRunning()) {
-                if (serviceCircularRefCheckList.contains(serviceClass))
-                    throw new RuntimeException("Circular service reference: " + __getCicularReferencePath(serviceClass));
+    private <S extends Service> S __getService(Class<S> serviceClass, boolean autoRegistration, Class<? extends Service> triggerClass) {
+        if (!isRunning())
+            throw new IllegalStateException("Application is not running");
 
-                serviceCircularRefCheckList.add(serviceClass);
-                service._start(this);
-                initializedServiceList.add(service);
-                serviceCircularRefCheckList.remove(serviceClass);
-            }
+        // Fast path: services which are already running are resolved without locking the application.
+        S service = (S) serviceIndex.get(serviceClass);
 
+        if (service != null && (service.isRunning() || service._isStartingAsync()))
             return service;
+
+        synchronized(this) {
+            if (!isRunning())
+                throw new IllegalStateException("Application is not running");
+
+            service = serviceManager.getInstance(serviceClass, autoRegistration, false);
         }
+
+        if (service != null) {
+            __startService(serviceClass, service, triggerClass);
+            __publishService(serviceClass, service);
+        }
+
+        return service;
     }
 
     public final <S extends Service> S getRegisteredService(Class<S> serviceClass) throws NoSuchElementException {
@@ -435,23 +1439,95 @@ public abstract class AbstractApplication {
      * @return property value.
      */
     public <T> T getProperty(Class<T> targetClass, String key, T defaultValue) {
-        synchronized(this) {
-            if (!settingsLoaded)
-                throw new IllegalStateException("Settings were not loaded yet");
-
-            StringConverter<T> converter = STRING_CONVERTER_MAP.get(targetClass);
-            if (converter == null)
-                throw new UnsupportedOperationException("No converter for " + targetClass.getName());
+        StringConverter<T> converter = STRING_CONVERTER_MAP.get(targetClass);
+        if (converter == null)
+            throw new UnsupportedOperationException("No converter for " + targetClass.getName());
 
-            String strVal = properties.getProperty(key, converter.toString(defaultValue));
-            return converter.fromString(strVal);
-        }
+        String strVal = __getRawProperty(key);
+        return strVal == null ? defaultValue : converter.fromString(strVal);
     }
 
     public final String getProperty(String key, String defaultValue) {
         return getProperty(String.class, key, defaultValue);
     }
 
+    /**
+     * Returns an application property through a typed handle.
+     *
+     * Parsed value is cached by the handle until application properties change.
+     *
+     * @param <T> returned type
+     * @param key property handle.
+     * @return property value.
+     */
+    public final <T> T getProperty(PropertyKey<T> key) {
+        return key.get(this);
+    }
+
+    /** Returns raw property value (or null if there is no such property). */
+    private String __getRawProperty(String key) {
+        if (!settingsLoaded)
+            throw new IllegalStateException("Settings were not loaded yet");
+
+        return propertySnapshot.get(key);
+    }
+
+    /** Returns properties revision (see {@linkplain PropertyKey}). */
+    final int _getPropertiesRevision() {
+        return propertiesRevision;
+    }
+
+    /**
+     * Returns an integer application property.
+     *
+     * @param key property key.
+     * @param defaultValue default value.
+     * @return property value.
+     */
+    public final int getInt(String key, int defaultValue) {
+        String strVal = __getRawProperty(key);
+        return strVal == null ? defaultValue : Integer.parseInt(strVal);
+    }
+
+    /** Returns cached value of given handle as a primitive. */
+    public final int getInt(PropertyKey<Integer> key) {
+        return key.get(this);
+    }
+
+    /**
+     * Returns a long application property.
+     *
+     * @param key property key.
+     * @param defaultValue default value.
+     * @return property value.
+     */
+    public final long getLong(String key, long defaultValue) {
+        String strVal = __getRawProperty(key);
+        return strVal == null ? defaultValue : Long.parseLong(strVal);
+    }
+
+    /** Returns cached value of given handle as a primitive. */
+    public final long getLong(PropertyKey<Long> key) {
+        return key.get(this);
+    }
+
+    /**
+     * Returns a boolean application property.
+     *
+     * @param key property key.
+     * @param defaultValue default value.
+     * @return property value.
+     */
+    public final boolean getBoolean(String key, boolean defaultValue) {
+        String strVal = __getRawProperty(key);
+        return strVal == null ? defaultValue : Boolean.parseBoolean(strVal);
+    }
+
+    /** Returns cached value of given handle as a primitive. */
+    public final boolean getBoolean(PropertyKey<Boolean> key) {
+        return key.get(this);
+    }
+
     public final <T> T getMandatoryProperty(Class<T> targetClass, String key) throws NoSuchElementException {
         T value = getProperty(targetClass, key, null);
 
@@ -486,6 +1562,9 @@ public abstract class AbstractApplication {
 
             if (overrideExisting || !properties.containsKey(key)) {
                 properties.setProperty(key, strValue);
+                propertySnapshot = __getSnapshot(properties);
+                unsavedPropertyMap.put(key, strValue);
+                propertiesRevision++;
             }
         }
     }
@@ -500,6 +1579,46 @@ public abstract class AbstractApplication {
         setProperty(key, value, false);
     }
 
+    /**
+     * Registers a listener notified when given property changes after properties are reloaded.
+     *
+     * Listeners are discarded when application stops.
+     *
+     * @param key property key.
+     * @param listener listener to be registered.
+     */
+    public final void addPropertyListener(String key, PropertyListener listener) {
+        if (key == null || key.trim().isEmpty())
+            throw new IllegalArgumentException("Null/Empty key");
+
+        if (listener == null)
+            throw new IllegalArgumentException("Listener cannot be null");
+
+        synchronized(this) {
+            List<PropertyListener> listeners = propertyListenerMap.get(key);
+
+            if (listeners == null) {
+                listeners = new CopyOnWriteArrayList<>();
+                propertyListenerMap.put(key, listeners);
+            }
+
+            listeners.add(listener);
+        }
+    }
+
+    /**
+     * Removes a property listener.
+     *
+     * @param key property key.
+     * @param listener listener to be removed. If it is not registered, nothing happens.
+     */
+    public final void removePropertyListener(String key, PropertyListener listener) {
+        List<PropertyListener> listeners = propertyListenerMap.get(key);
+
+        if (listeners != null)
+            listeners.remove(listener);
+    }
+
     /**
      * Removes an application property.
      *
@@ -507,7 +1626,11 @@ public abstract class AbstractApplication {
      */
     public final void removeProperty(String key) {
         synchronized(this) {
-            properties.remove(key);
+            if (properties.remove(key) != null) {
+                propertySnapshot = __getSnapshot(properties);
+                unsavedPropertyMap.put(key, null);
+                propertiesRevision++;
+            }
         }
     }
 
@@ -515,28 +1638,156 @@ public abstract class AbstractApplication {
      * Loads properties from application properties file.
      *
      * If properties files does not exists, only default properties are loaded.
+     * Changes made through {@linkplain AbstractApplication#setProperty(String, Object, boolean)}
+     * or {@linkplain AbstractApplication#removeProperty(String)} which were not written
+     * into properties file yet take precedence over file contents.
+     * Properties are replaced atomically and, if application is running, property
+     * listeners and running services are notified about changed properties
+     * (see {@linkplain Service#onPropertiesChanged(Set)}).
      *
      * @throws IOException if an error happened during process.
      */
     public void loadProperties() throws IOException {
-        __loadProperties(false);
+        Properties oldProperties = properties;
+        Set<String> changedKeys = __loadProperties(false);
+        __notifyPropertyChanges(oldProperties, changedKeys);
     }
 
     /**
      * Saves current application properties into properties file.
      *
+     * While application is running, the file is written in background after
+     * {@linkplain AbstractApplication#getPropertiesSaveDelay()}, so consecutive
+     * calls are coalesced into a single write. Use {@linkplain AbstractApplication#flushProperties()}
+     * to ensure pending changes are written. Pending changes are also written when application stops.
+     *
      * @throws IOException If an error happened during the process.
      */
     public void saveProperties() throws IOException {
-        synchronized(this) {
-            File propertiesFile = new File(getDirectory(), PROPERTIES_FILENAME);
+        propertiesSavePending.set(true);
+
+        long delay = getPropertiesSaveDelay();
+
+        if (!isRunning() || delay <= 0) {
+            flushProperties();
+            return;
+        }
+
+        if (propertiesSaveSchedule.compareAndSet(false, true)) {
+            __getPropertiesSaveExecutor().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    propertiesSaveSchedule.set(false);
+
+                    try {
+                        flushProperties();
+                    } catch (IOException | RuntimeException ex) {
+                        if (isRunning())
+                            log(LogType.ERROR, "Error saving properties: %s", ex.getMessage());
+                    }
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Writes pending property changes (see {@linkplain AbstractApplication#saveProperties()}) into properties file.
+     *
+     * Properties are written into a temporary file which atomically replaces
+     * the properties file. Application lock is not held during the process.
+     *
+     * @throws IOException If an error happened during the process.
+     */
+    public final void flushProperties() throws IOException {
+        synchronized(propertiesWriteLock) {
+            if (!propertiesSavePending.getAndSet(false))
+                return;
+
+            Properties snapshot;
+            Map<String, String> unsavedSnapshot;
+
+            synchronized(this) {
+                snapshot = (Properties) properties.clone();
+                unsavedSnapshot = new HashMap<>(unsavedPropertyMap);
+            }
+
+            File directory = getDirectory();
+            File propertiesFile = new File(directory, PROPERTIES_FILENAME);
+            File tmpFile = new File(directory, PROPERTIES_FILENAME + ".tmp");
+
+            try {
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                snapshot.store(baos, getName());
+                byte[] data = baos.toByteArray();
+
+                try (FileOutputStream fos = new FileOutputStream(tmpFile)) {
+                    fos.write(data);
+                    fos.getFD().sync();
+                }
 
-            try (FileOutputStream fos = new FileOutputStream(propertiesFile)) {
-                properties.store(fos, getName());
+                writtenPropertiesDigest = __getDigest(data); // <-- properties watcher ignores this write
+
+                try {
+                    Files.move(tmpFile.toPath(), propertiesFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException ex) {
+                    Files.move(tmpFile.toPath(), propertiesFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException | RuntimeException ex) {
+                propertiesSavePending.set(true); // <-- changes are still pending
+                throw ex;
+            }
+
+            synchronized(this) {
+                // Changes made while file was being written are still unsaved...
+                for (Map.Entry<String, String> entry : unsavedSnapshot.entrySet()) {
+                    String key = entry.getKey();
+
+                    if (unsavedPropertyMap.containsKey(key) && Objects.equals(unsavedPropertyMap.get(key), entry.getValue()))
+                        unsavedPropertyMap.remove(key);
+                }
             }
         }
     }
 
+    /**
+     * Returns the delay used to coalesce consecutive calls to {@linkplain AbstractApplication#saveProperties()}.
+     *
+     * @return the delay (in milliseconds) used to coalesce consecutive calls to
+     * {@linkplain AbstractApplication#saveProperties()}. A non-positive value
+     * causes properties to be written synchronously. Default implementation returns 500.
+     */
+    protected long getPropertiesSaveDelay() {
+        return 500;
+    }
+
+    private synchronized ScheduledExecutorService __getPropertiesSaveExecutor() {
+        if (propertiesSaveExecutor == null)
+            propertiesSaveExecutor = Executors.newSingleThreadScheduledExecutor(__getThreadFactory("properties-writer"));
+
+        return propertiesSaveExecutor;
+    }
+
+    /** Writes pending property changes and releases background writer. */
+    private void __stopPropertiesWriter() {
+        ScheduledExecutorService executor;
+
+        synchronized(this) {
+            executor = propertiesSaveExecutor;
+            propertiesSaveExecutor = null;
+        }
+
+        if (executor != null)
+            executor.shutdownNow();
+
+        propertiesSaveSchedule.set(false);
+
+        try {
+            flushProperties();
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
     /**
      * Returns application default properties.
      *
@@ -548,12 +1799,14 @@ public abstract class AbstractApplication {
 
     /** Starts this application. */
     public void start() {
-        synchronized(this) {
+        synchronized(lifecycleLock) {
             if (isRunning())
                 throw new IllegalStateException("Application is already running");
 
+            AbstractApplication runningInstance = RUNNING_INSTANCE_MAP.get(__getContextKey());
+
             if (runningInstance != null)
-                throw new IllegalStateException(String.format("Another application instance is already running (class: %s, name: %s, version: %s)", runningInstance.getClass().getName(), runningInstance.getName(), runningInstance.getVersion()));
+                throw new IllegalStateException(String.format("Another application instance is already running in this context (class: %s, name: %s, version: %s)", runningInstance.getClass().getName(), runningInstance.getName(), runningInstance.getVersion()));
 
             try {
                 String name = getName();
@@ -576,18 +1829,42 @@ public abstract class AbstractApplication {
                     throw new RuntimeException("Missing application version");
 
                 __reset();
+                __loadServiceRegistries();
+                timeline = new Timeline();
 
+                long t0 = timeline._now();
                 __loadProperties(true);
+                timeline._record(Timeline.Phase.PROPERTIES_LOAD, null, null, t0);
 
+                t0 = timeline._now();
                 beforeStart();
+                timeline._record(Timeline.Phase.BEFORE_START, null, null, t0);
 
+                if (getBoolean(KEY_WATCH_PROPERTIES, DEFAULT_WATCH_PROPERTIES))
+                    __startPropertiesWatcher();
+
+                __registerRunningInstance();
                 running = true; // <-- from this point, services can be started.
-                __setRunningInstance(this);
                 log(LogType.INFO, "Starting application (%s - v. %s)", name, version);
+                Set<Class<? extends Service>> eagerServices = __getEagerServices();
+
+                if (!eagerServices.isEmpty()) {
+                    t0 = System.nanoTime();
+                    __startServices(eagerServices);
+                    log(LogType.INFO, "Eager services are ready (%d ms)", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0));
+                }
+
+                t0 = timeline._now();
                 onStart();
+                timeline._record(Timeline.Phase.APPLICATION_START, null, null, t0);
+
+                if (getBoolean(KEY_DUMP_TIMELINE, DEFAULT_DUMP_TIMELINE))
+                    __dumpTimeline();
+
                 log(LogType.INFO, "Application is ready: (%s - v. %s)", name, version);
             } catch (Throwable ex) {
-                __setRunningInstance(null);
+                __stopPropertiesWatcher();
+                __unregisterRunningInstance();
                 running = true;
 
                 onStartError(ex);
@@ -609,6 +1886,46 @@ public abstract class AbstractApplication {
      */
     protected void beforeStart() {}
 
+    /**
+     * Returns the services which shall be started along with the application.
+     *
+     * Returned services (and their dependencies, see {@linkplain Service#getDependencies()})
+     * are started and warmed-up concurrently before {@linkplain AbstractApplication#onStart()}
+     * is called. Additional services can be declared through {@linkplain AbstractApplication#KEY_EAGER_SERVICES}
+     * application property.
+     *
+     * @return the services which shall be started along with the application.
+     * Default implementation returns null (services are started on demand).
+     */
+    protected Collection<Class<? extends Service>> getStartupServices() {
+        return null;
+    }
+
+    /**
+     * Returns the registries of services known at compile time.
+     *
+     * Services declared in a registry are instantiated through generated
+     * factories and their dependencies are read from the registry instead of
+     * being resolved through reflection.
+     *
+     * @return the registries of services known at compile time. Default
+     * implementation returns the registries available through {@linkplain ServiceLoader}
+     * (see web-app-toolkit-processor module).
+     */
+    protected Iterable<ServiceRegistry> getServiceRegistries() {
+        return ServiceLoader.load(ServiceRegistry.class, getClass().getClassLoader());
+    }
+
+    /**
+     * Returns the maximum number of threads used to start services along with the application.
+     *
+     * @return the maximum number of threads used to start services along with
+     * the application. Default implementation returns the number of available processors.
+     */
+    protected int getStartupThreadCount() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
     /**
      * Called during application start.
      *
@@ -619,22 +1936,47 @@ public abstract class AbstractApplication {
 
     /** Stops this application. */
     public void stop() {
-        synchronized(this) {
+        synchronized(lifecycleLock) {
             if (!isRunning())
                 throw new RuntimeException("Application is not running");
 
             try {
                 log(LogType.INFO, "Stopping aplication (%s - v. %s)", getName(), getVersion());
+                boolean dumpTimeline = getBoolean(KEY_DUMP_TIMELINE, DEFAULT_DUMP_TIMELINE);
+
+                long t0 = timeline._now();
                 beforeStop();
+                timeline._record(Timeline.Phase.BEFORE_STOP, null, null, t0);
+
+                t0 = timeline._now();
                 onStop();
-                __stopServices();
-                __setRunningInstance(null);
-                running = false;
-                __reset();
+                timeline._record(Timeline.Phase.APPLICATION_STOP, null, null, t0);
+
+                __stopPropertiesWatcher();
+
+                try {
+                    __stopServices();
+                } finally {
+                    // Pending property writes and application state are handled even if a service failed to stop...
+                    try {
+                        __stopPropertiesWriter();
+                    } finally {
+                        __unregisterRunningInstance();
+                        running = false;
+                        __reset();
+                    }
+                }
+
+                t0 = timeline._now();
                 afterStop();
+                timeline._record(Timeline.Phase.AFTER_STOP, null, null, t0);
+
+                if (dumpTimeline)
+                    __dumpTimeline();
+
                 appDirectory   = null;
             } catch (Throwable ex) {
-                __setRunningInstance(null);
+                __unregisterRunningInstance();
                 running = false;
                 onStopError(ex);
                 throw ex;
@@ -684,7 +2026,7 @@ public abstract class AbstractApplication {
 
     /** Restarts this application. */
     public void restart() {
-        synchronized(this) {
+        synchronized(lifecycleLock) {
             log(LogType.INFO, "Restarting application: %s", getName());
 
             stop();
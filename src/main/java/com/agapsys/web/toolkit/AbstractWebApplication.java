@@ -15,6 +15,7 @@
  */
 package com.agapsys.web.toolkit;
 
+import javax.servlet.ServletContext;
 import javax.servlet.ServletContextEvent;
 import javax.servlet.ServletContextListener;
 
@@ -23,6 +24,31 @@ import javax.servlet.ServletContextListener;
  */
 public abstract class AbstractWebApplication extends AbstractApplication implements ServletContextListener {
 
+    // <editor-fold desc="STATIC SCOPE">
+    // =========================================================================
+    /** Name of the servlet context attribute holding the application running in the context. */
+    public static final String CONTEXT_ATTRIBUTE = AbstractWebApplication.class.getName();
+
+    /**
+     * Returns the application running in given servlet context.
+     *
+     * @param servletContext servlet context.
+     * @return the application running in given servlet context. If there is no
+     * application associated with given context, returns the application
+     * registered by the context class loader of current thread (see {@linkplain AbstractApplication#getRunningInstance()}),
+     * or null if there is none.
+     */
+    public static AbstractApplication getRunningInstance(ServletContext servletContext) {
+        Object app = servletContext == null ? null : servletContext.getAttribute(CONTEXT_ATTRIBUTE);
+
+        if (app instanceof AbstractApplication)
+            return (AbstractApplication) app;
+
+        return getRunningInstance();
+    }
+    // =========================================================================
+    // </editor-fold>
+
     private String contextPath;
 
     @Override
@@ -67,12 +93,22 @@ public abstract class AbstractWebApplication extends AbstractApplication impleme
         this.contextPath = sce == null ? null : sce.getServletContext().getContextPath();
 
         start();
+
+        if (sce != null)
+            sce.getServletContext().setAttribute(CONTEXT_ATTRIBUTE, this);
+
         onContextInitialized(sce);
     }
 
     @Override
     public final void contextDestroyed(ServletContextEvent sce) {
-        stop();
+        try {
+            stop();
+        } finally {
+            if (sce != null)
+                sce.getServletContext().removeAttribute(CONTEXT_ATTRIBUTE);
+        }
+
         onContextDestroyed(sce);
     }
 
@@ -15,8 +15,19 @@
  */
 package com.agapsys.web.toolkit;
 
+/** Log message types, declared in increasing order of severity. */
 public enum LogType {
     INFO,
     WARNING,
     ERROR;
+
+    /**
+     * Returns a boolean indicating if this type is at least as severe as given one.
+     *
+     * @param threshold least severe accepted type.
+     * @return a boolean indicating if this type is at least as severe as given one.
+     */
+    public boolean isAtLeast(LogType threshold) {
+        return ordinal() >= threshold.ordinal();
+    }
 }
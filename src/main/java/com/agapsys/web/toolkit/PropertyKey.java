@@ -0,0 +1,117 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.web.toolkit;
+
+/**
+ * Typed handle of an application property.
+ *
+ * Parsed value is cached by the handle and it is only parsed again when
+ * application properties change (see {@linkplain AbstractApplication#setProperty(String, Object, boolean)}
+ * and {@linkplain AbstractApplication#loadProperties()}).
+ *
+ * @param <T> property type.
+ */
+public final class PropertyKey<T> {
+
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    private static final class CachedValue<T> {
+        private final AbstractApplication app;
+        private final int revision;
+        private final T value;
+
+        private CachedValue(AbstractApplication app, int revision, T value) {
+            this.app = app;
+            this.revision = revision;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Convenience method to create a string property handle.
+     *
+     * @param key property key.
+     * @param defaultValue default value.
+     * @return property handle.
+     */
+    public static PropertyKey<String> of(String key, String defaultValue) {
+        return new PropertyKey<>(String.class, key, defaultValue);
+    }
+    // =========================================================================
+    // </editor-fold>
+
+    private final Class<T> type;
+    private final String   key;
+    private final T        defaultValue;
+
+    private volatile CachedValue<T> cachedValue = null;
+
+    /**
+     * Constructor.
+     *
+     * @param type property type.
+     * @param key property key.
+     * @param defaultValue property default value.
+     */
+    public PropertyKey(Class<T> type, String key, T defaultValue) {
+        if (type == null)
+            throw new IllegalArgumentException("Type cannot be null");
+
+        if (key == null || key.trim().isEmpty())
+            throw new IllegalArgumentException("Null/Empty key");
+
+        this.type = type;
+        this.key = key;
+        this.defaultValue = defaultValue;
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public T getDefaultValue() {
+        return defaultValue;
+    }
+
+    /**
+     * Returns property value in given application.
+     *
+     * @param app application.
+     * @return property value.
+     */
+    public T get(AbstractApplication app) {
+        // Revision must be read before the value: a concurrent change will invalidate cached value on next call.
+        int revision = app._getPropertiesRevision();
+        CachedValue<T> mCachedValue = cachedValue;
+
+        if (mCachedValue != null && mCachedValue.app == app && mCachedValue.revision == revision)
+            return mCachedValue.value;
+
+        T value = app.getProperty(type, key, defaultValue);
+        cachedValue = new CachedValue<>(app, revision, value);
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return key;
+    }
+
+}
@@ -16,13 +16,83 @@
 
 package com.agapsys.web.toolkit;
 
+import com.agapsys.web.toolkit.utils.StripedCounter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /** Basic service implementation. */
 public abstract class Service {
 
-    private AbstractApplication app;
-    private boolean running = false;
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    /** Service lifecycle state. */
+    public static enum State {
+        /** Service was never started. */
+        NEW,
+
+        /** Service is starting. */
+        STARTING,
+
+        /** Service is running. */
+        RUNNING,
+
+        /** Service is stopping. */
+        STOPPING,
+
+        /** Service was stopped (it can be started again). */
+        STOPPED
+    }
+    // =========================================================================
+    // </editor-fold>
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.NEW);
+    private volatile AbstractApplication app;
+
+    /** Signals the end of latest asynchronous start (see {@linkplain Service#isAsyncStart()}). */
+    private volatile CountDownLatch asyncStartLatch = null;
+    private volatile RuntimeException asyncStartError = null;
+
+    /** Guards deferred warm-up of a service being started asynchronously. */
+    private final Object warmUpLock = new Object();
+    private boolean warmUpPending = false;
+
+    /** Calls in progress (see {@linkplain Service#beginCall()}). */
+    private final StripedCounter inFlightCalls = new StripedCounter();
+
+    /** Notified when calls end while service is not running and when service becomes running. */
+    private final Object callMonitor = new Object();
+
+    private final Object restartLock = new Object();
+
+    /** Application associated with this service while it is being restarted (null if service is not restarting). */
+    private volatile AbstractApplication restartingApp = null;
+
+    /**
+     * Changes service state.
+     *
+     * @throws IllegalStateException if current state is not the expected one.
+     */
+    private void __setState(State expected, State next) {
+        if (!state.compareAndSet(expected, next))
+            throw new IllegalStateException(String.format("Invalid service state: %s (expected: %s)", state.get(), expected));
+    }
+
+    /**
+     * Returns service lifecycle state.
+     *
+     * Lifecycle transitions are serialized by service lock, but state can be read without locking.
+     *
+     * @return service lifecycle state.
+     */
+    public final State getState() {
+        return state.get();
+    }
 
     /**
      * Returns a boolean indicating if this instance is running.
@@ -30,9 +100,7 @@ public abstract class Service {
      * @return a boolean indicating if this instance is running.
      */
     public final boolean isRunning() {
-        synchronized(this) {
-            return running;
-        }
+        return state.get() == State.RUNNING;
     }
 
     /**
@@ -42,43 +110,248 @@ public abstract class Service {
      */
     final void _start(AbstractApplication app) {
         synchronized(this) {
-            try {
-                if (app == null)
-                    throw new IllegalArgumentException("Missing application");
-
-                this.app = app;
-                onStart();
-                this.running = true;
-                app.log(LogType.INFO, "Started service: %s", this.getClass().getName());
-            } catch (RuntimeException ex) {
-                this.app = null;
-                this.running = false;
-                throw ex;
+            if (app == null)
+                throw new IllegalArgumentException("Missing application");
+
+            final State previousState = state.get();
+
+            if (previousState != State.NEW && previousState != State.STOPPED)
+                throw new IllegalStateException("Service cannot be started (state: " + previousState + ")");
+
+            __setState(previousState, State.STARTING);
+            this.app = app;
+
+            if (isAsyncStart()) {
+                final CountDownLatch latch = new CountDownLatch(1);
+                asyncStartLatch = latch;
+                asyncStartError = null;
+
+                synchronized(warmUpLock) {
+                    warmUpPending = false;
+                }
+
+                app._newThread("async-start", new Runnable() {
+                    @Override
+                    public void run() {
+                        __startAsync(previousState, latch);
+                    }
+                }).start();
+
+                return;
             }
+
+            asyncStartLatch = null;
+            __onStart(previousState);
         }
     }
 
+    /** Calls {@linkplain Service#onStart()} (service lock must be held by current thread). */
+    private void __onStart(State previousState) {
+        try {
+            onStart();
+            __setState(State.STARTING, State.RUNNING);
+            __notifyCallMonitor();
+            app.log(LogType.INFO, "Started service: %s", this.getClass().getName());
+        } catch (RuntimeException ex) {
+            this.app = null;
+            state.set(previousState);
+            throw ex;
+        }
+    }
+
+    /** Completes an asynchronous start. */
+    private void __startAsync(State previousState, CountDownLatch latch) {
+        boolean warmUp = false;
+
+        try {
+            synchronized(this) {
+                if (state.get() != State.STARTING || asyncStartLatch != latch)
+                    throw new IllegalStateException("Service was stopped before it was ready");
+
+                AbstractApplication mApp = app;
+
+                try {
+                    __onStart(previousState);
+                } catch (RuntimeException ex) {
+                    mApp.log(LogType.ERROR, "Error starting service: %s (%s)", getClass().getName(), ex.getMessage());
+                    throw ex;
+                }
+            }
+
+            synchronized(warmUpLock) {
+                warmUp = warmUpPending;
+                warmUpPending = false;
+            }
+        } catch (RuntimeException ex) {
+            asyncStartError = ex;
+        } finally {
+            latch.countDown();
+        }
+
+        if (warmUp && isRunning())
+            onWarmUp();
+    }
+
     /**
      * Called upon service start. Default implementation does nothing.
      */
     protected void onStart() {}
 
+    /**
+     * Returns a boolean indicating if {@linkplain Service#onStart()} shall run in background.
+     *
+     * While an asynchronous start is in progress, the service is in
+     * {@linkplain State#STARTING} state and callers obtaining the service
+     * through the application wait until it is ready (see {@linkplain Service#getReadyTimeout()}),
+     * so unrelated work proceeds during a slow initialization.
+     *
+     * @return a boolean indicating if {@linkplain Service#onStart()} shall run in background. Default implementation returns false.
+     */
+    protected boolean isAsyncStart() {
+        return false;
+    }
+
+    /**
+     * Returns the maximum time a caller waits for this service to be ready when it is started asynchronously.
+     *
+     * @return the maximum time (in milliseconds) a caller waits for this service to be ready.
+     * A non-positive value means application default (see {@linkplain AbstractApplication#KEY_SERVICE_READY_TIMEOUT}).
+     * Default implementation returns 0.
+     */
+    protected long getReadyTimeout() {
+        return 0;
+    }
+
+    /**
+     * Returns a boolean indicating if an asynchronous start is in progress.
+     *
+     * @return a boolean indicating if an asynchronous start is in progress.
+     */
+    final boolean _isStartingAsync() {
+        CountDownLatch latch = asyncStartLatch;
+        return latch != null && latch.getCount() > 0;
+    }
+
+    /**
+     * Waits for an asynchronous start to finish.
+     *
+     * @param defaultTimeout time (in milliseconds) to wait if service does not define its own (see {@linkplain Service#getReadyTimeout()}).
+     * @throws IllegalStateException if service is not ready within timeout.
+     * @throws RuntimeException if service failed to start.
+     */
+    final void _awaitReady(long defaultTimeout) {
+        CountDownLatch latch = asyncStartLatch;
+
+        if (latch == null)
+            return;
+
+        long timeout = getReadyTimeout();
+
+        if (timeout <= 0)
+            timeout = defaultTimeout;
+
+        try {
+            if (!latch.await(timeout, TimeUnit.MILLISECONDS))
+                throw new IllegalStateException(String.format("Service is not ready: %s (timeout: %d ms)", getClass().getName(), timeout));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(ex);
+        }
+
+        RuntimeException error = asyncStartError;
+
+        if (error != null && latch == asyncStartLatch)
+            throw new RuntimeException("Service failed to start: " + getClass().getName(), error);
+    }
+
+    /**
+     * Warms-up this service instance.
+     */
+    final void _warmUp() {
+        if (!isRunning())
+            throw new IllegalStateException("Service is not running");
+
+        onWarmUp();
+    }
+
+    /**
+     * Warms-up this service instance as soon as it is ready.
+     *
+     * @return a boolean indicating if service was warmed-up by current thread
+     * (false means warm-up will be performed once an asynchronous start finishes).
+     */
+    final boolean _warmUpWhenReady() {
+        if (_isStartingAsync()) {
+            synchronized(warmUpLock) {
+                if (!isRunning() && _isStartingAsync()) {
+                    warmUpPending = true;
+                    return false;
+                }
+            }
+        }
+
+        _warmUp();
+        return true;
+    }
+
+    /**
+     * Called when service is eagerly started along with the application.
+     *
+     * This is the place to initialize resources which would be lazily
+     * initialized upon first usage. Default implementation does nothing.
+     */
+    protected void onWarmUp() {}
+
+    /**
+     * Notifies this service about changed application properties.
+     *
+     * @param changedKeys keys of changed properties.
+     */
+    final void _propertiesChanged(Set<String> changedKeys) {
+        if (!isRunning())
+            return;
+
+        onPropertiesChanged(changedKeys);
+    }
+
+    /**
+     * Called when application properties were reloaded while this service is running.
+     *
+     * This is the place to reconfigure the service without a restart.
+     * Default implementation does nothing.
+     *
+     * @param changedKeys keys of changed properties.
+     */
+    protected void onPropertiesChanged(Set<String> changedKeys) {}
+
     /**
      * Stops this service instance.
      */
     final void _stop() {
         synchronized(this) {
-            if (!isRunning())
+            if (state.compareAndSet(State.STARTING, State.STOPPED)) {
+                // Asynchronous start is still pending (onStart was not called)...
+                this.app = null;
+                return;
+            }
+
+            if (!state.compareAndSet(State.RUNNING, State.STOPPING))
                 return;
+        }
+
+        __drainCalls(); // <-- service lock is not held, so in-flight calls can finish
 
+        synchronized(this) {
             try {
                 onStop();
                 getApplication().log(LogType.INFO, "Stopped service: %s", this.getClass().getName());
             } finally {
-                this.running = false;
                 this.app = null;
+                __setState(State.STOPPING, State.STOPPED);
             }
         }
+
+        __notifyCallMonitor(); // <-- callers may be waiting for service transition
     }
 
     /**
@@ -86,34 +359,268 @@ public abstract class Service {
      */
     protected void onStop() {}
 
+    private void __notifyCallMonitor() {
+        synchronized(callMonitor) {
+            callMonitor.notifyAll();
+        }
+    }
+
+    /** Waits for calls in progress to finish (see {@linkplain Service#getDrainTimeout()}). */
+    private void __drainCalls() {
+        AbstractApplication mApp = app;
+        long timeout = getDrainTimeout();
+
+        if (timeout <= 0)
+            timeout = mApp.getLong(AbstractApplication.KEY_SERVICE_DRAIN_TIMEOUT, AbstractApplication.DEFAULT_SERVICE_DRAIN_TIMEOUT);
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+
+        synchronized(callMonitor) {
+            long inFlight;
+
+            while ((inFlight = inFlightCalls.sum()) > 0) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+
+                if (remaining <= 0) {
+                    mApp.log(LogType.WARNING, "Stopping service with calls in progress: %s (%d calls)", getClass().getName(), inFlight);
+                    return;
+                }
+
+                try {
+                    callMonitor.wait(Math.min(remaining, 10)); // <-- counter is also polled since it is not updated under monitor
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /** Returns the maximum time a caller waits for this service while it is restarting. */
+    private long __getCallWaitTimeout(AbstractApplication mApp) {
+        long timeout = getCallWaitTimeout();
+
+        if (timeout <= 0)
+            timeout = mApp.getLong(AbstractApplication.KEY_SERVICE_CALL_WAIT_TIMEOUT, AbstractApplication.DEFAULT_SERVICE_CALL_WAIT_TIMEOUT);
+
+        return timeout;
+    }
+
+    /**
+     * Returns a boolean indicating if this service is being restarted or stopped.
+     *
+     * @return a boolean indicating if this service is being restarted or stopped.
+     */
+    final boolean _isInTransition() {
+        return restartingApp != null || state.get() == State.STOPPING;
+    }
+
+    /**
+     * Waits while this service is being restarted or stopped (see {@linkplain Service#getCallWaitTimeout()}).
+     *
+     * @param mApp application used to resolve default timeout.
+     * @throws IllegalStateException if service is still in transition after timeout.
+     */
+    final void _awaitTransition(AbstractApplication mApp) {
+        if (!_isInTransition())
+            return;
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(__getCallWaitTimeout(mApp));
+
+        synchronized(callMonitor) {
+            while (_isInTransition()) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+
+                if (remaining <= 0)
+                    throw new IllegalStateException("Service is not running (timeout waiting for restart)");
+
+                try {
+                    callMonitor.wait(Math.min(remaining, 10));
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for service", ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks the beginning of a call which must not overlap service stop.
+     *
+     * Every successful call to this method must be followed by a call to
+     * {@linkplain Service#endCall()} (usually in a finally block). Service
+     * stop waits for such calls to finish (see {@linkplain Service#getDrainTimeout()}).
+     * While service is restarting (or starting asynchronously), the caller
+     * waits until service is running (see {@linkplain Service#getCallWaitTimeout()}).
+     *
+     * @throws IllegalStateException if service is not running.
+     */
+    protected final void beginCall() {
+        long deadline = 0;
+
+        while (true) {
+            inFlightCalls.increment();
+
+            if (state.get() == State.RUNNING)
+                return;
+
+            endCall();
+
+            AbstractApplication mApp = restartingApp;
+
+            if (mApp == null && _isStartingAsync())
+                mApp = app;
+
+            if (mApp == null)
+                throw new IllegalStateException("Service is not running");
+
+            if (deadline == 0)
+                deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(__getCallWaitTimeout(mApp));
+
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+
+            if (remaining <= 0)
+                throw new IllegalStateException("Service is not running (timeout waiting for restart)");
+
+            synchronized(callMonitor) {
+                if (state.get() != State.RUNNING) {
+                    try {
+                        callMonitor.wait(Math.min(remaining, 10));
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Interrupted while waiting for service", ex);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks the end of a call started through {@linkplain Service#beginCall()}.
+     */
+    protected final void endCall() {
+        inFlightCalls.decrement();
+
+        if (state.get() != State.RUNNING)
+            __notifyCallMonitor(); // <-- service may be draining calls
+    }
+
+    /**
+     * Returns the number of calls in progress (see {@linkplain Service#beginCall()}).
+     *
+     * @return the number of calls in progress.
+     */
+    public final long getInFlightCallCount() {
+        return inFlightCalls.sum();
+    }
+
+    /**
+     * Returns the maximum time service stop waits for calls in progress to finish.
+     *
+     * @return the maximum time (in milliseconds) service stop waits for calls in progress to finish.
+     * A non-positive value means application default (see {@linkplain AbstractApplication#KEY_SERVICE_DRAIN_TIMEOUT}).
+     * Default implementation returns 0.
+     */
+    protected long getDrainTimeout() {
+        return 0;
+    }
+
+    /**
+     * Returns the maximum time a call waits for this service while it is restarting.
+     *
+     * @return the maximum time (in milliseconds) a call waits for this service while it is restarting.
+     * A non-positive value means application default (see {@linkplain AbstractApplication#KEY_SERVICE_CALL_WAIT_TIMEOUT}).
+     * Default implementation returns 0.
+     */
+    protected long getCallWaitTimeout() {
+        return 0;
+    }
+
+    /**
+     * Returns the time given to this service to stop along with the application.
+     *
+     * If service does not stop within this time, it is interrupted and abandoned.
+     *
+     * @return the time (in milliseconds) given to this service to stop along with the application.
+     * A non-positive value means application default (see {@linkplain AbstractApplication#KEY_SERVICE_STOP_TIMEOUT}).
+     * Default implementation returns 0.
+     */
+    protected long getStopTimeout() {
+        return 0;
+    }
+
+    /**
+     * Returns the services which must be running before this service starts.
+     *
+     * @return the services which must be running before this service starts.
+     * Default implementation returns the services declared through {@linkplain DependsOn} annotation.
+     */
+    public Set<Class<? extends Service>> getDependencies() {
+        DependsOn dependsOn = getClass().getAnnotation(DependsOn.class);
+
+        if (dependsOn == null)
+            return Collections.emptySet();
+
+        return Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(dependsOn.value())));
+    }
+
     /**
      * Return the application managing this instance.
      *
      * @return the application managing this instance.
      */
     public final AbstractApplication getApplication() {
-        synchronized(this) {
-            return app;
-        }
+        return app;
+    }
+
+    /**
+     * Creates a daemon thread on behalf of this service.
+     *
+     * @param purpose thread purpose (used in thread name).
+     * @param runnable thread task.
+     * @return created thread (not started).
+     * @throws IllegalStateException if service is not associated with an application.
+     */
+    protected final Thread newThread(String purpose, Runnable runnable) {
+        AbstractApplication mApp = app;
+
+        if (mApp == null)
+            throw new IllegalStateException("Service is not running");
+
+        return mApp._newThread(purpose, runnable);
     }
 
     /**
      * Restarts this service.
+     *
+     * Calls in progress are drained before service stops and new calls wait
+     * while service is restarting (see {@linkplain Service#beginCall()}).
+     * Callers obtaining this service through the application also wait until
+     * restart finishes.
      */
     public final void restart() {
-        synchronized(this) {
+        synchronized(restartLock) {
             AbstractApplication mApp = getApplication();
-            _stop();
-            _start(mApp);
+            restartingApp = mApp;
+
+            try {
+                _stop();
+                _start(mApp);
+            } finally {
+                restartingApp = null;
+                __notifyCallMonitor();
+            }
         }
     }
 
     /** See {@linkplain AbstractApplication#getService(java.lang.Class, boolean)}. */
     public <S extends Service> S getService(Class<S> serviceClass, boolean autoRegistration) {
-        if (app == null)
+        AbstractApplication mApp = app;
+
+        if (mApp == null)
             throw new IllegalStateException("Service is not associated with an application");
 
-        return app.getService(serviceClass, autoRegistration);
+        return mApp.getService(serviceClass, autoRegistration);
     }
 
     public final <S extends Service> S getRegisteredService(Class<S> serviceClass) throws NoSuchElementException {
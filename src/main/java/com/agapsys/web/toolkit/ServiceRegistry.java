@@ -0,0 +1,135 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.web.toolkit;
+
+import com.agapsys.web.toolkit.utils.SingletonManager.InstanceFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Table of services known at compile time.
+ *
+ * Registries are usually generated by the annotation processor provided by
+ * web-app-toolkit-processor module and are discovered by applications through
+ * {@linkplain java.util.ServiceLoader} (see {@linkplain AbstractApplication#getServiceRegistries()}),
+ * so services are instantiated and wired without reflection.
+ */
+public abstract class ServiceRegistry {
+
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    private static final class Entry {
+        private final List<Class<? extends Service>> hierarchy;
+        private final Set<Class<? extends Service>>  dependencies;
+        private final InstanceFactory<?>             factory;
+
+        private Entry(List<Class<? extends Service>> hierarchy, Set<Class<? extends Service>> dependencies, InstanceFactory<?> factory) {
+            this.hierarchy = hierarchy;
+            this.dependencies = dependencies;
+            this.factory = factory;
+        }
+    }
+
+    private static List<Class<? extends Service>> __toServiceClasses(Class<?>[] classes) {
+        List<Class<? extends Service>> list = new ArrayList<>();
+
+        for (Class<?> clazz : classes) {
+            if (clazz == null || !Service.class.isAssignableFrom(clazz))
+                throw new IllegalArgumentException("Invalid service class: " + clazz);
+
+            list.add((Class<? extends Service>) clazz);
+        }
+
+        return list;
+    }
+    // =========================================================================
+    // </editor-fold>
+
+    private final Map<Class<? extends Service>, Entry> entryMap = new LinkedHashMap<>();
+    private final Set<Class<? extends Service>> readOnlyServiceClassSet = Collections.unmodifiableSet(entryMap.keySet());
+
+    /**
+     * Registers a service class. This method is intended to be called by subclass constructor.
+     *
+     * @param <S> service type.
+     * @param serviceClass service class.
+     * @param hierarchy service class followed by its concrete superclasses which are subclasses of {@linkplain Service}.
+     * @param dependencies declared dependencies (see {@linkplain Service#getDependencies()}) or null if they must be resolved at runtime.
+     * @param factory factory used to create service instances or null if service cannot be instantiated by the application.
+     */
+    protected final <S extends Service> void register(Class<S> serviceClass, Class<?>[] hierarchy, Class<?>[] dependencies, InstanceFactory<S> factory) {
+        if (serviceClass == null)
+            throw new IllegalArgumentException("Service class cannot be null");
+
+        if (hierarchy == null || hierarchy.length == 0 || hierarchy[0] != serviceClass)
+            throw new IllegalArgumentException("Invalid hierarchy for class: " + serviceClass.getName());
+
+        List<Class<? extends Service>> hierarchyList = Collections.unmodifiableList(__toServiceClasses(hierarchy));
+        Set<Class<? extends Service>> dependencySet = dependencies == null ? null : Collections.unmodifiableSet(new LinkedHashSet<>(__toServiceClasses(dependencies)));
+
+        entryMap.put(serviceClass, new Entry(hierarchyList, dependencySet, factory));
+    }
+
+    /**
+     * Returns the service classes known by this registry.
+     *
+     * @return the service classes known by this registry.
+     */
+    public final Set<Class<? extends Service>> getServiceClasses() {
+        return readOnlyServiceClassSet;
+    }
+
+    /**
+     * Returns the concrete hierarchy of given service class.
+     *
+     * @param serviceClass service class.
+     * @return given class followed by its concrete superclasses which are subclasses of {@linkplain Service}, or null if given class is unknown.
+     */
+    public final List<Class<? extends Service>> getHierarchy(Class<? extends Service> serviceClass) {
+        Entry entry = entryMap.get(serviceClass);
+        return entry == null ? null : entry.hierarchy;
+    }
+
+    /**
+     * Returns the declared dependencies of given service class.
+     *
+     * @param serviceClass service class.
+     * @return declared dependencies or null if given class is unknown or its
+     * dependencies must be resolved at runtime (e.g. {@linkplain Service#getDependencies()} is overridden).
+     */
+    public final Set<Class<? extends Service>> getDependencies(Class<? extends Service> serviceClass) {
+        Entry entry = entryMap.get(serviceClass);
+        return entry == null ? null : entry.dependencies;
+    }
+
+    /**
+     * Returns the factory of given service class.
+     *
+     * @param <S> service type.
+     * @param serviceClass service class.
+     * @return factory used to create instances of given class or null if there is no such factory.
+     */
+    public final <S extends Service> InstanceFactory<S> getFactory(Class<S> serviceClass) {
+        Entry entry = entryMap.get(serviceClass);
+        return entry == null ? null : (InstanceFactory<S>) entry.factory;
+    }
+
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.web.toolkit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Records the duration of application start/stop phases.
+ */
+public final class Timeline {
+
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    public static enum Phase {
+        PROPERTIES_LOAD,
+        BEFORE_START,
+        SERVICE_START,
+        SERVICE_WARM_UP,
+        APPLICATION_START,
+        BEFORE_STOP,
+        APPLICATION_STOP,
+        SERVICE_STOP,
+        /** Service did not stop within its deadline and was abandoned. */
+        SERVICE_STOP_TIMEOUT,
+        AFTER_STOP;
+    }
+
+    /** Timeline entry. */
+    public static final class Entry {
+        private final Phase                    phase;
+        private final Class<? extends Service> serviceClass;
+        private final Class<? extends Service> parentClass;
+        private final String                   threadName;
+        private final long                     startNanos;
+        private final long                     durationNanos;
+
+        private Entry(Phase phase, Class<? extends Service> serviceClass, Class<? extends Service> parentClass, String threadName, long startNanos, long durationNanos) {
+            this.phase = phase;
+            this.serviceClass = serviceClass;
+            this.parentClass = parentClass;
+            this.threadName = threadName;
+            this.startNanos = startNanos;
+            this.durationNanos = durationNanos;
+        }
+
+        public Phase getPhase() {
+            return phase;
+        }
+
+        /**
+         * Returns the service associated with this entry.
+         *
+         * @return the service associated with this entry or null if this entry is not related to a service.
+         */
+        public Class<? extends Service> getServiceClass() {
+            return serviceClass;
+        }
+
+        /**
+         * Returns the service which triggered the phase represented by this entry.
+         *
+         * @return the service which triggered the phase represented by this entry
+         * (a service which required another one during its start or, for services
+         * started along with the application, the last declared dependency to be started)
+         * or null if there is no such service.
+         */
+        public Class<? extends Service> getParentClass() {
+            return parentClass;
+        }
+
+        public String getThreadName() {
+            return threadName;
+        }
+
+        /**
+         * Returns the start of this entry.
+         *
+         * @return the start of this entry (in nanoseconds, relative to timeline creation).
+         */
+        public long getStartNanos() {
+            return startNanos;
+        }
+
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+
+        public long getEndNanos() {
+            return startNanos + durationNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s%s (%d us)", phase.name(), serviceClass == null ? "" : " " + serviceClass.getName(), durationNanos / 1000);
+        }
+    }
+
+    private static final Comparator<Entry> START_COMPARATOR = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry o1, Entry o2) {
+            return Long.compare(o1.startNanos, o2.startNanos);
+        }
+    };
+
+    private static String __toJsonString(String str) {
+        if (str == null)
+            return "null";
+
+        StringBuilder sb = new StringBuilder("\"");
+
+        for (char c : str.toCharArray()) {
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+
+        return sb.append("\"").toString();
+    }
+    // =========================================================================
+    // </editor-fold>
+
+    private final long         origin  = System.nanoTime();
+    private final Queue<Entry> entries = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Returns a timestamp to be used as start of an entry.
+     *
+     * @return a timestamp to be used as start of an entry.
+     */
+    long _now() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records an entry.
+     *
+     * @param phase recorded phase.
+     * @param serviceClass associated service (may be null).
+     * @param parentClass triggering service (may be null).
+     * @param start start timestamp (see {@linkplain Timeline#_now()}).
+     */
+    void _record(Phase phase, Class<? extends Service> serviceClass, Class<? extends Service> parentClass, long start) {
+        long end = System.nanoTime();
+        entries.add(new Entry(phase, serviceClass, parentClass, Thread.currentThread().getName(), start - origin, end - start));
+    }
+
+    /**
+     * Returns all recorded entries ordered by start.
+     *
+     * @return all recorded entries ordered by start.
+     */
+    public List<Entry> getEntries() {
+        List<Entry> entryList = new ArrayList<>(entries);
+        Collections.sort(entryList, START_COMPARATOR);
+        return Collections.unmodifiableList(entryList);
+    }
+
+    /**
+     * Returns the entries of given phase ordered by start.
+     *
+     * @param phase desired phase.
+     * @return the entries of given phase ordered by start.
+     */
+    public List<Entry> getEntries(Phase phase) {
+        List<Entry> entryList = new LinkedList<>();
+
+        for (Entry entry : getEntries()) {
+            if (entry.phase == phase)
+                entryList.add(entry);
+        }
+
+        return Collections.unmodifiableList(entryList);
+    }
+
+    /**
+     * Returns the entry of a service in given phase.
+     *
+     * @param phase desired phase.
+     * @param serviceClass service class.
+     * @return the entry of a service in given phase or null if there is no such entry.
+     */
+    public Entry getEntry(Phase phase, Class<? extends Service> serviceClass) {
+        for (Entry entry : entries) {
+            if (entry.phase == phase && entry.serviceClass == serviceClass)
+                return entry;
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the chain of service starts leading to the service start which ended last.
+     *
+     * The chain follows the services which triggered each start (see
+     * {@linkplain Entry#getParentClass()}), beginning with the first one.
+     *
+     * @return the chain of service starts leading to the service start which ended last.
+     */
+    public List<Entry> getCriticalPath() {
+        LinkedList<Entry> path = new LinkedList<>();
+
+        Entry last = null;
+        for (Entry entry : getEntries(Phase.SERVICE_START)) {
+            if (last == null || entry.getEndNanos() > last.getEndNanos())
+                last = entry;
+        }
+
+        while (last != null) {
+            path.addFirst(last);
+            last = last.parentClass == null ? null : getEntry(Phase.SERVICE_START, last.parentClass);
+        }
+
+        return Collections.unmodifiableList(path);
+    }
+
+    /**
+     * Returns a JSON representation of this timeline.
+     *
+     * @return a JSON representation of this timeline.
+     */
+    public String toJson() {
+        StringBuilder sb = new StringBuilder("[");
+
+        int i = 0;
+        for (Entry entry : getEntries()) {
+            if (i > 0)
+                sb.append(",");
+
+            sb.append("\n  {")
+                .append("\"phase\": ").append(__toJsonString(entry.phase.name())).append(", ")
+                .append("\"service\": ").append(__toJsonString(entry.serviceClass == null ? null : entry.serviceClass.getName())).append(", ")
+                .append("\"parent\": ").append(__toJsonString(entry.parentClass == null ? null : entry.parentClass.getName())).append(", ")
+                .append("\"thread\": ").append(__toJsonString(entry.threadName)).append(", ")
+                .append("\"startNanos\": ").append(entry.startNanos).append(", ")
+                .append("\"durationNanos\": ").append(entry.durationNanos)
+                .append("}");
+
+            i++;
+        }
+
+        return sb.append(i > 0 ? "\n]" : "]").toString();
+    }
+
+}
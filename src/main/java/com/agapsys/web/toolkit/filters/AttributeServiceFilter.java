@@ -17,36 +17,52 @@
 package com.agapsys.web.toolkit.filters;
 
 import com.agapsys.web.toolkit.AbstractApplication;
+import com.agapsys.web.toolkit.AbstractWebApplication;
 import com.agapsys.web.toolkit.services.AttributeService;
+import com.agapsys.web.toolkit.utils.SingletonManager;
 import java.io.IOException;
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
 import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
 
 public class AttributeServiceFilter implements Filter {
 
+    private ServletContext servletContext;
+
     @Override
-    public void init(FilterConfig filterConfig) throws ServletException {}
+    public void init(FilterConfig filterConfig) throws ServletException {
+        servletContext = filterConfig.getServletContext();
+    }
 
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        boolean requestScopeOwner = SingletonManager.beginRequestScope(); // <-- nested dispatches share the scope of the outermost one
+
         try {
             chain.doFilter(request, response);
         } finally {
 
-            AbstractApplication app = AbstractApplication.getRunningInstance();
+            AbstractApplication app = AbstractWebApplication.getRunningInstance(servletContext);
             AttributeService attributeService = (app != null ? app.getService(AttributeService.class, false) : null);
 
-            if (attributeService != null) {
-                attributeService.destroyAttributes();
+            try {
+                if (attributeService != null) {
+                    attributeService.destroyAttributes();
+                }
+            } finally {
+                if (requestScopeOwner)
+                    SingletonManager.destroyRequestInstances();
             }
         }
     }
 
     @Override
-    public void destroy() {}
+    public void destroy() {
+        servletContext = null;
+    }
 
 }
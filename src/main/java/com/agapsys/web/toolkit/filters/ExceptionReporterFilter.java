@@ -17,11 +17,13 @@
 package com.agapsys.web.toolkit.filters;
 
 import com.agapsys.web.toolkit.AbstractApplication;
+import com.agapsys.web.toolkit.AbstractWebApplication;
 import com.agapsys.web.toolkit.services.ExceptionReporterService;
 import java.io.IOException;
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
 import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
@@ -31,8 +33,12 @@ import javax.servlet.http.HttpServletResponse;
 public class ExceptionReporterFilter implements Filter {
 
 
+    private ServletContext servletContext;
+
     @Override
-    public void init(FilterConfig filterConfig) throws ServletException {}
+    public void init(FilterConfig filterConfig) throws ServletException {
+        servletContext = filterConfig.getServletContext();
+    }
 
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
@@ -40,7 +46,7 @@ public class ExceptionReporterFilter implements Filter {
             chain.doFilter(request, response);
         } catch(RuntimeException ex) {
 
-            AbstractApplication app = AbstractApplication.getRunningInstance();
+            AbstractApplication app = AbstractWebApplication.getRunningInstance(servletContext);
             ExceptionReporterService exceptionReporterService = (app != null ? app.getService(ExceptionReporterService.class, false) : null);
 
             if (exceptionReporterService != null) {
@@ -55,6 +61,8 @@ public class ExceptionReporterFilter implements Filter {
     }
 
     @Override
-    public void destroy() {}
+    public void destroy() {
+        servletContext = null;
+    }
 
 }
@@ -38,7 +38,7 @@ import javax.servlet.http.HttpServletRequest;
 /**
  * Represents an exception reporter.
  */
-public class ExceptionReporterService extends Service {
+public class ExceptionReporterService extends Service implements MetricsService.Instrumented {
 
     // <editor-fold desc="STATIC SCOPE">
     // =========================================================================
@@ -143,7 +143,7 @@ public class ExceptionReporterService extends Service {
         protected String getReportMessage(Throwable throwable, HttpServletRequest req, String nodeName) {
             String stackTrace = getStackTrace(throwable);
 
-            AbstractApplication app = AbstractApplication.getRunningInstance();
+            AbstractApplication app = getApplication();
 
             String msg
                 = "An error was detected"
@@ -222,11 +222,14 @@ public class ExceptionReporterService extends Service {
     private final List<String> stackTraceHistory = new LinkedList<>();
 
     private final Set<ExceptionReporter> reporters = new LinkedHashSet<>();
+
+    private final MetricsService.Counter reportCounter          = new MetricsService.Counter();
+    private final MetricsService.Counter duplicateReportCounter = new MetricsService.Counter();
     private final Set<ExceptionReporter> roReporters = Collections.unmodifiableSet(reporters);
 
     private String nodeName = DEFAULT_NODE_NAME;
     private int stackTraceHistorySize = DEFAULT_STACK_TRACE_HISTORY_SIZE;
-    private boolean enabled = DEFAULT_SERVICE_ENABLED;
+    private volatile boolean enabled = DEFAULT_SERVICE_ENABLED;
 
     public ExceptionReporterService(ExceptionReporter... reporters) {
         __reset();
@@ -285,23 +288,72 @@ public class ExceptionReporterService extends Service {
         }
     }
 
+    /** Loads settings from application properties. */
+    private void __loadSettings() {
+        AbstractApplication app = getApplication();
+
+        enabled = app.getProperty(Boolean.class, KEY_SERVICE_ENABLED, DEFAULT_SERVICE_ENABLED);
+        nodeName = app.getProperty(KEY_NODE_NAME, DEFAULT_NODE_NAME);
+        stackTraceHistorySize = app.getProperty(Integer.class, KEY_STACK_TRACE_HISTORY_SIZE, DEFAULT_STACK_TRACE_HISTORY_SIZE);
+
+        while (stackTraceHistory.size() > stackTraceHistorySize) {
+            stackTraceHistory.remove(0); // Remove oldest
+        }
+    }
+
     @Override
     protected void onStart() {
         super.onStart();
 
         synchronized(this) {
             __reset();
+            __loadSettings();
 
             AbstractApplication app = getApplication();
 
-            enabled = app.getProperty(Boolean.class, KEY_SERVICE_ENABLED, DEFAULT_SERVICE_ENABLED);
-            nodeName = app.getProperty(KEY_NODE_NAME, DEFAULT_NODE_NAME);
-            stackTraceHistorySize = app.getProperty(Integer.class, KEY_STACK_TRACE_HISTORY_SIZE, DEFAULT_STACK_TRACE_HISTORY_SIZE);
-
             for (ExceptionReporter reporter : getReporters()) {
                 reporter.start(app);
             }
         }
+
+        MetricsService.registerMeters(this);
+    }
+
+    @Override
+    public void registerMeters(MetricsService metricsService) {
+        metricsService.register("exception_reports_total", "Reported errors", reportCounter);
+        metricsService.register("exception_duplicate_reports_total", "Errors not reported since they were already reported", duplicateReportCounter);
+    }
+
+    @Override
+    protected void onPropertiesChanged(Set<String> changedKeys) {
+        super.onPropertiesChanged(changedKeys);
+
+        synchronized(this) {
+            boolean reloadSettings = false;
+            Set<ExceptionReporter> restartSet = new LinkedHashSet<>();
+
+            for (String key : changedKeys) {
+                if (key.startsWith(PROPERTY_PREFIX))
+                    reloadSettings = true;
+
+                // Reporters read their settings during start...
+                for (ExceptionReporter reporter : getReporters()) {
+                    if (key.startsWith(reporter.getClass().getName()))
+                        restartSet.add(reporter);
+                }
+            }
+
+            if (reloadSettings)
+                __loadSettings();
+
+            AbstractApplication app = getApplication();
+
+            for (ExceptionReporter reporter : restartSet) {
+                reporter.stop();
+                reporter.start(app);
+            }
+        }
     }
 
     @Override
@@ -344,9 +396,7 @@ public class ExceptionReporterService extends Service {
      * is defined in application settings).
      */
     public final boolean isServiceEnabled() {
-        synchronized(this) {
-            return enabled;
-        }
+        return enabled;
     }
 
     /**
@@ -377,25 +427,34 @@ public class ExceptionReporterService extends Service {
      * @param req HTTP request which thrown the exception.
      */
     public void reportException(Throwable exception, HttpServletRequest req) {
-        synchronized (this) {
-            if (exception == null)
-                throw new IllegalArgumentException("null throwable");
+        if (exception == null)
+            throw new IllegalArgumentException("null throwable");
+
+        if (req == null)
+            throw new IllegalArgumentException("Null request");
+
+        beginCall();
 
-            if (req == null)
-                throw new IllegalArgumentException("Null request");
+        try {
+            if (!isServiceEnabled())
+                return;
 
-            if (!isRunning())
-                throw new IllegalStateException("Service is not running");
+            synchronized (this) {
+                 if (isServiceEnabled()) {
+                    if (!skipErrorReport(exception)) {
+                        reportCounter.increment();
 
-             if (isServiceEnabled()) {
-                if (!skipErrorReport(exception)) {
-                    for (ExceptionReporter reporter : getReporters()) {
-                        reporter.reportException(exception, req, getNodeName());
+                        for (ExceptionReporter reporter : getReporters()) {
+                            reporter.reportException(exception, req, getNodeName());
+                        }
+                    } else {
+                        duplicateReportCounter.increment();
+                        getApplication().log(LogType.ERROR, "Application error (already reported): %s", exception.getMessage());
                     }
-                } else {
-                    getApplication().log(LogType.ERROR, "Application error (already reported): %s", exception.getMessage());
                 }
             }
+        } finally {
+            endCall();
         }
     }
 
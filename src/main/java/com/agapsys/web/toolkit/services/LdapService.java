@@ -19,10 +19,13 @@ package com.agapsys.web.toolkit.services;
 import com.agapsys.web.toolkit.AbstractApplication;
 import com.agapsys.web.toolkit.services.LdapService.LdapException.LdapExceptionType;
 import com.agapsys.web.toolkit.Service;
+import com.agapsys.web.toolkit.utils.ObjectPool;
 import java.util.Collections;
 import java.util.Hashtable;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.naming.AuthenticationException;
 import javax.naming.AuthenticationNotSupportedException;
 import javax.naming.CommunicationException;
@@ -36,7 +39,7 @@ import javax.naming.directory.InitialDirContext;
 import javax.naming.directory.SearchControls;
 import javax.naming.directory.SearchResult;
 
-public class LdapService extends Service {
+public class LdapService extends Service implements MetricsService.Instrumented {
 
     // <editor-fold desc="STATIC SCOPE">
     // =========================================================================
@@ -133,31 +136,141 @@ public class LdapService extends Service {
     public static final String KEY_SEARCH_PATTERN       = PROPERTY_PREFIX + ".searchPattern";
     public static final String KEY_SEARCH_USER_DN       = PROPERTY_PREFIX + ".searchUserDn";
     public static final String KEY_SEARCH_USER_PASSWORD = PROPERTY_PREFIX + ".searchUserPassword";
+    public static final String KEY_SEARCH_POOL_SIZE     = PROPERTY_PREFIX + ".searchPoolSize";
 
     private static final String DEFAULT_LDAP_URL             = "ldaps://ldap.server:9876";
     private static final String DEFAULT_SEARCH_BASE_DN       = "ou=users,dc=ldap,dc=server";
     private static final String DEFAULT_SEARCH_PATTERN       = "(&(objectClass=uidObject)(uid=%s))";
     private static final String DEFAULT_SEARCH_USER_DN       = "cn=admin,dc=ldap,dc=sever";
     private static final String DEFAULT_SEARCH_USER_PASSWORD = "password";
+    private static final int    DEFAULT_SEARCH_POOL_SIZE     = 8;
+
+    /** Wraps errors raised while pooled search contexts are created. */
+    private static class SearchContextException extends RuntimeException {
+        private SearchContextException(LdapException cause) {
+            super(cause);
+        }
+    }
+
+    /** Settings loaded from application properties. */
+    private static class Settings {
+        private final String ldapUrl;
+        private final String searchBaseDn;
+        private final String searchPattern;
+        private final String searchUserDn;
+        private final char[] searchUserPassword;
+
+        private Settings(String ldapUrl, String searchBaseDn, String searchPattern, String searchUserDn, char[] searchUserPassword) {
+            this.ldapUrl            = ldapUrl;
+            this.searchBaseDn       = searchBaseDn;
+            this.searchPattern      = searchPattern;
+            this.searchUserDn       = searchUserDn;
+            this.searchUserPassword = searchUserPassword;
+        }
+    }
+
+    private static final Settings EMPTY_SETTINGS = new Settings(null, null, null, null, null);
+
+    /**
+     * Search context pool bound to the settings used to create its contexts.
+     *
+     * The pool is closed once it was retired by the service and every caller using it has released it.
+     */
+    private static class SearchContexts {
+        private final Settings               settings;
+        private final ObjectPool<DirContext> pool;
+        private final AtomicInteger          users = new AtomicInteger(1); // <-- the service holds a reference until pool is retired
+
+        private SearchContexts(Settings settings, ObjectPool<DirContext> pool) {
+            this.settings = settings;
+            this.pool     = pool;
+        }
+
+        /** Returns a boolean indicating if pool was acquired (false means pool was retired and closed). */
+        private boolean acquire() {
+            while (true) {
+                int count = users.get();
+
+                if (count == 0)
+                    return false;
+
+                if (users.compareAndSet(count, count + 1))
+                    return true;
+            }
+        }
+
+        private void release() {
+            if (users.decrementAndGet() == 0)
+                pool.close(); // <-- contexts still borrowed at this point are destroyed when given back
+        }
+    }
     // =========================================================================
     // </editor-fold>
 
-    private String ldapUrl;
-    private String searchBaseDn;
-    private String searchPattern;
-    private String searchUserDn;
-    private char[] searchUserPassword;
+    private volatile Settings settings = EMPTY_SETTINGS;
+
+    /** Contexts bound to search user (DirContext instances are not thread-safe, so each one is used by a single thread at a time). */
+    private volatile SearchContexts searchContexts = null;
+
+    private final MetricsService.Counter   authenticationCounter        = new MetricsService.Counter();
+    private final MetricsService.Counter   authenticationFailureCounter = new MetricsService.Counter();
+    private final MetricsService.Counter   errorCounter                 = new MetricsService.Counter();
+    private final MetricsService.Histogram authenticationDuration       = new MetricsService.Histogram();
 
     public LdapService() {
         __reset();
     }
 
+    /** Replaces current search contexts, retiring the previous ones. */
+    private void __setSearchContexts(Settings mSettings, SearchContexts mSearchContexts) {
+        SearchContexts previous = searchContexts;
+
+        settings = mSettings;
+        searchContexts = mSearchContexts;
+
+        if (previous != null)
+            previous.release(); // <-- pool is closed after callers using it are done
+    }
+
     private void __reset() {
-        ldapUrl            = null;
-        searchBaseDn       = null;
-        searchPattern      = null;
-        searchUserDn       = null;
-        searchUserPassword = null;
+        __setSearchContexts(EMPTY_SETTINGS, null);
+    }
+
+    /** Loads settings from application properties. */
+    private void __loadSettings() {
+        AbstractApplication app = getApplication();
+
+        final Settings mSettings = new Settings(
+            app.getProperty(KEY_LDAP_URL,        DEFAULT_LDAP_URL),
+            app.getProperty(KEY_SEARCH_BASE_DN,  DEFAULT_SEARCH_BASE_DN),
+            app.getProperty(KEY_SEARCH_PATTERN,  DEFAULT_SEARCH_PATTERN),
+            app.getProperty(KEY_SEARCH_USER_DN,  DEFAULT_SEARCH_USER_DN),
+            app.getProperty(KEY_SEARCH_USER_PASSWORD, DEFAULT_SEARCH_USER_PASSWORD).toCharArray()
+        );
+
+        // Search contexts are not services (SingletonManager pools only managed types created through their constructors)
+        // and depend on loaded settings, so the pool is owned by this service and replaced on reload.
+        ObjectPool<DirContext> pool = new ObjectPool<>(new ObjectPool.ObjectFactory<DirContext>() {
+            @Override
+            public DirContext create() {
+                try {
+                    return __getContext(mSettings.ldapUrl, mSettings.searchUserDn, mSettings.searchUserPassword);
+                } catch (LdapException ex) {
+                    throw new SearchContextException(ex);
+                }
+            }
+
+            @Override
+            public void destroy(DirContext ctx) {
+                try {
+                    ctx.close();
+                } catch (NamingException ex) {
+                    // Context is being discarded
+                }
+            }
+        }, app.getInt(KEY_SEARCH_POOL_SIZE, DEFAULT_SEARCH_POOL_SIZE));
+
+        __setSearchContexts(mSettings, new SearchContexts(mSettings, pool));
     }
 
     @Override
@@ -165,46 +278,68 @@ public class LdapService extends Service {
         super.onStart();
 
         synchronized(this) {
-            __reset();
+            __loadSettings();
+        }
 
-            AbstractApplication app = getApplication();
+        MetricsService.registerMeters(this);
+    }
 
-            ldapUrl            = app.getProperty(KEY_LDAP_URL,        DEFAULT_LDAP_URL);
-            searchBaseDn       = app.getProperty(KEY_SEARCH_BASE_DN,  DEFAULT_SEARCH_BASE_DN);
-            searchPattern      = app.getProperty(KEY_SEARCH_PATTERN,  DEFAULT_SEARCH_PATTERN);
-            searchUserDn       = app.getProperty(KEY_SEARCH_USER_DN,  DEFAULT_SEARCH_USER_DN);
-            searchUserPassword = app.getProperty(KEY_SEARCH_USER_PASSWORD, DEFAULT_SEARCH_USER_PASSWORD).toCharArray();
-        }
+    @Override
+    public void registerMeters(MetricsService metricsService) {
+        metricsService.register("ldap_authentications_total", "User authentication attempts", authenticationCounter);
+        metricsService.register("ldap_authentication_failures_total", "User authentication attempts with unknown users or invalid credentials", authenticationFailureCounter);
+        metricsService.register("ldap_errors_total", "Errors communicating with LDAP server", errorCounter);
+        metricsService.register("ldap_authentication_duration_seconds", "User authentication time", authenticationDuration);
+        metricsService.register("ldap_search_contexts_idle", "Idle search contexts", new MetricsService.Gauge() {
+            @Override
+            public double getValue() {
+                SearchContexts mSearchContexts = searchContexts;
+                return mSearchContexts == null ? 0 : mSearchContexts.pool.getIdleCount();
+            }
+        });
     }
 
-    public String getLdapUrl() {
+    @Override
+    protected void onStop() {
+        super.onStop();
+
         synchronized(this) {
-            return ldapUrl;
+            __reset();
         }
     }
 
-    public String getSearchBaseDn() {
-        synchronized (this) {
-            return searchBaseDn;
+    @Override
+    protected void onPropertiesChanged(Set<String> changedKeys) {
+        super.onPropertiesChanged(changedKeys);
+
+        for (String key : changedKeys) {
+            if (key.startsWith(PROPERTY_PREFIX)) {
+                synchronized(this) {
+                    __loadSettings();
+                }
+                return;
+            }
         }
     }
 
+    public String getLdapUrl() {
+        return settings.ldapUrl;
+    }
+
+    public String getSearchBaseDn() {
+        return settings.searchBaseDn;
+    }
+
     public String getSearchPattern() {
-        synchronized(this) {
-            return searchPattern;
-        }
+        return settings.searchPattern;
     }
 
     public String getSearchUserDn() {
-        synchronized(this) {
-            return searchUserDn;
-        }
+        return settings.searchUserDn;
     }
 
     protected char[] getSearchUserPassword() {
-        synchronized(this) {
-            return searchUserPassword;
-        }
+        return settings.searchUserPassword;
     }
 
     private DirContext __getContext(String url, String userDn, char[] password) throws LdapException {
@@ -253,29 +388,78 @@ public class LdapService extends Service {
         }
     }
 
-    private LdapUser __getUser(String userId, char[] password) throws LdapException, NamingException {
+    /**
+     * Searches a user using a pooled search context.
+     *
+     * @return found user DN or null if user was not found.
+     */
+    private String __searchUserDn(ObjectPool<DirContext> pool, Settings mSettings, String userId) throws LdapException, NamingException {
         DirContext ctx;
+
+        try {
+            ctx = pool.borrow();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new LdapException(LdapExceptionType.COMMUNICATION_FAILURE, "Interrupted while waiting for a search context", ex);
+        } catch (SearchContextException ex) {
+            throw (LdapException) ex.getCause();
+        }
+
         SearchResult searchResult;
-        String userDn = null;
 
-        ctx = __getContext(getLdapUrl(), getSearchUserDn(), getSearchUserPassword());
-        searchResult = __searchUser(ctx, getSearchBaseDn(), getSearchPattern(), userId);
+        try {
+            searchResult = __searchUser(ctx, mSettings.searchBaseDn, mSettings.searchPattern, userId);
+        } catch (LdapException | RuntimeException ex) {
+            pool.invalidate(ctx); // <-- context may be broken (e.g. connection closed by the server)
+            throw ex;
+        }
 
-        boolean found;
-        if (searchResult != null) {
-            userDn = searchResult.getNameInNamespace();
-            found = true;
-        } else {
-            found = false;
+        pool.returnObject(ctx);
+        return searchResult != null ? searchResult.getNameInNamespace() : null;
+    }
+
+    /** Returns current search contexts, which must be released after use. */
+    private SearchContexts __acquireSearchContexts() {
+        while (true) {
+            SearchContexts mSearchContexts = searchContexts;
+
+            if (mSearchContexts == null)
+                throw new IllegalStateException("Service is not running");
+
+            if (mSearchContexts.acquire())
+                return mSearchContexts;
         }
+    }
+
+    private LdapUser __getUser(String userId, char[] password) throws LdapException, NamingException {
+        SearchContexts mSearchContexts = __acquireSearchContexts();
+
+        try {
+            return __getUser(mSearchContexts.pool, mSearchContexts.settings, userId, password);
+        } finally {
+            mSearchContexts.release();
+        }
+    }
+
+    private LdapUser __getUser(ObjectPool<DirContext> pool, Settings mSettings, String userId, char[] password) throws LdapException, NamingException {
+        String userDn;
+
+        try {
+            userDn = __searchUserDn(pool, mSettings, userId);
+        } catch (LdapException ex) {
+            if (ex.getExceptionType() == LdapExceptionType.INVALID_CREDENTIALS)
+                throw ex;
 
-        ctx.close();
-        ctx = null;
+            userDn = __searchUserDn(pool, mSettings, userId); // <-- retries once with a new context
+        }
+
+        boolean found = userDn != null;
+        DirContext ctx = null;
 
         if (found) {
             // Once a user is found, try to authenticate it
             try {
-                ctx = __getContext(getLdapUrl(), userDn, password);
+                ctx = __getContext(mSettings.ldapUrl, userDn, password);
                 return new LdapUser(userDn, ctx.getAttributes(userDn));
             } catch (LdapException ex) {
                 if (ex.getExceptionType() == LdapExceptionType.INVALID_CREDENTIALS) return null;
@@ -288,16 +472,37 @@ public class LdapService extends Service {
         }
     }
 
+    /**
+     * Authenticates a user.
+     *
+     * This method can be called concurrently (search contexts are pooled, see {@linkplain LdapService#KEY_SEARCH_POOL_SIZE}).
+     *
+     * @param userId user id (see {@linkplain LdapService#KEY_SEARCH_PATTERN}).
+     * @param password user password.
+     * @return authenticated user or null if user was not found or credentials are invalid.
+     * @throws LdapException if there was an error communicating with LDAP server.
+     */
     public LdapUser getUser(String userId, char[] password) throws LdapException {
-        synchronized(this) {
-            if (!isRunning())
-                throw new IllegalStateException("Service is not running");
+        beginCall();
+        long t0 = System.nanoTime();
 
-            try {
-                return __getUser(userId, password);
-            } catch (NamingException ex) {
-                throw new LdapException(LdapExceptionType.NAMING_ERROR, ex);
-            }
+        try {
+            authenticationCounter.increment();
+            LdapUser user = __getUser(userId, password);
+
+            if (user == null)
+                authenticationFailureCounter.increment();
+
+            return user;
+        } catch (NamingException ex) {
+            errorCounter.increment();
+            throw new LdapException(LdapExceptionType.NAMING_ERROR, ex);
+        } catch (LdapException ex) {
+            errorCounter.increment();
+            throw ex;
+        } finally {
+            authenticationDuration.recordSince(t0);
+            endCall();
         }
     }
 
@@ -20,16 +20,29 @@ import com.agapsys.web.toolkit.LogType;
 import com.agapsys.web.toolkit.Service;
 import com.agapsys.web.toolkit.utils.DateUtils;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
-import java.io.PrintStream;
-import java.text.SimpleDateFormat;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
 import java.util.LinkedHashSet;
 import java.util.Set;
-
-public final class LogService extends Service {
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+public final class LogService extends Service implements MetricsService.Instrumented {
     // STATIC SCOPE ============================================================
 
     /** Logger interface. */
@@ -58,9 +71,21 @@ public final class LogService extends Service {
         public void log(Date timestamp, LogType logType, String message);
     }
 
+    /** Logger which is notified when a batch of messages is delivered by an asynchronous log service. */
+    public static interface FlushableLogger extends Logger {
+        /**
+         * Called after a batch of messages was delivered to this logger.
+         *
+         * A synchronous log service delivers every message as a batch of its own.
+         * Loggers which buffer their output may write pending messages.
+         */
+        public void flush();
+    }
+
     /** Logger adapter. */
-    public static class LoggerAdapter implements Logger {
+    public static class LoggerAdapter implements FlushableLogger {
         private AbstractApplication app;
+        private volatile LogType minLogType = null;
 
         public final AbstractApplication getApplication() {
             return app;
@@ -85,6 +110,28 @@ public final class LogService extends Service {
         @Override
         public void log(Date timestamp, LogType logType, String message) {}
 
+        /**
+         * Returns the least severe type of messages accepted by this logger.
+         *
+         * @return the least severe type of messages accepted by this logger or
+         * null to accept every message accepted by the service.
+         */
+        public final LogType getMinLogType() {
+            return minLogType;
+        }
+
+        /**
+         * Sets the least severe type of messages accepted by this logger.
+         *
+         * @param minLogType the least severe type of messages accepted by this logger or null to accept every message accepted by the service.
+         */
+        public final void setMinLogType(LogType minLogType) {
+            this.minLogType = minLogType;
+        }
+
+        @Override
+        public void flush() {}
+
     }
 
     /** Logger which prints messages into console. */
@@ -126,7 +173,7 @@ public final class LogService extends Service {
         protected String getMessage(Date timestamp, LogType logType, String message) {
             String logTypeStr = usesLogTypeColors() ? __getColoredLogType(0, logType) : logType.name();
 
-            return String.format("%s [%s] %s", DateUtils.getIso8601Date(),logTypeStr, message);
+            return String.format("%s [%s] %s", DateUtils.getIso8601Date(timestamp), logTypeStr, message);
         }
 
         @Override
@@ -136,17 +183,59 @@ public final class LogService extends Service {
 
     }
 
-    /** Logger which prints messages in a daily log file. */
+    /**
+     * Logger which prints messages in a daily log file.
+     *
+     * Messages are buffered and written when the buffer is full, on every
+     * flush interval and when logger stops (see {@linkplain DailyFileLogger#KEY_BUFFER_SIZE}
+     * and {@linkplain DailyFileLogger#KEY_FLUSH_INTERVAL}), so a crash may lose
+     * up to one flush interval of messages. Use {@linkplain DailyFileLogger#KEY_SYNC_POLICY}
+     * to force written data into the storage device.
+     */
     public static class DailyFileLogger extends LoggerAdapter {
+
+        /** Defines when written data is forced into storage device (see {@linkplain DailyFileLogger#KEY_SYNC_POLICY}). */
+        public static enum SyncPolicy {
+            /** Operating system decides when written data reaches the device. */
+            NEVER,
+
+            /** Data is written and forced after each batch delivered by the log service (see {@linkplain FlushableLogger#flush()}). */
+            PER_BATCH,
+
+            /** Data is forced on every flush interval. */
+            PER_INTERVAL
+        }
+
+        public static final String PROPERTY_PREFIX = DailyFileLogger.class.getName();
+
+        public static final String KEY_BUFFER_SIZE    = PROPERTY_PREFIX + ".bufferSize";
+        public static final String KEY_FLUSH_INTERVAL = PROPERTY_PREFIX + ".flushInterval";
+        public static final String KEY_SYNC_POLICY    = PROPERTY_PREFIX + ".syncPolicy";
+
+        /** Buffer size in bytes (0 writes every message as soon as it is logged). */
+        public static final int        DEFAULT_BUFFER_SIZE    = 8192;
+
+        /** Interval in milliseconds between periodic writes of buffered messages (0 disables periodic writes). */
+        public static final long       DEFAULT_FLUSH_INTERVAL = 1000;
+
+        public static final SyncPolicy DEFAULT_SYNC_POLICY    = SyncPolicy.NEVER;
+
         private static final String DEFAULT_PATTERN = "application-%s.log";
+        private static final String LINE_SEPARATOR  = System.getProperty("line.separator");
+
+        private final File    logDir;
+        private final String  filenamePattern;
+        private final Charset charset = Charset.defaultCharset();
 
-        private static final SimpleDateFormat SDF = new SimpleDateFormat("yyyMMdd");
+        private File        currentFile;
+        private long        nextRolloverTime; // <-- next local midnight (milliseconds since epoch)
+        private FileChannel channel;
+        private ByteBuffer  buffer; // <-- null when messages are not buffered
+        private SyncPolicy  syncPolicy = DEFAULT_SYNC_POLICY;
 
-        private final File   logDir;
-        private final String filenamePattern;
+        private RuntimeException flushError = null; // <-- error of a periodic flush (thrown by next log call)
 
-        private File currentFile;
-        private PrintStream currentPs;
+        private ScheduledExecutorService flushExecutor;
 
         public DailyFileLogger(File logDir) {
             this(logDir, DEFAULT_PATTERN);
@@ -171,12 +260,32 @@ public final class LogService extends Service {
 
             this.filenamePattern = filenamePattern;
 
-            currentFile = __getLogFile(logDir, filenamePattern);
+            __rollover(_getCurrentTime());
         }
 
-        private File __getLogFile(File logDir, String filenamePattern) {
-            String logFilename = String.format(filenamePattern, SDF.format(new Date()));
-            return new File(logDir, logFilename);
+        /** Returns current time in milliseconds (exposed to allow tests to simulate a day change). */
+        long _getCurrentTime() {
+            return System.currentTimeMillis();
+        }
+
+        /**
+         * Updates current file for the day of given time and computes next rollover time.
+         *
+         * This is called once per day, so allocations here do not affect logging.
+         */
+        private void __rollover(long time) {
+            Calendar calendar = Calendar.getInstance();
+            calendar.setTimeInMillis(time);
+
+            String date = String.format("%04d%02d%02d", calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH) + 1, calendar.get(Calendar.DAY_OF_MONTH));
+            currentFile = new File(logDir, String.format(filenamePattern, date));
+
+            calendar.set(Calendar.HOUR_OF_DAY, 0);
+            calendar.set(Calendar.MINUTE, 0);
+            calendar.set(Calendar.SECOND, 0);
+            calendar.set(Calendar.MILLISECOND, 0);
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
+            nextRolloverTime = calendar.getTimeInMillis();
         }
 
         public final File getLogDir() {
@@ -188,51 +297,563 @@ public final class LogService extends Service {
         }
 
         protected String getMessage(Date timestamp, LogType logType, String message) {
-            return String.format("%s [%s] %s", DateUtils.getIso8601Date(), logType.name(), message);
+            return String.format("%s [%s] %s", DateUtils.getIso8601Date(timestamp), logType.name(), message);
+        }
+
+        private static FileChannel __open(File file) {
+            try {
+                return FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            } catch (IOException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+
+        /**
+         * Handles an I/O error (logger lock must be held by current thread).
+         *
+         * A channel is closed when a thread is interrupted while using it,
+         * so it is reopened to keep the logger usable by other threads.
+         */
+        private RuntimeException __onError(IOException ex) {
+            if (ex instanceof ClosedByInterruptException)
+                channel = __open(currentFile);
+
+            return new RuntimeException(ex);
+        }
+
+        /** Writes given data into current file (logger lock must be held by current thread). */
+        private void __writeFully(ByteBuffer data) {
+            try {
+                while (data.hasRemaining()) {
+                    channel.write(data);
+                }
+            } catch (IOException ex) {
+                throw __onError(ex);
+            }
+        }
+
+        /** Writes buffered data into current file (logger lock must be held by current thread). */
+        private void __drain() {
+            if (buffer == null || buffer.position() == 0)
+                return;
+
+            buffer.flip();
+
+            try {
+                __writeFully(buffer);
+            } finally {
+                buffer.clear();
+            }
+        }
+
+        /** Forces written data into storage device (logger lock must be held by current thread). */
+        private void __force() {
+            try {
+                channel.force(false);
+            } catch (IOException ex) {
+                throw __onError(ex);
+            }
+        }
+
+        private void __close() {
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                throw new RuntimeException(ex);
+            } finally {
+                channel = null;
+            }
         }
 
         @Override
         public void log(Date timestamp, LogType logType, String message) {
-            File logFile = __getLogFile(getLogDir(), getFilenamePattern());
+            byte[] data = (getMessage(timestamp, logType, message) + LINE_SEPARATOR).getBytes(charset);
 
-            if (!logFile.equals(currentFile)) {
-                currentPs.close();
+            synchronized(this) {
+                if (channel == null)
+                    return; // <-- logger is not running
 
-                currentFile = logFile;
-                try {
-                    currentPs = new PrintStream(new FileOutputStream(logFile, true));
-                } catch (FileNotFoundException ex) {
-                    throw new RuntimeException(ex);
+                long now = _getCurrentTime();
+
+                if (now >= nextRolloverTime) {
+                    __drain();
+                    __close();
+
+                    __rollover(now);
+                    channel = __open(currentFile);
+                }
+
+                if (buffer != null && data.length <= buffer.capacity()) {
+                    if (data.length > buffer.remaining())
+                        __drain();
+
+                    buffer.put(data);
+                } else {
+                    __drain();
+                    __writeFully(ByteBuffer.wrap(data));
                 }
+
+                RuntimeException error = flushError;
+
+                if (error != null) {
+                    flushError = null;
+                    throw error;
+                }
+            }
+        }
+
+        @Override
+        public void flush() {
+            if (syncPolicy != SyncPolicy.PER_BATCH)
+                return;
+
+            synchronized(this) {
+                if (channel == null)
+                    return;
+
+                __drain();
+                __force();
             }
+        }
+
+        /** Called on every flush interval. */
+        private void __onFlushInterval() {
+            synchronized(this) {
+                if (channel == null)
+                    return;
 
-            currentPs.println(getMessage(timestamp, logType, message));
-            currentPs.flush();
+                try {
+                    __drain();
+
+                    if (syncPolicy == SyncPolicy.PER_INTERVAL)
+                        __force();
+                } catch (RuntimeException ex) {
+                    flushError = ex; // <-- periodic flushes have no caller, so error is reported by next log call
+                }
+            }
         }
 
         @Override
         protected void onStart() {
             super.onStart();
 
-             try {
-                currentPs = new PrintStream(new FileOutputStream(currentFile, true));
-            } catch (FileNotFoundException ex) {
-                throw new RuntimeException(ex);
+            final AbstractApplication app = getApplication();
+
+            int bufferSize = app.getProperty(Integer.class, KEY_BUFFER_SIZE, DEFAULT_BUFFER_SIZE);
+            long flushInterval = app.getProperty(Long.class, KEY_FLUSH_INTERVAL, DEFAULT_FLUSH_INTERVAL);
+
+            synchronized(this) {
+                syncPolicy = __getEnumProperty(app, SyncPolicy.class, KEY_SYNC_POLICY, DEFAULT_SYNC_POLICY);
+                buffer = bufferSize > 0 ? ByteBuffer.allocate(bufferSize) : null;
+                __rollover(_getCurrentTime()); // <-- day may have changed since logger creation
+                channel = __open(currentFile);
+            }
+
+            if (flushInterval > 0 && (buffer != null || syncPolicy == SyncPolicy.PER_INTERVAL)) {
+                flushExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, String.format("%s-log-flush", app.getName()));
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+
+                flushExecutor.scheduleWithFixedDelay(new Runnable() {
+                    @Override
+                    public void run() {
+                        __onFlushInterval();
+                    }
+                }, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
             }
         }
 
         @Override
         public void onStop() {
-            currentPs.close();
+            if (flushExecutor != null) {
+                flushExecutor.shutdown(); // <-- interrupting a flush would close the channel
+
+                try {
+                    flushExecutor.awaitTermination(1, TimeUnit.MINUTES);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+
+                flushExecutor = null;
+            }
+
+            synchronized(this) {
+                try {
+                    __drain();
+
+                    if (syncPolicy != SyncPolicy.NEVER)
+                        __force();
+                } finally {
+                    __close();
+                }
+            }
+        }
+
+    }
+
+    /** Strategy used by the background writer while waiting for messages (see {@linkplain LogService#KEY_WAIT_STRATEGY}). */
+    public static enum WaitStrategy {
+        /** Writer blocks until a message is published (lowest CPU usage). */
+        BLOCKING,
+
+        /** Writer sleeps for short periods, so producers never have to wake it up. */
+        SLEEPING,
+
+        /** Writer yields the processor between checks. */
+        YIELDING,
+
+        /** Writer spins (lowest latency, but keeps a processor busy). */
+        BUSY_SPIN
+    }
+
+    /** Behavior of asynchronous logging when buffer is full (see {@linkplain LogService#KEY_OVERFLOW_POLICY}). */
+    public static enum OverflowPolicy {
+        /** Caller waits until there is room in the buffer. */
+        BLOCK,
+
+        /** New messages are discarded. */
+        DROP_NEWEST,
+
+        /** Messages less severe than {@linkplain LogService#KEY_OVERFLOW_MIN_LOG_TYPE} are discarded and the others wait for room. */
+        DROP_BELOW_LEVEL,
+
+        /** One out of {@linkplain LogService#KEY_OVERFLOW_SAMPLE_RATE} messages waits for room and the others are discarded. */
+        SAMPLE
+    }
+
+    /** Handles errors thrown by loggers while messages are written in background. */
+    public static interface ErrorHandler {
+        /**
+         * Called when a logger fails while messages are written in background.
+         *
+         * @param error error thrown by the logger.
+         */
+        public void onError(RuntimeException error);
+    }
+
+    public static final String PROPERTY_PREFIX = LogService.class.getName();
+
+    public static final String KEY_MIN_LOG_TYPE  = PROPERTY_PREFIX + ".minLogType";
+    public static final String KEY_ASYNC         = PROPERTY_PREFIX + ".async";
+    public static final String KEY_BUFFER_SIZE   = PROPERTY_PREFIX + ".bufferSize";
+    public static final String KEY_WAIT_STRATEGY = PROPERTY_PREFIX + ".waitStrategy";
+
+    public static final String KEY_OVERFLOW_POLICY       = PROPERTY_PREFIX + ".overflowPolicy";
+    public static final String KEY_OVERFLOW_MIN_LOG_TYPE = PROPERTY_PREFIX + ".overflowMinLogType";
+    public static final String KEY_OVERFLOW_SAMPLE_RATE  = PROPERTY_PREFIX + ".overflowSampleRate";
+
+    public static final LogType      DEFAULT_MIN_LOG_TYPE  = LogType.INFO;
+    public static final boolean      DEFAULT_ASYNC         = false;
+    public static final int          DEFAULT_BUFFER_SIZE   = 8192;
+    public static final WaitStrategy DEFAULT_WAIT_STRATEGY = WaitStrategy.BLOCKING;
+
+    public static final OverflowPolicy DEFAULT_OVERFLOW_POLICY       = OverflowPolicy.BLOCK;
+    public static final LogType        DEFAULT_OVERFLOW_MIN_LOG_TYPE = LogType.ERROR;
+    public static final int            DEFAULT_OVERFLOW_SAMPLE_RATE  = 10;
+
+    /**
+     * Asynchronous message pipeline.
+     *
+     * Producers claim slots of a preallocated ring buffer through a CAS on
+     * the claim cursor and publish them by storing the slot sequence, so
+     * logging threads never wait for loggers. A single thread drains
+     * published messages in batches. Closing the writer marks the claim
+     * cursor, so messages claimed before closing are always delivered and
+     * later messages are rejected (and written synchronously by the caller).
+     */
+    private static final class AsyncWriter implements Runnable {
+        /** Outcome of a message publication. */
+        private static enum PublishResult {
+            PUBLISHED,
+
+            /** Message was discarded by overflow policy. */
+            DROPPED,
+
+            /** Writer is closed (message must be written by the caller). */
+            CLOSED
+        }
+
+        private static final long CLOSED_FLAG    = Long.MIN_VALUE;
+        private static final int  MAX_BATCH_SIZE = 256;
+        private static final long WAIT_NANOS     = TimeUnit.MILLISECONDS.toNanos(10);
+
+        private static final class Event {
+            private Date    timestamp;
+            private LogType logType;
+            private String  message;
+        }
+
+        private static int __getCapacity(int bufferSize) {
+            if (bufferSize < 1)
+                throw new IllegalArgumentException("Invalid buffer size: " + bufferSize);
+
+            int capacity = 1;
+
+            while (capacity < bufferSize) {
+                capacity <<= 1;
+            }
+
+            return capacity;
+        }
+
+        private final LogService      service;
+        private final WaitStrategy    waitStrategy;
+        private final OverflowPolicy  overflowPolicy;
+        private final LogType         overflowMinLogType;
+        private final int             overflowSampleRate;
+        private final AtomicLong      overflowCount = new AtomicLong();
+        private final Event[]         events;
+        private final int             mask;
+        private final AtomicLongArray published; // <-- sequence of the message published in each slot
+        private final AtomicLong      claimed   = new AtomicLong(); // <-- next sequence to be claimed (sign bit marks a closed writer)
+        private volatile long         consumed  = 0; // <-- next sequence to be written
+
+        private final Lock      waitLock = new ReentrantLock();
+        private final Condition notEmpty = waitLock.newCondition();
+        private volatile boolean waiting = false;
+
+        private Thread thread;
+
+        private AsyncWriter(LogService service, int bufferSize, WaitStrategy waitStrategy, OverflowPolicy overflowPolicy, LogType overflowMinLogType, int overflowSampleRate) {
+            int capacity = __getCapacity(bufferSize);
+
+            if (overflowSampleRate < 1)
+                throw new IllegalArgumentException("Invalid sample rate: " + overflowSampleRate);
+
+            this.service = service;
+            this.waitStrategy = waitStrategy;
+            this.overflowPolicy = overflowPolicy;
+            this.overflowMinLogType = overflowMinLogType;
+            this.overflowSampleRate = overflowSampleRate;
+            this.mask = capacity - 1;
+            this.events = new Event[capacity];
+            this.published = new AtomicLongArray(capacity);
+
+            for (int i = 0; i < capacity; i++) {
+                events[i] = new Event();
+                published.set(i, -1);
+            }
+        }
+
+        private void __start() {
+            thread = service.newThread("log-writer", this);
+            thread.start();
+        }
+
+        /** Returns a boolean indicating if a message which found the buffer full shall wait for room. */
+        private boolean __waitForRoom(LogType logType) {
+            switch (overflowPolicy) {
+                case BLOCK:
+                    return true;
+
+                case DROP_NEWEST:
+                    return false;
+
+                case DROP_BELOW_LEVEL:
+                    return logType.isAtLeast(overflowMinLogType);
+
+                case SAMPLE:
+                    return overflowCount.getAndIncrement() % overflowSampleRate == 0;
+
+                default:
+                    throw new UnsupportedOperationException("Unsupported policy: " + overflowPolicy);
+            }
+        }
+
+        /** Returns the number of messages waiting to be written. */
+        private long __getPendingCount() {
+            long current = claimed.get() & ~CLOSED_FLAG;
+            return Math.max(0, current - consumed);
+        }
+
+        /** Publishes a message. */
+        private PublishResult __publish(Date timestamp, LogType logType, String message) {
+            long sequence;
+            boolean blocked = false;
+
+            while (true) {
+                long current = claimed.get();
+
+                if (current < 0)
+                    return PublishResult.CLOSED;
+
+                if (current - consumed >= events.length) {
+                    // Buffer is full...
+                    if (!blocked) {
+                        if (!__waitForRoom(logType)) {
+                            service.droppedCounter.increment();
+                            return PublishResult.DROPPED;
+                        }
+
+                        service.blockedCounter.increment();
+                        blocked = true;
+                    }
+
+                    LockSupport.parkNanos(WAIT_NANOS / 100);
+                    continue;
+                }
+
+                if (claimed.compareAndSet(current, current + 1)) {
+                    sequence = current;
+                    break;
+                }
+            }
+
+            int index = (int) sequence & mask;
+            Event event = events[index];
+            event.timestamp = timestamp;
+            event.logType = logType;
+            event.message = message;
+            published.set(index, sequence);
+
+            if (waiting)
+                __signal();
+
+            return PublishResult.PUBLISHED;
+        }
+
+        private void __signal() {
+            waitLock.lock();
+            try {
+                notEmpty.signal();
+            } finally {
+                waitLock.unlock();
+            }
+        }
+
+        private boolean __isPublished(long sequence) {
+            return published.get((int) sequence & mask) == sequence;
+        }
+
+        private void __await(long sequence) {
+            switch (waitStrategy) {
+                case BLOCKING:
+                    waitLock.lock();
+                    try {
+                        waiting = true;
+
+                        if (!__isPublished(sequence) && claimed.get() >= 0)
+                            notEmpty.awaitNanos(WAIT_NANOS);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        waiting = false;
+                        waitLock.unlock();
+                    }
+                    break;
+
+                case SLEEPING:
+                    LockSupport.parkNanos(WAIT_NANOS / 10);
+                    break;
+
+                case YIELDING:
+                    Thread.yield();
+                    break;
+
+                default:
+                    break;
+            }
         }
 
+        @Override
+        public void run() {
+            long next = consumed;
+
+            while (true) {
+                long end = next;
+
+                while (end - next < MAX_BATCH_SIZE && __isPublished(end)) {
+                    end++;
+                }
+
+                if (end > next) {
+                    synchronized(service.writeLock) {
+                        for (long sequence = next; sequence < end; sequence++) {
+                            Event event = events[(int) sequence & mask];
+
+                            try {
+                                service.__write(event.timestamp, event.logType, event.message);
+                            } catch (RuntimeException ex) {
+                                service.__onError(ex); // <-- an error must not stop the writer
+                            }
+
+                            event.timestamp = null;
+                            event.message = null;
+                        }
+
+                        next = end;
+                        consumed = next; // <-- slots are released before loggers flush
+                        service.__flush(false);
+                    }
+
+                    continue;
+                }
+
+                long current = claimed.get();
+
+                if (current < 0 && (current & ~CLOSED_FLAG) == next)
+                    break; // <-- closed and drained
+
+                __await(next);
+            }
+        }
+
+        /** Rejects new messages and waits until claimed ones are written. */
+        private void __close() {
+            while (true) {
+                long current = claimed.get();
+
+                if (current < 0 || claimed.compareAndSet(current, current | CLOSED_FLAG))
+                    break;
+            }
+
+            __signal();
+
+            boolean interrupted = false;
+
+            while (thread.isAlive()) {
+                try {
+                    thread.join();
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
     }
     // =========================================================================
 
     private final Set<Logger> loggers   = new LinkedHashSet<>();
     private final Set<Logger> roLoggers = Collections.unmodifiableSet(loggers);
 
+    private volatile Logger[] loggerArray = new Logger[0]; // <-- snapshot read without service lock
+    private final Object writeLock = new Object(); // <-- serializes logger access
+
+    private volatile AsyncWriter asyncWriter = null;
+
+    private final MetricsService.Counter droppedCounter = new MetricsService.Counter();
+    private final MetricsService.Counter blockedCounter = new MetricsService.Counter();
+    private final MetricsService.Counter errorCounter   = new MetricsService.Counter();
+
+    private volatile ErrorHandler errorHandler = null;
+
+    private volatile LogType minLogType = DEFAULT_MIN_LOG_TYPE;
+
+    private final MetricsService.Counter[] messageCounters = new MetricsService.Counter[LogType.values().length];
+    private final MetricsService.Histogram writeDuration   = new MetricsService.Histogram();
+
     public LogService(Logger...loggers) {
+        for (int i = 0; i < messageCounters.length; i++) {
+            messageCounters[i] = new MetricsService.Counter();
+        }
+
         for (Logger stream : loggers) {
             if (stream != null)
                 addLogger(stream);
@@ -251,6 +872,7 @@ public final class LogService extends Service {
                 throw new IllegalStateException("Cannot remove a logger from a running service");
 
             loggers.clear();
+            loggerArray = new Logger[0];
         }
     }
 
@@ -262,8 +884,10 @@ public final class LogService extends Service {
             if (isRunning())
                 throw new IllegalStateException("Cannot add a logger to a running service");
 
-            if (!loggers.contains(logger))
+            if (!loggers.contains(logger)) {
                 loggers.add(logger);
+                loggerArray = loggers.toArray(new Logger[loggers.size()]);
+            }
         }
     }
 
@@ -272,18 +896,184 @@ public final class LogService extends Service {
             if (isRunning())
                 throw new IllegalStateException("Cannot remove a logger from a running service");
 
-            loggers.remove(logger);
+            if (loggers.remove(logger))
+                loggerArray = loggers.toArray(new Logger[loggers.size()]);
         }
     }
 
+    /**
+     * Returns the least severe type of messages accepted by this service.
+     *
+     * @return the least severe type of messages accepted by this service.
+     */
+    public final LogType getMinLogType() {
+        return minLogType;
+    }
+
+    /**
+     * Sets the least severe type of messages accepted by this service.
+     *
+     * @param minLogType the least severe type of messages accepted by this service.
+     * Less severe messages are discarded before being formatted. Default value is {@linkplain LogType#INFO}
+     * (when service starts, value is replaced by {@linkplain LogService#KEY_MIN_LOG_TYPE} if such property is defined).
+     */
+    public final void setMinLogType(LogType minLogType) {
+        if (minLogType == null)
+            throw new IllegalArgumentException("Log type cannot be null");
+
+        this.minLogType = minLogType;
+    }
+
+    private static boolean __accepts(Logger logger, LogType logType) {
+        if (!(logger instanceof LoggerAdapter))
+            return true; // <-- only adapters define a threshold
+
+        LogType loggerMinLogType = ((LoggerAdapter) logger).getMinLogType();
+        return loggerMinLogType == null || logType.isAtLeast(loggerMinLogType);
+    }
+
+    /**
+     * Returns a boolean indicating if messages of given type are accepted by this service.
+     *
+     * @param logType log message type.
+     * @return a boolean indicating if messages of given type are accepted by
+     * this service and by at least one of its loggers (see {@linkplain LoggerAdapter#getMinLogType()}).
+     */
+    public final boolean isLoggable(LogType logType) {
+        if (!logType.isAtLeast(minLogType))
+            return false;
+
+        for (Logger logger : loggerArray) {
+            if (__accepts(logger, logType))
+                return true;
+        }
+
+        return false;
+    }
+
+    /** Loads minimum log type from application properties, if defined. */
+    private void __loadMinLogType(AbstractApplication app) {
+        if (app.getProperty(KEY_MIN_LOG_TYPE, null) != null)
+            setMinLogType(__getEnumProperty(app, LogType.class, KEY_MIN_LOG_TYPE, DEFAULT_MIN_LOG_TYPE));
+    }
+
     @Override
     protected void onStart() {
         super.onStart();
 
         synchronized(this) {
-            for (Logger logger : getLoggers()) {
-                logger.start(getApplication());
+            synchronized(writeLock) {
+                for (Logger logger : getLoggers()) {
+                    logger.start(getApplication());
+                }
             }
+
+            AbstractApplication app = getApplication();
+            __loadMinLogType(app);
+
+            if (app.getProperty(Boolean.class, KEY_ASYNC, DEFAULT_ASYNC)) {
+                AsyncWriter writer = new AsyncWriter(
+                    this,
+                    app.getProperty(Integer.class, KEY_BUFFER_SIZE, DEFAULT_BUFFER_SIZE),
+                    __getEnumProperty(app, WaitStrategy.class, KEY_WAIT_STRATEGY, DEFAULT_WAIT_STRATEGY),
+                    __getEnumProperty(app, OverflowPolicy.class, KEY_OVERFLOW_POLICY, DEFAULT_OVERFLOW_POLICY),
+                    __getEnumProperty(app, LogType.class, KEY_OVERFLOW_MIN_LOG_TYPE, DEFAULT_OVERFLOW_MIN_LOG_TYPE),
+                    app.getProperty(Integer.class, KEY_OVERFLOW_SAMPLE_RATE, DEFAULT_OVERFLOW_SAMPLE_RATE)
+                );
+                writer.__start();
+                asyncWriter = writer;
+            }
+        }
+    }
+
+    @Override
+    protected void onPropertiesChanged(Set<String> changedKeys) {
+        super.onPropertiesChanged(changedKeys);
+
+        if (changedKeys.contains(KEY_MIN_LOG_TYPE))
+            __loadMinLogType(getApplication());
+    }
+
+    private static <E extends Enum<E>> E __getEnumProperty(AbstractApplication app, Class<E> enumClass, String key, E defaultValue) {
+        String value = app.getProperty(key, defaultValue.name()).trim();
+
+        try {
+            return Enum.valueOf(enumClass, value.toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            throw new RuntimeException(String.format("Invalid value for '%s': %s", key, value), ex);
+        }
+    }
+
+    /**
+     * Returns a boolean indicating if messages are written by a background thread (see {@linkplain LogService#KEY_ASYNC}).
+     *
+     * @return a boolean indicating if messages are written by a background thread.
+     */
+    public final boolean isAsync() {
+        return asyncWriter != null;
+    }
+
+    /**
+     * Returns the number of messages discarded because asynchronous buffer was full (see {@linkplain LogService#KEY_OVERFLOW_POLICY}).
+     *
+     * @return the number of discarded messages since service creation.
+     */
+    public final long getDroppedMessageCount() {
+        return droppedCounter.get();
+    }
+
+    /**
+     * Returns the number of messages whose callers waited because asynchronous buffer was full.
+     *
+     * @return the number of messages which waited for room since service creation.
+     */
+    public final long getBlockedMessageCount() {
+        return blockedCounter.get();
+    }
+
+    /**
+     * Returns the number of logger errors which happened while messages were written in background.
+     *
+     * @return the number of logger errors since service creation.
+     */
+    public final long getErrorCount() {
+        return errorCounter.get();
+    }
+
+    /**
+     * Returns the handler of logger errors.
+     *
+     * @return the handler of logger errors or null if errors are only counted.
+     */
+    public final ErrorHandler getErrorHandler() {
+        return errorHandler;
+    }
+
+    /**
+     * Sets the handler notified about logger errors which happen while messages
+     * are written in background (see {@linkplain LogService#getErrorCount()}).
+     *
+     * Errors in synchronous mode are thrown to the caller.
+     *
+     * @param errorHandler error handler (null to only count errors).
+     */
+    public final void setErrorHandler(ErrorHandler errorHandler) {
+        this.errorHandler = errorHandler;
+    }
+
+    /** Counts and reports a logger error which cannot be thrown to the caller. */
+    private void __onError(RuntimeException error) {
+        errorCounter.increment();
+
+        ErrorHandler handler = errorHandler;
+
+        if (handler == null)
+            return;
+
+        try {
+            handler.onError(error);
+        } catch (RuntimeException ex) {
+            // A failing handler must not stop the writer...
         }
     }
 
@@ -292,11 +1082,19 @@ public final class LogService extends Service {
         super.onStop();
 
         synchronized(this) {
-            for (Logger logger : getLoggers()) {
-                logger.stop();
+            AsyncWriter writer = asyncWriter;
+
+            if (writer != null) {
+                asyncWriter = null;
+                writer.__close(); // <-- pending messages are written before loggers stop
             }
-        }
 
+            synchronized(writeLock) {
+                for (Logger logger : getLoggers()) {
+                    logger.stop();
+                }
+            }
+        }
     }
 
     /** Convenience method for log(new Date(), logType, message, msgArgs). */
@@ -307,19 +1105,86 @@ public final class LogService extends Service {
     /**
      * Logs a message.
      *
+     * Message is formatted only if it is accepted (see {@linkplain LogService#isLoggable(LogType)}).
+     *
      * @param timestamp log timestamp.
      * @param logType log type.
      * @param message message to be logged.
      * @param msgArgs message arguments (see {@linkplain String#format(String, Object...)}).
      */
     public void log(Date timestamp, LogType logType, String message, Object...msgArgs) {
-        synchronized(this) {
-            message = msgArgs.length > 0 ? String.format(message, msgArgs) : message;
+        if (!isLoggable(logType))
+            return;
+
+        message = msgArgs.length > 0 ? String.format(message, msgArgs) : message;
+
+        AsyncWriter writer = asyncWriter;
+        AsyncWriter.PublishResult result = writer == null ? AsyncWriter.PublishResult.CLOSED : writer.__publish(timestamp, logType, message);
+
+        if (result == AsyncWriter.PublishResult.DROPPED)
+            return; // <-- counted as a dropped message
 
-            for (Logger logger : getLoggers()) {
+        if (result == AsyncWriter.PublishResult.CLOSED) {
+            synchronized(writeLock) {
+                __write(timestamp, logType, message);
+                __flush(true); // <-- a synchronous write is a batch of its own
+            }
+        }
+
+        messageCounters[logType.ordinal()].increment();
+    }
+
+    /** Delivers a message to loggers (write lock must be held by current thread). */
+    private void __write(Date timestamp, LogType logType, String message) {
+        long t0 = System.nanoTime();
+
+        for (Logger logger : loggerArray) {
+            if (__accepts(logger, logType))
                 logger.log(timestamp, logType, message);
+        }
+
+        writeDuration.recordSince(t0);
+    }
+
+    /**
+     * Notifies loggers about the end of a batch (write lock must be held by current thread).
+     *
+     * @param throwErrors defines if logger errors are thrown to the caller (otherwise, they are reported through {@linkplain LogService#setErrorHandler(ErrorHandler)}).
+     */
+    private void __flush(boolean throwErrors) {
+        for (Logger logger : loggerArray) {
+            if (!(logger instanceof FlushableLogger))
+                continue;
+
+            try {
+                ((FlushableLogger) logger).flush();
+            } catch (RuntimeException ex) {
+                if (throwErrors)
+                    throw ex;
+
+                __onError(ex);
             }
         }
     }
 
+    @Override
+    public void registerMeters(MetricsService metricsService) {
+        for (LogType logType : LogType.values()) {
+            String type = logType.name().toLowerCase();
+            metricsService.register(String.format("log_%s_messages_total", type), String.format("Logged messages of type %s (excluding dropped messages)", logType.name()), messageCounters[logType.ordinal()]);
+        }
+
+        metricsService.register("log_write_duration_seconds", "Time spent writing messages into loggers", writeDuration);
+        metricsService.register("log_dropped_messages_total", "Messages discarded because asynchronous buffer was full", droppedCounter);
+        metricsService.register("log_blocked_messages_total", "Messages whose callers waited because asynchronous buffer was full", blockedCounter);
+        metricsService.register("log_errors_total", "Logger errors which happened while messages were written in background", errorCounter);
+        metricsService.register("log_pending_messages", "Messages waiting to be written by asynchronous writer", new MetricsService.Gauge() {
+            @Override
+            public double getValue() {
+                AsyncWriter writer = asyncWriter;
+                return writer == null ? 0 : writer.__getPendingCount();
+            }
+        });
+    }
+
 }
@@ -0,0 +1,533 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.web.toolkit.services;
+
+import com.agapsys.web.toolkit.Service;
+import com.agapsys.web.toolkit.utils.StripedCounter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.regex.Pattern;
+
+/**
+ * Application metrics.
+ *
+ * Metrics are exposed in Prometheus text format (see {@linkplain MetricsService#write(Writer)}).
+ * When this service is registered, built-in services (see {@linkplain Instrumented})
+ * register their own meters upon start.
+ */
+public class MetricsService extends Service {
+
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    /** Content type of Prometheus text format. */
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final Pattern NAME_PATTERN = Pattern.compile("^[a-zA-Z_:][a-zA-Z0-9_:]*$");
+
+    /** Service which registers its own meters when a metrics service is available. */
+    public static interface Instrumented {
+
+        /**
+         * Registers service meters.
+         *
+         * @param metricsService metrics service.
+         */
+        public void registerMeters(MetricsService metricsService);
+    }
+
+    /** Monotonic counter. */
+    public static final class Counter {
+        private final StripedCounter value = new StripedCounter();
+
+        /** Increments this counter. */
+        public void increment() {
+            value.increment();
+        }
+
+        /**
+         * Adds given value to this counter.
+         *
+         * @param delta value to be added (must be non-negative).
+         */
+        public void add(long delta) {
+            if (delta < 0)
+                throw new IllegalArgumentException("Counter cannot be decreased: " + delta);
+
+            value.add(delta);
+        }
+
+        /**
+         * Returns counter value.
+         *
+         * @return counter value.
+         */
+        public long get() {
+            return value.sum();
+        }
+    }
+
+    /** Value sampled when metrics are read. */
+    public static interface Gauge {
+
+        /**
+         * Returns current value.
+         *
+         * @return current value.
+         */
+        public double getValue();
+    }
+
+    /**
+     * Histogram of durations.
+     *
+     * Durations are recorded in nanoseconds into log-linear buckets (each
+     * power of two is split into {@value Histogram#SUB_BUCKET_COUNT} buckets)
+     * ranging from about one microsecond to about half a minute, so recording
+     * takes constant time and percentiles are reported with a relative error
+     * of at most 12.5%.
+     *
+     * Only a coarse subset of bucket bounds is exported, so the number of
+     * exported series stays low: by default, every other power of two (from
+     * about one microsecond to about 17 seconds), or the bounds given to
+     * {@linkplain Histogram#Histogram(long...)}.
+     * Durations are exposed in seconds.
+     */
+    public static final class Histogram {
+        private static final int SUB_BUCKET_BITS  = 3;
+        private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+        private static final int MIN_EXPONENT     = 10; // <-- 1024 ns
+        private static final int MAX_EXPONENT     = 35; // <-- ~34 s
+
+        /** Upper bounds (in nanoseconds) of finite buckets. */
+        private static final long[] BOUNDS;
+
+        static {
+            BOUNDS = new long[1 + (MAX_EXPONENT - MIN_EXPONENT) * SUB_BUCKET_COUNT];
+            BOUNDS[0] = 1L << MIN_EXPONENT;
+
+            int i = 1;
+            for (int exponent = MIN_EXPONENT; exponent < MAX_EXPONENT; exponent++) {
+                long base = 1L << exponent;
+
+                for (int sub = 1; sub <= SUB_BUCKET_COUNT; sub++) {
+                    BOUNDS[i++] = base + sub * (base >> SUB_BUCKET_BITS);
+                }
+            }
+        }
+
+        /** Exported buckets used by default (every other power of two). */
+        private static final int[] DEFAULT_EXPORTED_BUCKETS;
+
+        static {
+            DEFAULT_EXPORTED_BUCKETS = new int[(MAX_EXPONENT - MIN_EXPONENT) / 2 + 1];
+
+            for (int i = 0; i < DEFAULT_EXPORTED_BUCKETS.length; i++) {
+                DEFAULT_EXPORTED_BUCKETS[i] = 2 * i * SUB_BUCKET_COUNT; // <-- bucket whose upper bound is 2^(MIN_EXPONENT + 2 * i)
+            }
+        }
+
+        private static int __getBucket(long nanos) {
+            if (nanos <= BOUNDS[0])
+                return 0;
+
+            int exponent = 63 - Long.numberOfLeadingZeros(nanos - 1);
+
+            if (exponent >= MAX_EXPONENT)
+                return BOUNDS.length; // <-- overflow bucket
+
+            int sub = (int) ((nanos - 1) >> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+            return 1 + (exponent - MIN_EXPONENT) * SUB_BUCKET_COUNT + sub;
+        }
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BOUNDS.length + 1);
+        private final StripedCounter  count   = new StripedCounter();
+        private final StripedCounter  sum     = new StripedCounter();
+        private final int[]           exportedBuckets;
+
+        /** Creates a histogram exporting default bounds. */
+        public Histogram() {
+            exportedBuckets = DEFAULT_EXPORTED_BUCKETS;
+        }
+
+        /**
+         * Creates a histogram exporting given bounds.
+         *
+         * Each bound is rounded up to the nearest bucket bound, which is the
+         * value exported as "le" label. Bounds beyond histogram range are
+         * covered by "+Inf" bucket.
+         *
+         * @param exportedBounds upper bounds (in nanoseconds) of exported buckets.
+         */
+        public Histogram(long...exportedBounds) {
+            if (exportedBounds == null)
+                throw new IllegalArgumentException("Exported bounds cannot be null");
+
+            SortedSet<Integer> bucketSet = new TreeSet<>();
+
+            for (long bound : exportedBounds) {
+                if (bound <= 0)
+                    throw new IllegalArgumentException("Invalid bound: " + bound);
+
+                int bucket = __getBucket(bound);
+
+                if (bucket < BOUNDS.length)
+                    bucketSet.add(bucket);
+            }
+
+            exportedBuckets = new int[bucketSet.size()];
+
+            int i = 0;
+            for (int bucket : bucketSet) {
+                exportedBuckets[i++] = bucket;
+            }
+        }
+
+        /**
+         * Records a duration.
+         *
+         * @param nanos duration in nanoseconds.
+         */
+        public void record(long nanos) {
+            if (nanos < 0)
+                nanos = 0;
+
+            buckets.incrementAndGet(__getBucket(nanos));
+            sum.add(nanos);
+            count.increment();
+        }
+
+        /**
+         * Records the time elapsed since given instant.
+         *
+         * @param startNanos instant obtained through {@linkplain System#nanoTime()}.
+         */
+        public void recordSince(long startNanos) {
+            record(System.nanoTime() - startNanos);
+        }
+
+        /**
+         * Returns the number of recorded durations.
+         *
+         * @return the number of recorded durations.
+         */
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * Returns the sum of recorded durations.
+         *
+         * @return the sum (in nanoseconds) of recorded durations.
+         */
+        public long getSum() {
+            return sum.sum();
+        }
+
+        /**
+         * Returns an approximation of the duration at given percentile.
+         *
+         * @param percentile percentile (between 0 and 100).
+         * @return upper bound (in nanoseconds) of the bucket containing given percentile,
+         * {@linkplain Long#MAX_VALUE} if it is beyond histogram range, or 0 if there are no recorded durations.
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (percentile < 0 || percentile > 100)
+                throw new IllegalArgumentException("Invalid percentile: " + percentile);
+
+            long[] snapshot = __getSnapshot();
+            long total = 0;
+
+            for (long bucketCount : snapshot) {
+                total += bucketCount;
+            }
+
+            if (total == 0)
+                return 0;
+
+            long target = Math.max(1, (long) Math.ceil(total * percentile / 100));
+            long cumulative = 0;
+
+            for (int i = 0; i < BOUNDS.length; i++) {
+                cumulative += snapshot[i];
+
+                if (cumulative >= target)
+                    return BOUNDS[i];
+            }
+
+            return Long.MAX_VALUE;
+        }
+
+        private long[] __getSnapshot() {
+            long[] snapshot = new long[buckets.length()];
+
+            for (int i = 0; i < snapshot.length; i++) {
+                snapshot[i] = buckets.get(i);
+            }
+
+            return snapshot;
+        }
+
+        private void __write(Writer writer, String name) throws IOException {
+            long[] snapshot = __getSnapshot();
+            long cumulative = 0;
+            int exported = 0;
+
+            for (int i = 0; i < BOUNDS.length; i++) {
+                cumulative += snapshot[i];
+
+                if (exported < exportedBuckets.length && exportedBuckets[exported] == i) {
+                    writer.write(String.format("%s_bucket{le=\"%s\"} %d\n", name, __formatDouble(BOUNDS[i] / 1e9), cumulative));
+                    exported++;
+                }
+            }
+
+            cumulative += snapshot[BOUNDS.length];
+            writer.write(String.format("%s_bucket{le=\"+Inf\"} %d\n", name, cumulative));
+            writer.write(String.format("%s_sum %s\n", name, __formatDouble(getSum() / 1e9)));
+            writer.write(String.format("%s_count %d\n", name, cumulative));
+        }
+    }
+
+    private static final class Entry {
+        private final String name;
+        private final String help;
+        private final Object meter;
+
+        private Entry(String name, String help, Object meter) {
+            this.name = name;
+            this.help = help;
+            this.meter = meter;
+        }
+
+        private String __getType() {
+            if (meter instanceof Counter)
+                return "counter";
+
+            if (meter instanceof Histogram)
+                return "histogram";
+
+            return "gauge";
+        }
+    }
+
+    private static String __formatDouble(double value) {
+        if (Double.isNaN(value))
+            return "NaN";
+
+        if (Double.isInfinite(value))
+            return value > 0 ? "+Inf" : "-Inf";
+
+        if (value == Math.rint(value) && Math.abs(value) < 1e15)
+            return Long.toString((long) value);
+
+        return Double.toString(value);
+    }
+
+    private static String __escapeHelp(String help) {
+        return help.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+
+    /**
+     * Registers the meters of given service if there is a metrics service registered in its application.
+     *
+     * @param service instrumented service.
+     */
+    public static void registerMeters(Service service) {
+        if (!(service instanceof Instrumented))
+            throw new IllegalArgumentException("Service is not instrumented: " + service.getClass().getName());
+
+        MetricsService metricsService = service.getService(MetricsService.class, false);
+
+        if (metricsService != null)
+            ((Instrumented) service).registerMeters(metricsService);
+    }
+    // =========================================================================
+    // </editor-fold>
+
+    private final ConcurrentMap<String, Entry> entryMap = new ConcurrentSkipListMap<>();
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+
+        // Log service cannot look up this service during its start (this service logs its own start)...
+        LogService logService = getService(LogService.class, false);
+
+        if (logService != null)
+            logService.registerMeters(this);
+    }
+
+    private static Entry __newEntry(String name, String help, Object meter) {
+        if (name == null || !NAME_PATTERN.matcher(name).matches())
+            throw new IllegalArgumentException("Invalid metric name: " + name);
+
+        if (meter == null)
+            throw new IllegalArgumentException("Meter cannot be null");
+
+        return new Entry(name, help == null ? "" : help, meter);
+    }
+
+    private void __register(String name, String help, Object meter) {
+        entryMap.put(name, __newEntry(name, help, meter));
+    }
+
+    /**
+     * Registers a counter. An existing metric with the same name is replaced.
+     *
+     * @param name metric name (by convention, counter names end with "_total").
+     * @param help metric description.
+     * @param counter counter.
+     */
+    public void register(String name, String help, Counter counter) {
+        __register(name, help, counter);
+    }
+
+    /**
+     * Registers a gauge. An existing metric with the same name is replaced.
+     *
+     * @param name metric name.
+     * @param help metric description.
+     * @param gauge gauge.
+     */
+    public void register(String name, String help, Gauge gauge) {
+        __register(name, help, gauge);
+    }
+
+    /**
+     * Registers a histogram. An existing metric with the same name is replaced.
+     *
+     * @param name metric name (by convention, duration histogram names end with "_seconds").
+     * @param help metric description.
+     * @param histogram histogram.
+     */
+    public void register(String name, String help, Histogram histogram) {
+        __register(name, help, histogram);
+    }
+
+    private <M> M __getOrRegister(String name, String help, Class<M> meterClass, M newMeter) {
+        Entry entry = entryMap.get(name);
+
+        if (entry == null) {
+            Entry newEntry = __newEntry(name, help, newMeter);
+            Entry existing = entryMap.putIfAbsent(name, newEntry);
+            entry = existing != null ? existing : newEntry;
+        }
+
+        if (!meterClass.isInstance(entry.meter))
+            throw new IllegalArgumentException(String.format("Metric '%s' is not a %s", name, meterClass.getSimpleName()));
+
+        return (M) entry.meter;
+    }
+
+    /**
+     * Returns the counter registered with given name, registering a new one if there is no such counter.
+     *
+     * @param name metric name.
+     * @param help metric description (used only if counter is created).
+     * @return registered counter.
+     */
+    public Counter counter(String name, String help) {
+        return __getOrRegister(name, help, Counter.class, new Counter());
+    }
+
+    /**
+     * Returns the histogram registered with given name, registering a new one if there is no such histogram.
+     *
+     * @param name metric name.
+     * @param help metric description (used only if histogram is created).
+     * @return registered histogram.
+     */
+    public Histogram histogram(String name, String help) {
+        return __getOrRegister(name, help, Histogram.class, new Histogram());
+    }
+
+    /**
+     * Removes a metric.
+     *
+     * @param name metric name.
+     */
+    public void unregister(String name) {
+        entryMap.remove(name);
+    }
+
+    /**
+     * Returns the meter registered with given name.
+     *
+     * @param name metric name.
+     * @return registered meter ({@linkplain Counter}, {@linkplain Gauge} or {@linkplain Histogram}) or null if there is no such metric.
+     */
+    public Object getMeter(String name) {
+        Entry entry = entryMap.get(name);
+        return entry == null ? null : entry.meter;
+    }
+
+    /**
+     * Writes registered metrics in Prometheus text format.
+     *
+     * @param writer destination writer.
+     * @throws IOException if an error happened while writing.
+     */
+    public void write(Writer writer) throws IOException {
+        for (Entry entry : entryMap.values()) {
+            if (!entry.help.isEmpty())
+                writer.write(String.format("# HELP %s %s\n", entry.name, __escapeHelp(entry.help)));
+
+            writer.write(String.format("# TYPE %s %s\n", entry.name, entry.__getType()));
+
+            if (entry.meter instanceof Counter) {
+                writer.write(String.format("%s %d\n", entry.name, ((Counter) entry.meter).get()));
+            } else if (entry.meter instanceof Histogram) {
+                ((Histogram) entry.meter).__write(writer, entry.name);
+            } else {
+                double value;
+
+                try {
+                    value = ((Gauge) entry.meter).getValue();
+                } catch (RuntimeException ex) {
+                    value = Double.NaN;
+                }
+
+                writer.write(String.format("%s %s\n", entry.name, __formatDouble(value)));
+            }
+        }
+
+        writer.flush();
+    }
+
+    /**
+     * Returns registered metrics in Prometheus text format.
+     *
+     * @return registered metrics in Prometheus text format.
+     */
+    public String toPrometheusText() {
+        StringWriter writer = new StringWriter();
+
+        try {
+            write(writer);
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+
+        return writer.toString();
+    }
+
+}
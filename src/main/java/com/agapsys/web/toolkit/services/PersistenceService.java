@@ -31,7 +31,7 @@ import javax.persistence.Persistence;
 /**
  * Represents a JPA persistence service.
  */
-public class PersistenceService extends Service {
+public class PersistenceService extends Service implements MetricsService.Instrumented {
 
     // <editor-fold desc="STATIC SCOPE">
     // =========================================================================
@@ -42,24 +42,40 @@ public class PersistenceService extends Service {
     public static interface EmFactory {
         public EntityManager getInstance();
     }
+
+    /**
+     * Unit of work performed with an entity manager (see {@linkplain PersistenceService#withEntityManager(EmCallback)}).
+     *
+     * @param <T> result type.
+     */
+    public static interface EmCallback<T> {
+        public T call(EntityManager em);
+    }
     // =========================================================================
     // </editor-fold>
 
     private final String persistenceUnitName;
 
+    private final MetricsService.Counter entityManagerCounter = new MetricsService.Counter();
+
     private final EmFactory defaultFactory = new EmFactory() {
 
         @Override
         public EntityManager getInstance() {
-            EntityManager em = emf.createEntityManager();
+            EntityManagerFactory mEmf = emf;
+
+            if (mEmf == null)
+                throw new IllegalStateException("Service is not running");
+
+            EntityManager em = mEmf.createEntityManager();
             em.setFlushMode(FlushModeType.COMMIT);
             return em;
         }
 
     };
 
-    private EntityManagerFactory emf = null;
-    private EmFactory emFactory = null;
+    private volatile EntityManagerFactory emf = null;
+    private volatile EmFactory emFactory = null;
 
     /**
      * Default constructor.
@@ -146,6 +162,13 @@ public class PersistenceService extends Service {
 
             emf = Persistence.createEntityManagerFactory(getPersistenceUnitName(), emfProperties);
         }
+
+        MetricsService.registerMeters(this);
+    }
+
+    @Override
+    public void registerMeters(MetricsService metricsService) {
+        metricsService.register(String.format("persistence_%s_entity_managers_total", getPersistenceUnitName().replaceAll("[^a-zA-Z0-9_]", "_")), String.format("Entity managers created for persistence unit '%s'", getPersistenceUnitName()), entityManagerCounter);
     }
 
     @Override
@@ -158,6 +181,14 @@ public class PersistenceService extends Service {
         }
     }
 
+    @Override
+    protected void onWarmUp() {
+        super.onWarmUp();
+
+        // Forces lazy initialization performed by the provider upon first entity manager creation.
+        getEntityManager().close();
+    }
+
     /**
      * Returns the EmFactory instance to be used by this service.
      *
@@ -168,6 +199,11 @@ public class PersistenceService extends Service {
     }
 
     private EmFactory __getEmFactory() {
+        EmFactory mEmFactory = emFactory;
+
+        if (mEmFactory != null)
+            return mEmFactory;
+
         synchronized(this) {
             if (emFactory == null) {
                 emFactory = getEmFactory();
@@ -177,18 +213,62 @@ public class PersistenceService extends Service {
         }
     }
 
+    /** Creates an entity manager (a call must be in progress). */
+    private EntityManager __createEntityManager() {
+        EntityManager em = __getEmFactory().getInstance();
+        entityManagerCounter.increment();
+        return em;
+    }
+
     /**
      * Returns an entity manager to be used by application.
      *
+     * Only the creation of the entity manager counts as a call in progress
+     * (see {@linkplain Service#beginCall()}): service stop does not wait for
+     * returned instance to be closed. Use {@linkplain PersistenceService#withEntityManager(EmCallback)}
+     * for work which must not overlap a service restart.
+     *
      * @return an entity manager to be used by application.
      */
     public final EntityManager getEntityManager() {
-        synchronized(this) {
-            if (!isRunning())
-                throw new IllegalStateException("Service is not running");
+        beginCall();
+
+        try {
+            return __createEntityManager();
+        } finally {
+            endCall();
+        }
+    }
 
-            return __getEmFactory().getInstance();
+    /**
+     * Performs given unit of work with a new entity manager, closing it afterwards.
+     *
+     * The whole unit of work counts as a call in progress (see {@linkplain Service#beginCall()}),
+     * so service stop (or restart) waits for it instead of closing the factory
+     * underneath an active transaction.
+     *
+     * @param <T> result type.
+     * @param callback unit of work.
+     * @return value returned by given callback.
+     */
+    public final <T> T withEntityManager(EmCallback<T> callback) {
+        if (callback == null)
+            throw new IllegalArgumentException("Callback cannot be null");
+
+        beginCall();
+
+        try {
+            EntityManager em = __createEntityManager();
+
+            try {
+                return callback.call(em);
+            } finally {
+                if (em != null)
+                    em.close();
+            }
+        } finally {
+            endCall();
         }
     }
 
-}
\ No newline at end of file
+}
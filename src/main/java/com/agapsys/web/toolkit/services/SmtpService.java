@@ -24,11 +24,12 @@ import com.agapsys.mail.SmtpSettings;
 import com.agapsys.web.toolkit.AbstractApplication;
 import com.agapsys.web.toolkit.Service;
 import java.util.Objects;
+import java.util.Set;
 import javax.mail.MessagingException;
 import javax.mail.internet.AddressException;
 import javax.mail.internet.InternetAddress;
 
-public class SmtpService extends Service {
+public class SmtpService extends Service implements MetricsService.Instrumented {
 
     // <editor-fold desc="STATIC SCOPE">
     // =========================================================================
@@ -74,6 +75,10 @@ public class SmtpService extends Service {
     private SmtpSender      smtpSender = null;
     private InternetAddress sender     = null;
 
+    private final MetricsService.Counter   sentCounter  = new MetricsService.Counter();
+    private final MetricsService.Counter   errorCounter = new MetricsService.Counter();
+    private final MetricsService.Histogram sendDuration = new MetricsService.Histogram();
+
     public SmtpService() {
         __reset();
     }
@@ -100,22 +105,60 @@ public class SmtpService extends Service {
         return new SmtpSender(smtpSettings);
     }
 
+    /**
+     * Loads settings from application properties.
+     *
+     * Every property is parsed before current settings are replaced, so an
+     * invalid value leaves current settings untouched.
+     */
+    private void __loadSettings() {
+        AbstractApplication app = getApplication();
+
+        String          mServer       = app.getProperty(KEY_SERVER,    DEFAULT_SERVER);
+        boolean         mAuthEnabled  = app.getProperty(Boolean.class, KEY_AUTH_ENABLED, DEFAULT_AUTH_ENABLED);
+        String          mUsername     = app.getProperty(KEY_USERNAME,  DEFAULT_USERNAME);
+        int             mPort         = app.getProperty(Integer.class, KEY_PORT, DEFAULT_PORT);
+        SecurityType    mSecurityType = SecurityType.valueOf(app.getProperty(KEY_SECURITY_TYPE, DEFAULT_SECURITY_TYPE.name()));
+        InternetAddress mSender       = __getSenderFromString(app.getProperty(KEY_SENDER, DEFAULT_SENDER));
+
+        server       = mServer;
+        authEnabled  = mAuthEnabled;
+        username     = mUsername;
+        port         = mPort;
+        securityType = mSecurityType;
+        sender       = mSender;
+        smtpSender   = null; // <-- sender will be re-created on next message
+    }
+
     @Override
     protected void onStart() {
         super.onStart();
 
         synchronized(this) {
-            __reset();
+            __loadSettings();
+        }
 
-            AbstractApplication app = getApplication();
+        MetricsService.registerMeters(this);
+    }
 
-            server       = app.getProperty(KEY_SERVER,    DEFAULT_SERVER);
-            authEnabled  = app.getProperty(Boolean.class, KEY_AUTH_ENABLED, DEFAULT_AUTH_ENABLED);
-            username     = app.getProperty(KEY_USERNAME,  DEFAULT_USERNAME);
-            port         = app.getProperty(Integer.class, KEY_PORT, DEFAULT_PORT);
+    @Override
+    public void registerMeters(MetricsService metricsService) {
+        metricsService.register("smtp_messages_sent_total", "Sent messages", sentCounter);
+        metricsService.register("smtp_errors_total", "Errors sending messages", errorCounter);
+        metricsService.register("smtp_send_duration_seconds", "Message sending time", sendDuration);
+    }
 
-            securityType = SecurityType.valueOf(app.getProperty(KEY_SECURITY_TYPE, DEFAULT_SECURITY_TYPE.name()));
-            sender = __getSenderFromString(app.getProperty(KEY_SENDER, DEFAULT_SENDER));
+    @Override
+    protected void onPropertiesChanged(Set<String> changedKeys) {
+        super.onPropertiesChanged(changedKeys);
+
+        for (String key : changedKeys) {
+            if (key.startsWith(PROPERTY_PREFIX)) {
+                synchronized(this) {
+                    __loadSettings();
+                }
+                return;
+            }
         }
     }
 
@@ -235,30 +278,58 @@ public class SmtpService extends Service {
     /**
      * Sends an email message.
      *
+     * Service lock is not held while the message is sent, so settings can be
+     * changed (or reloaded) meanwhile. Messages sent through the same SMTP
+     * sender are sent one at a time.
+     *
      * @param message message to be sent.
      * @throws MessagingException if an error happened during the process
      */
     public void sendMessage(Message message) throws MessagingException {
-        synchronized(this) {
-            if (message == null)
-                throw new IllegalArgumentException("null message");
+        if (message == null)
+            throw new IllegalArgumentException("null message");
+
+        beginCall();
+        long t0 = System.nanoTime();
+        boolean sent = false;
+
+        try {
+            InternetAddress mSender;
+            SmtpSender mSmtpSender;
+
+            synchronized(this) {
+                mSender = sender;
 
-            if (!isRunning())
-                throw new IllegalStateException("Service is not running");
+                if (smtpSender == null)
+                    smtpSender = __getSmtpSender();
+
+                mSmtpSender = smtpSender;
+            }
 
             // Forces sender address if message's address not equals to application default sender.
-            if (!message.getSenderAddress().equals(getSender())) {
-                message = new MessageBuilder(getSender(), message.getRecipients().toArray(new InternetAddress[message.getRecipients().size()]))
+            if (!message.getSenderAddress().equals(mSender)) {
+                message = new MessageBuilder(mSender, message.getRecipients().toArray(new InternetAddress[message.getRecipients().size()]))
                     .setCharset(message.getCharset())
                     .setMimeSubtype(message.getMimeSubtype())
                     .setSubject(message.getSubject())
                     .setText(message.getText()).build();
             }
 
-            if (smtpSender == null)
-                smtpSender = __getSmtpSender();
+            synchronized(mSmtpSender) {
+                mSmtpSender.sendMessage(message); // <-- a replaced sender does not block messages sent through the new one
+            }
+
+            sent = true;
+        } finally {
+            sendDuration.recordSince(t0);
+
+            if (sent) {
+                sentCounter.increment();
+            } else {
+                errorCounter.increment();
+            }
 
-            smtpSender.sendMessage(message);
+            endCall();
         }
     }
 }
@@ -35,7 +35,7 @@ import org.apache.commons.fileupload.servlet.ServletFileUpload;
 /**
  * Upload service.
  */
-public class UploadService extends Service {
+public class UploadService extends Service implements MetricsService.Instrumented {
     
     // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
     public static final long DEFAULT_TOTAL_MAX_SIZE    = -1;        // No limit
@@ -59,6 +59,23 @@ public class UploadService extends Service {
     // </editor-fold>
     
     private ServletFileUpload uploadServlet;
+
+    private final MetricsService.Counter requestCounter = new MetricsService.Counter();
+    private final MetricsService.Counter fileCounter    = new MetricsService.Counter();
+    private final MetricsService.Counter errorCounter   = new MetricsService.Counter();
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        MetricsService.registerMeters(this);
+    }
+
+    @Override
+    public void registerMeters(MetricsService metricsService) {
+        metricsService.register("upload_requests_total", "Processed upload requests", requestCounter);
+        metricsService.register("upload_files_total", "Received files", fileCounter);
+        metricsService.register("upload_errors_total", "Rejected or failed upload requests", errorCounter);
+    }
     
     private synchronized void __int() {
         if (uploadServlet == null) {
@@ -198,6 +215,9 @@ public class UploadService extends Service {
         if (!ServletFileUpload.isMultipartContent(req)) 
             throw new IllegalArgumentException("Request is not multipart/form-data");
 
+        requestCounter.increment();
+        boolean received = false;
+
         try {
             List<ReceivedFile> recvFiles = new LinkedList<>();
             
@@ -235,7 +255,9 @@ public class UploadService extends Service {
                 sessionRecvFiles.addAll(recvFiles);
                 persistSessionFiles(req, resp, sessionRecvFiles);
             }
-            
+
+            fileCounter.add(recvFiles.size());
+            received = true;
             return recvFiles;
 
         } catch(FileUploadException ex) {
@@ -245,6 +267,9 @@ public class UploadService extends Service {
                 throw new RuntimeException(ex);
         } catch (UnsupportedEncodingException ex) {
             throw new RuntimeException(ex);
+        } finally {
+            if (!received)
+                errorCounter.increment();
         }
     }
 
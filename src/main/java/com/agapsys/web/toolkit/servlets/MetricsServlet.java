@@ -0,0 +1,54 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.agapsys.web.toolkit.servlets;
+
+import com.agapsys.web.toolkit.AbstractApplication;
+import com.agapsys.web.toolkit.AbstractWebApplication;
+import com.agapsys.web.toolkit.services.MetricsService;
+import java.io.IOException;
+import java.io.PrintWriter;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Exposes the meters registered in {@linkplain MetricsService} using Prometheus text format.
+ *
+ * If running application does not register a {@linkplain MetricsService}, requests are answered with 404 (Not found).
+ */
+public class MetricsServlet extends HttpServlet {
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        AbstractApplication app = AbstractWebApplication.getRunningInstance(getServletContext());
+        MetricsService metricsService = (app != null ? app.getService(MetricsService.class, false) : null);
+
+        if (metricsService == null) {
+            resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        resp.setContentType(MetricsService.CONTENT_TYPE);
+        resp.setHeader("Cache-Control", "no-cache");
+
+        PrintWriter writer = resp.getWriter();
+        metricsService.write(writer);
+        writer.flush();
+    }
+
+}
@@ -28,11 +28,15 @@ import java.util.TimeZone;
 public class DateUtils {
     protected DateUtils() {}
 
-    private static final DateFormat ISO8601_FORMATTER = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS'Z'");
-
-    static {
-        ISO8601_FORMATTER.setTimeZone(TimeZone.getTimeZone("UTC"));
-    }
+    /** SimpleDateFormat is not thread-safe, so each thread uses its own instance. */
+    private static final ThreadLocal<DateFormat> ISO8601_FORMATTER = new ThreadLocal<DateFormat>() {
+        @Override
+        protected DateFormat initialValue() {
+            DateFormat formatter = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS'Z'");
+            formatter.setTimeZone(TimeZone.getTimeZone("UTC"));
+            return formatter;
+        }
+    };
 
     public static String getIso8601Date() {
         return getIso8601Date(new Date());
@@ -44,7 +48,7 @@ public class DateUtils {
      * @return ISO representation of given date.
      */
     public static String getIso8601Date(Date date) {
-        return ISO8601_FORMATTER.format(date);
+        return ISO8601_FORMATTER.get().format(date);
     }
 
     /**
@@ -54,7 +58,7 @@ public class DateUtils {
      * @throws ParseException if given string is an invalid date.
      */
     public static Date getDateFromIso(String isoDate) throws ParseException {
-        return ISO8601_FORMATTER.parse(isoDate);
+        return ISO8601_FORMATTER.get().parse(isoDate);
     }
 
     /**
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.web.toolkit.utils;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded pool of objects.
+ *
+ * Objects are created on demand (up to pool capacity) and reused after
+ * being returned. Borrowers wait while all objects are in use.
+ *
+ * @param <T> pooled object type.
+ */
+public class ObjectPool<T> {
+
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    /**
+     * Creates and destroys pooled objects.
+     *
+     * @param <T> pooled object type.
+     */
+    public static interface ObjectFactory<T> {
+
+        /**
+         * Creates an object.
+         *
+         * @return created object.
+         */
+        public T create();
+
+        /**
+         * Destroys an object which will not be used anymore.
+         *
+         * @param obj object to be destroyed.
+         */
+        public void destroy(T obj);
+    }
+    // =========================================================================
+    // </editor-fold>
+
+    private final ObjectFactory<T>         factory;
+    private final int                      capacity;
+    private final Semaphore                permits;
+    private final ConcurrentLinkedDeque<T> idleObjects = new ConcurrentLinkedDeque<>();
+
+    private volatile boolean closed = false;
+
+    /**
+     * Constructor.
+     *
+     * @param factory factory used to create and destroy pooled objects.
+     * @param capacity maximum number of objects.
+     */
+    public ObjectPool(ObjectFactory<T> factory, int capacity) {
+        if (factory == null)
+            throw new IllegalArgumentException("Factory cannot be null");
+
+        if (capacity < 1)
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+
+        this.factory = factory;
+        this.capacity = capacity;
+        this.permits = new Semaphore(capacity, true);
+    }
+
+    /**
+     * Returns pool capacity.
+     *
+     * @return maximum number of objects.
+     */
+    public final int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of objects which are available to be borrowed without creation.
+     *
+     * @return the number of objects which are available to be borrowed without creation.
+     */
+    public int getIdleCount() {
+        return idleObjects.size();
+    }
+
+    /**
+     * Returns the number of objects which can be borrowed without waiting.
+     *
+     * @return the number of objects which can be borrowed without waiting.
+     */
+    public int getAvailableCount() {
+        return permits.availablePermits();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    private T __borrow() {
+        if (closed) {
+            permits.release();
+            throw new IllegalStateException("Pool is closed");
+        }
+
+        T obj = idleObjects.pollFirst();
+
+        if (obj != null)
+            return obj;
+
+        try {
+            obj = factory.create();
+        } catch (RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+
+        if (obj == null) {
+            permits.release();
+            throw new RuntimeException("Factory returned null");
+        }
+
+        return obj;
+    }
+
+    /**
+     * Borrows an object, waiting while all objects are in use.
+     *
+     * Borrowed object must be given back through {@linkplain ObjectPool#returnObject(Object)}
+     * or {@linkplain ObjectPool#invalidate(Object)}.
+     *
+     * @return borrowed object.
+     * @throws InterruptedException if current thread was interrupted while waiting.
+     */
+    public T borrow() throws InterruptedException {
+        permits.acquire();
+        return __borrow();
+    }
+
+    /**
+     * Borrows an object, waiting up to given time while all objects are in use.
+     *
+     * @param timeout maximum time to wait.
+     * @param unit time unit of timeout argument.
+     * @return borrowed object or null if timeout elapsed before an object was available.
+     * @throws InterruptedException if current thread was interrupted while waiting.
+     */
+    public T borrow(long timeout, TimeUnit unit) throws InterruptedException {
+        if (!permits.tryAcquire(timeout, unit))
+            return null;
+
+        return __borrow();
+    }
+
+    /**
+     * Gives back a borrowed object.
+     *
+     * @param obj borrowed object.
+     */
+    public void returnObject(T obj) {
+        if (obj == null)
+            throw new IllegalArgumentException("Object cannot be null");
+
+        if (closed) {
+            factory.destroy(obj);
+        } else {
+            idleObjects.offerFirst(obj); // <-- most recently used objects are reused first
+
+            if (closed && idleObjects.remove(obj))
+                factory.destroy(obj);
+        }
+
+        permits.release();
+    }
+
+    /**
+     * Gives back a borrowed object which must not be reused (e.g. a broken connection).
+     *
+     * @param obj borrowed object.
+     */
+    public void invalidate(T obj) {
+        if (obj == null)
+            throw new IllegalArgumentException("Object cannot be null");
+
+        try {
+            factory.destroy(obj);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Closes this pool.
+     *
+     * Idle objects are destroyed. Objects borrowed before this call are destroyed when they are given back.
+     */
+    public void close() {
+        closed = true;
+
+        T obj;
+        while ((obj = idleObjects.pollFirst()) != null) {
+            factory.destroy(obj);
+        }
+    }
+
+}
@@ -15,13 +15,22 @@
  */
 package com.agapsys.web.toolkit.utils;
 
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Singleton manager.
@@ -33,30 +42,297 @@ public class SingletonManager<T> {
     // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
     // =========================================================================
     /**
-     * Returns an object instance of a given class using its default constructor.
+     * Creates instances of a class.
      *
-     * @param <I> instance type
-     * @param clazz instance class.
-     * @return an object instance of a given class using its default constructor.
+     * @param <I> instance type.
+     */
+    public static interface InstanceFactory<I> {
+
+        /**
+         * Returns the classes of the managed instances required to create an instance.
+         *
+         * @return the classes of the managed instances required to create an
+         * instance (they will be passed to {@linkplain InstanceFactory#newInstance(Object...)} in the same order).
+         */
+        public Class<?>[] getDependencies();
+
+        /**
+         * Creates an instance.
+         *
+         * @param dependencies managed instances (see {@linkplain InstanceFactory#getDependencies()}).
+         * @return created instance.
+         */
+        public I newInstance(Object...dependencies);
+    }
+
+    /** Factory which invokes a public constructor through a cached method handle. */
+    private static class ConstructorFactory implements InstanceFactory<Object> {
+        private final Class<?>     clazz;
+        private final Class<?>[]   dependencies;
+        private final MethodHandle constructor; // <-- (Object[])Object
+
+        private ConstructorFactory(Class<?> clazz, Constructor<?> constructor) throws IllegalAccessException {
+            this.clazz = clazz;
+            this.dependencies = constructor.getParameterTypes();
+            this.constructor = MethodHandles.publicLookup().unreflectConstructor(constructor)
+                .asSpreader(Object[].class, dependencies.length)
+                .asType(MethodType.methodType(Object.class, Object[].class));
+        }
+
+        @Override
+        public Class<?>[] getDependencies() {
+            return dependencies.clone();
+        }
+
+        @Override
+        public Object newInstance(Object...dependencies) {
+            try {
+                return (Object) constructor.invokeExact(dependencies);
+            } catch (Error ex) {
+                throw ex;
+            } catch (Throwable ex) {
+                throw new RuntimeException(String.format("Error instantiating class: '%s'", clazz), ex);
+            }
+        }
+    }
+
+    /** Factory of a class which cannot be instantiated. */
+    private static class ErrorFactory implements InstanceFactory<Object> {
+        private final Class<?>  clazz;
+        private final Exception cause;
+
+        private ErrorFactory(Class<?> clazz, Exception cause) {
+            this.clazz = clazz;
+            this.cause = cause;
+        }
+
+        @Override
+        public Class<?>[] getDependencies() {
+            return new Class<?>[0];
+        }
+
+        @Override
+        public Object newInstance(Object...dependencies) {
+            throw new RuntimeException(String.format("Error instantiating class: '%s'", clazz), cause);
+        }
+    }
+
+    /**
+     * Returns the constructor used to instantiate given class.
+     *
+     * @return public default constructor or, if there is no such constructor, the single public constructor of given class.
      */
-    private static <I> I getDefaultObjInstance(Class<I> clazz) {
+    private static Constructor<?> __getInjectionConstructor(Class<?> clazz) throws NoSuchMethodException {
         try {
-            I obj = clazz.getConstructor().newInstance();
-            return obj;
-        } catch (NoSuchMethodException | SecurityException | InstantiationException | IllegalAccessException | IllegalArgumentException | InvocationTargetException ex) {
-            throw new RuntimeException(String.format("Error instantiating class: '%s'", clazz), ex);
+            return clazz.getConstructor();
+        } catch (NoSuchMethodException ex) {
+            Constructor<?>[] constructors = clazz.getConstructors();
+
+            if (constructors.length != 1)
+                throw ex;
+
+            return constructors[0];
         }
     }
+
+    /** Default factories (computed once per class). */
+    private static final ClassValue<InstanceFactory<?>> DEFAULT_FACTORIES = new ClassValue<InstanceFactory<?>>() {
+        @Override
+        protected InstanceFactory<?> computeValue(Class<?> type) {
+            if (__isAbstract(type))
+                return new ErrorFactory(type, new InstantiationException(type.getName()));
+
+            try {
+                return new ConstructorFactory(type, __getInjectionConstructor(type));
+            } catch (NoSuchMethodException | IllegalAccessException | SecurityException ex) {
+                return new ErrorFactory(type, ex);
+            }
+        }
+    };
+
+    /** Request-scoped instances created by current thread (key: managers which created the instances; null: no active request scope). */
+    private static final ThreadLocal<Map<SingletonManager<?>, Map<Class<?>, Object>>> REQUEST_INSTANCES = new ThreadLocal<>();
+
+    /**
+     * Begins a request scope in current thread (see {@linkplain SingletonManager#getRequestInstance(Class)}).
+     *
+     * This method is called at the beginning of each request by {@linkplain com.agapsys.web.toolkit.filters.AttributeServiceFilter}.
+     * Code running outside such filter (e.g. servlet listeners or asynchronous
+     * tasks) which uses request-scoped instances must call this method and
+     * {@linkplain SingletonManager#destroyRequestInstances()} (usually in a finally block).
+     *
+     * @return a boolean indicating if a scope was begun (false means there was an active scope already,
+     * which shall be ended by the caller which began it).
+     */
+    public static boolean beginRequestScope() {
+        if (REQUEST_INSTANCES.get() != null)
+            return false;
+
+        REQUEST_INSTANCES.set(new IdentityHashMap<SingletonManager<?>, Map<Class<?>, Object>>());
+        return true;
+    }
+
+    /**
+     * Ends the request scope of current thread, destroying its request-scoped instances (see {@linkplain SingletonManager#getRequestInstance(Class)}).
+     *
+     * Instances implementing {@linkplain AutoCloseable} are closed.
+     * This method is called at the end of each request by {@linkplain com.agapsys.web.toolkit.filters.AttributeServiceFilter}.
+     */
+    public static void destroyRequestInstances() {
+        Map<SingletonManager<?>, Map<Class<?>, Object>> managerMap = REQUEST_INSTANCES.get();
+
+        if (managerMap == null)
+            return;
+
+        REQUEST_INSTANCES.remove();
+
+        RuntimeException error = null;
+
+        for (Map<Class<?>, Object> instances : managerMap.values()) {
+            for (Object instance : instances.values()) {
+                try {
+                    __destroy(instance);
+                } catch (RuntimeException ex) {
+                    if (error == null)
+                        error = ex;
+                }
+            }
+        }
+
+        if (error != null)
+            throw error;
+    }
+
+    /** Closes given instance if it is {@linkplain AutoCloseable}. */
+    private static void __destroy(Object instance) {
+        if (instance instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) instance).close();
+            } catch (RuntimeException ex) {
+                throw ex;
+            } catch (Exception ex) {
+                throw new RuntimeException(String.format("Error closing instance: '%s'", instance.getClass()), ex);
+            }
+        }
+    }
+
+    /**
+     * Thread-scoped instances of a manager (replaced whenever manager is cleared).
+     *
+     * Values stored into thread locals are JDK types only, so entries left on
+     * pooled threads after this scope is closed do not retain application classes.
+     */
+    private static class ThreadScope {
+        private final ThreadLocal<Map<Class<?>, Object>> instances = new ThreadLocal<>();
+        private final Set<Map<Class<?>, Object>>         instanceMaps = Collections.newSetFromMap(new ConcurrentHashMap<Map<Class<?>, Object>, Boolean>());
+
+        private volatile boolean closed = false;
+
+        /** Destroys the instances created by all threads. */
+        private void close() {
+            closed = true;
+
+            RuntimeException error = null;
+
+            for (Map<Class<?>, Object> instanceMap : instanceMaps) {
+                for (Class<?> instanceClass : instanceMap.keySet()) {
+                    Object instance = instanceMap.remove(instanceClass);
+
+                    try {
+                        if (instance != null)
+                            __destroy(instance);
+                    } catch (RuntimeException ex) {
+                        if (error == null)
+                            error = ex;
+                    }
+                }
+            }
+
+            instanceMaps.clear();
+
+            if (error != null)
+                throw error;
+        }
+    }
+
+    /** Placeholder for abstract types without a matching instance. */
+    private static final Object NO_INSTANCE = new Object();
+
+    private static boolean __isAbstract(Class<?> clazz) {
+        int modifiers = clazz.getModifiers();
+        return Modifier.isAbstract(modifiers) || Modifier.isInterface(modifiers);
+    }
     // =========================================================================
     // </editor-fold>
 
     private final Class<T> thisClass;
-    private final Map<Class<? extends T>, T> instanceMap = new LinkedHashMap<>();
+
+    /** Managed instances (read without locking). */
+    private final Map<Class<? extends T>, T> instanceMap = new ConcurrentHashMap<>();
+
+    /** Registered classes grouped by their topmost concrete superclass (guarded by instanceMap). */
+    private final Map<Class<?>, Set<Class<? extends T>>> familyMap = new HashMap<>();
+
     private final Set<T> instanceSet = new LinkedHashSet<>();
 
+    /** Factories registered through {@linkplain SingletonManager#registerFactory(Class, InstanceFactory)}. */
+    private final Map<Class<?>, InstanceFactory<?>> factoryMap = new ConcurrentHashMap<>();
+
+    /** Hierarchies registered through {@linkplain SingletonManager#registerHierarchy(Class, List)}. */
+    private final Map<Class<?>, List<Class<? extends T>>> hierarchyMap = new ConcurrentHashMap<>();
+
+    /** Classes being instantiated by current thread (used to detect circular constructor dependencies). */
+    private final ThreadLocal<Set<Class<?>>> instantiationSet = new ThreadLocal<Set<Class<?>>>() {
+        @Override
+        protected Set<Class<?>> initialValue() {
+            return new HashSet<>();
+        }
+    };
+
+    /** Thread-scoped instances (closed and replaced whenever this manager is cleared). */
+    private volatile ThreadScope threadScope = new ThreadScope();
+
+    /** Pooled instances. */
+    private final Map<Class<?>, ObjectPool<?>> poolMap = new ConcurrentHashMap<>();
+
+    /** Instances resolved for abstract types (invalidated whenever instances change). */
+    private final Map<Class<?>, Object> abstractResolutionMap = new ConcurrentHashMap<>();
+
     private final Set<T> readOnlyInstanceSet = Collections.unmodifiableSet(instanceSet);
     private final Set<Class<? extends T>> readOnlyClassSet = Collections.unmodifiableSet(instanceMap.keySet());
 
+    /**
+     * Concrete hierarchy of a class: the class itself followed by its concrete
+     * superclasses which are subclasses of managed type (computed once per class).
+     */
+    private final ClassValue<List<Class<? extends T>>> concreteHierarchy = new ClassValue<List<Class<? extends T>>>() {
+        @Override
+        protected List<Class<? extends T>> computeValue(Class<?> type) {
+            List<Class<? extends T>> hierarchy = new ArrayList<>();
+            hierarchy.add((Class<? extends T>) type);
+
+            Class<?> tmpClass = type;
+            while(true) {
+                Class<?> superClass = tmpClass.getSuperclass();
+
+                if (superClass == null)
+                    break;
+
+                int modifiers = superClass.getModifiers();
+                boolean isConcreteClass = !Modifier.isAbstract(modifiers) && !Modifier.isInterface(modifiers);
+
+                if (isConcreteClass && thisClass.isAssignableFrom(superClass)) {
+                    hierarchy.add((Class<? extends T>) superClass);
+                    tmpClass = superClass;
+                } else {
+                    break;
+                }
+            }
+
+            return Collections.unmodifiableList(hierarchy);
+        }
+    };
+
     /**
      * Constructor.
      * @param superClass managed super class
@@ -71,7 +347,19 @@ public class SingletonManager<T> {
     public void clear() {
         synchronized(instanceMap) {
             instanceMap.clear();
+            familyMap.clear();
             instanceSet.clear();
+            abstractResolutionMap.clear();
+
+            ThreadScope mThreadScope = threadScope;
+            threadScope = new ThreadScope();
+
+            for (ObjectPool<?> pool : poolMap.values()) {
+                pool.close();
+            }
+
+            poolMap.clear();
+            mThreadScope.close();
         }
     }
 
@@ -81,9 +369,7 @@ public class SingletonManager<T> {
      * @return a boolean indicating there are no managed instances.
      */
     public boolean isEmpty() {
-        synchronized(instanceMap) {
-            return instanceMap.isEmpty();
-        }
+        return instanceMap.isEmpty();
     }
 
     /**
@@ -103,52 +389,15 @@ public class SingletonManager<T> {
      * @return all managed classes.
      */
     public Set<Class<? extends T>> getClasses() {
-        synchronized(instanceMap) {
-            return readOnlyClassSet;
-        }
+        return readOnlyClassSet;
     }
 
-    private Class<?> __getFirstConcreteSuperClass(Class<?> clazz) {
-        Class<?> firstConcreteSuperClass = clazz;
-        
-        while(true) {
-            Class<?> superClass = firstConcreteSuperClass.getSuperclass();
-
-            int modifiers = superClass.getModifiers();
-            boolean isConcreteClass = !Modifier.isAbstract(modifiers) && !Modifier.isInterface(modifiers);
-
-            if (isConcreteClass && thisClass.isAssignableFrom(superClass)) {
-                firstConcreteSuperClass = (Class<?>) superClass;
-            } else {
-                break;
-            }
-        }
-        
-        return firstConcreteSuperClass;
-    }
-    
-    private void __clearChildren(Class<?> parentClass) {
-        Set<Class<? extends T>> classDeletionSet = new LinkedHashSet<>();
-        
-        for (Map.Entry<Class<? extends T>, T> entry : instanceMap.entrySet()) {
-            Class<? extends T> tmpClass = entry.getKey();
-            T instance = entry.getValue();
-            
-            if (__getFirstConcreteSuperClass(tmpClass) == parentClass) {
-                classDeletionSet.add(tmpClass);
-                instanceSet.remove(instance);
-            }
-        }
-        
-        for (Class<? extends T> tmpClass : classDeletionSet) {
-            instanceMap.remove(tmpClass);
-        }
-        
-    }
-    
     /**
      * Registers an instance.
      *
+     * Any instance registered for a class in the same concrete hierarchy (classes
+     * sharing the same topmost concrete superclass) is replaced.
+     *
      * @param instance instance to be managed.
      * @param overrideClassHierarchy defines class hierachy should be overriden.
      */
@@ -157,31 +406,78 @@ public class SingletonManager<T> {
 
             if (instance == null)
                 throw new IllegalArgumentException("Instance cannot be null");
-            
-            Class<?> firstConcreteSuperClass = __getFirstConcreteSuperClass(instance.getClass());
-            __clearChildren(firstConcreteSuperClass);
 
-            instanceMap.put((Class<? extends T>) instance.getClass(), instance);
+            List<Class<? extends T>> hierarchy = hierarchyMap.get(instance.getClass());
+
+            if (hierarchy == null)
+                hierarchy = concreteHierarchy.get(instance.getClass());
+            Class<?> firstConcreteSuperClass = hierarchy.get(hierarchy.size() - 1);
+
+            // Register entire class hierachy up first subclass of 'thisClass'...
+            List<Class<? extends T>> keys = overrideClassHierarchy ? hierarchy : hierarchy.subList(0, 1);
+
+            Set<Class<? extends T>> oldKeys = familyMap.get(firstConcreteSuperClass);
+            Set<T> oldInstances = new LinkedHashSet<>();
+
+            if (oldKeys != null) {
+                for (Class<? extends T> oldKey : oldKeys) {
+                    oldInstances.add(instanceMap.get(oldKey));
+                }
+            }
+
+            // New keys are published before stale ones are removed, so concurrent readers never miss a replaced instance...
+            for (Class<? extends T> key : keys) {
+                instanceMap.put(key, instance);
+            }
+
+            if (oldKeys != null) {
+                for (Class<? extends T> oldKey : oldKeys) {
+                    if (!keys.contains(oldKey))
+                        instanceMap.remove(oldKey);
+                }
+            }
+
+            familyMap.put(firstConcreteSuperClass, new LinkedHashSet<>(keys));
+
+            oldInstances.remove(instance);
+            instanceSet.removeAll(oldInstances);
             instanceSet.add(instance);
-            
-            if (!overrideClassHierarchy)
-                return;
+            abstractResolutionMap.clear();
+        }
+    }
 
-            Class<?> tmpClass = instance.getClass();
-            while(true) {
-                // Register entire class hierachy up first subclass of 'thisClass'...
-                Class<?> superClass = tmpClass.getSuperclass();
+    /**
+     * Resolves the instance associated with an abstract type (an interface or an abstract class).
+     *
+     * @param abstractClass abstract type.
+     * @return the single managed instance of given type or null if there is no such instance.
+     * @throws IllegalStateException if there are multiple instances of given type.
+     */
+    private Object __resolveAbstract(Class<?> abstractClass) {
+        Object resolved = abstractResolutionMap.get(abstractClass);
 
-                int modifiers = superClass.getModifiers();
-                boolean isConcreteClass = !Modifier.isAbstract(modifiers) && !Modifier.isInterface(modifiers);
+        if (resolved != null)
+            return resolved == NO_INSTANCE ? null : resolved;
 
-                if (isConcreteClass && thisClass.isAssignableFrom(superClass)) {
-                    instanceMap.put((Class<? extends T>) superClass, instance);
-                    tmpClass = superClass;
-                } else {
-                    break;
+        synchronized(instanceMap) {
+            resolved = abstractResolutionMap.get(abstractClass);
+
+            if (resolved == null) {
+                Set<T> candidates = new LinkedHashSet<>();
+
+                for (T instance : instanceSet) {
+                    if (abstractClass.isInstance(instance))
+                        candidates.add(instance);
                 }
+
+                if (candidates.size() > 1)
+                    throw new IllegalStateException(String.format("Ambiguous instance type: '%s' (candidates: %s)", abstractClass.getName(), candidates));
+
+                resolved = candidates.isEmpty() ? NO_INSTANCE : candidates.iterator().next();
+                abstractResolutionMap.put(abstractClass, resolved);
             }
+
+            return resolved == NO_INSTANCE ? null : resolved;
         }
     }
 
@@ -196,9 +492,220 @@ public class SingletonManager<T> {
         registerInstance(instance, true);
     }
     
+    /**
+     * Registers the concrete hierarchy of given class.
+     *
+     * By default, the hierarchy of a class is resolved through reflection
+     * when its first instance is registered. Registered hierarchies (e.g.
+     * generated at compile time) skip such resolution.
+     *
+     * @param instanceClass instance class.
+     * @param hierarchy given class followed by its concrete superclasses which are subclasses of managed type.
+     */
+    public void registerHierarchy(Class<? extends T> instanceClass, List<Class<? extends T>> hierarchy) {
+        if (instanceClass == null)
+            throw new IllegalArgumentException("Class cannot be null");
+
+        if (hierarchy == null || hierarchy.isEmpty() || hierarchy.get(0) != instanceClass)
+            throw new IllegalArgumentException("Invalid hierarchy for class: " + instanceClass.getName());
+
+        for (Class<? extends T> clazz : hierarchy) {
+            if (!thisClass.isAssignableFrom(clazz))
+                throw new IllegalArgumentException(String.format("Class '%s' is not a subclass of '%s'", clazz.getName(), thisClass.getName()));
+        }
+
+        hierarchyMap.put(instanceClass, Collections.unmodifiableList(new ArrayList<>(hierarchy)));
+    }
+
+    /**
+     * Registers the factory used to create instances of given class.
+     *
+     * By default, instances are created through the public default constructor
+     * or, if there is no such constructor, through the single public constructor
+     * of the class, whose parameters are resolved from this manager.
+     *
+     * @param <I> instance type.
+     * @param instanceClass instance class.
+     * @param factory factory used to create instances of given class.
+     */
+    public <I extends T> void registerFactory(Class<I> instanceClass, InstanceFactory<? extends I> factory) {
+        if (instanceClass == null)
+            throw new IllegalArgumentException("Class cannot be null");
+
+        if (factory == null)
+            throw new IllegalArgumentException("Factory cannot be null");
+
+        factoryMap.put(instanceClass, factory);
+    }
+
+    /**
+     * Creates an instance of given class.
+     *
+     * Constructor dependencies are resolved (and registered on demand) from this manager.
+     */
+    private <I extends T> I __newInstance(Class<I> instanceClass) {
+        InstanceFactory<?> factory = factoryMap.get(instanceClass);
+
+        if (factory == null)
+            factory = DEFAULT_FACTORIES.get(instanceClass);
+
+        Class<?>[] dependencyClasses = factory.getDependencies();
+        Object[] dependencies = new Object[dependencyClasses.length];
+
+        if (dependencyClasses.length > 0) {
+            Set<Class<?>> mInstantiationSet = instantiationSet.get();
+
+            if (!mInstantiationSet.add(instanceClass))
+                throw new RuntimeException("Circular constructor dependency: " + instanceClass.getName());
+
+            try {
+                for (int i = 0; i < dependencyClasses.length; i++) {
+                    Class<?> dependencyClass = dependencyClasses[i];
+
+                    if (!thisClass.isAssignableFrom(dependencyClass))
+                        throw new RuntimeException(String.format("Cannot inject a non-managed type into '%s': %s", instanceClass.getName(), dependencyClass.getName()));
+
+                    dependencies[i] = getInstance((Class<? extends T>) dependencyClass, true); // <-- dependencies are always singletons
+                }
+            } finally {
+                mInstantiationSet.remove(instanceClass);
+            }
+        }
+
+        return instanceClass.cast(factory.newInstance(dependencies));
+    }
+
+    /**
+     * Returns the instance of given class associated with current thread.
+     *
+     * Each thread gets its own instance, which is created on first call
+     * (constructor dependencies are resolved as singletons). When this manager
+     * is cleared, such instances are released by every thread and instances
+     * implementing {@linkplain AutoCloseable} are closed.
+     *
+     * @param <I> instance type.
+     * @param instanceClass instance class.
+     * @return the instance of given class associated with current thread.
+     */
+    public <I extends T> I getThreadInstance(Class<I> instanceClass) {
+        if (instanceClass == null)
+            throw new IllegalArgumentException("Instance class cannot be null");
+
+        while (true) {
+            ThreadScope mThreadScope = threadScope;
+            Map<Class<?>, Object> instanceMap = mThreadScope.instances.get();
+
+            if (instanceMap == null) {
+                instanceMap = new ConcurrentHashMap<>(); // <-- map may be cleared by the thread clearing this manager
+                mThreadScope.instances.set(instanceMap);
+                mThreadScope.instanceMaps.add(instanceMap);
+            }
+
+            I instance = (I) instanceMap.get(instanceClass);
+
+            if (instance == null) {
+                instance = __newInstance(instanceClass);
+                instanceMap.put(instanceClass, instance);
+            }
+
+            if (!mThreadScope.closed)
+                return instance;
+
+            // Manager was cleared meanwhile...
+            mThreadScope.instances.remove();
+
+            if (instanceMap.remove(instanceClass) != null)
+                __destroy(instance);
+        }
+    }
+
+    /**
+     * Returns the instance of given class associated with current request.
+     *
+     * Each request gets its own instance, which is created on first call
+     * (constructor dependencies are resolved as singletons). Such instances are
+     * destroyed at the end of the request (see {@linkplain SingletonManager#destroyRequestInstances()}).
+     *
+     * @param <I> instance type.
+     * @param instanceClass instance class.
+     * @return the instance of given class associated with current request.
+     * @throws IllegalStateException if there is no active request scope in current thread (see {@linkplain SingletonManager#beginRequestScope()}).
+     */
+    public <I extends T> I getRequestInstance(Class<I> instanceClass) {
+        if (instanceClass == null)
+            throw new IllegalArgumentException("Instance class cannot be null");
+
+        Map<SingletonManager<?>, Map<Class<?>, Object>> managerMap = REQUEST_INSTANCES.get();
+
+        if (managerMap == null)
+            throw new IllegalStateException("There is no active request scope in current thread (instances would never be destroyed)");
+
+        Map<Class<?>, Object> requestInstances = managerMap.get(this);
+
+        if (requestInstances == null) {
+            requestInstances = new LinkedHashMap<>();
+            managerMap.put(this, requestInstances);
+        }
+
+        I instance = (I) requestInstances.get(instanceClass);
+
+        if (instance == null) {
+            instance = __newInstance(instanceClass);
+            requestInstances.put(instanceClass, instance);
+        }
+
+        return instance;
+    }
+
+    /**
+     * Returns the pool of instances of given class.
+     *
+     * Pooled instances are created on demand (constructor dependencies are
+     * resolved as singletons). When this manager is cleared, pools are closed
+     * and instances implementing {@linkplain AutoCloseable} are closed.
+     *
+     * @param <I> instance type.
+     * @param instanceClass instance class.
+     * @param capacity maximum number of instances. This argument is used only if there is no pool associated with given class.
+     * @return the pool of instances of given class.
+     */
+    public <I extends T> ObjectPool<I> getPool(final Class<I> instanceClass, int capacity) {
+        if (instanceClass == null)
+            throw new IllegalArgumentException("Instance class cannot be null");
+
+        ObjectPool<I> pool = (ObjectPool<I>) poolMap.get(instanceClass);
+
+        if (pool != null)
+            return pool;
+
+        synchronized(instanceMap) {
+            pool = (ObjectPool<I>) poolMap.get(instanceClass);
+
+            if (pool == null) {
+                pool = new ObjectPool<>(new ObjectPool.ObjectFactory<I>() {
+                    @Override
+                    public I create() {
+                        return __newInstance(instanceClass);
+                    }
+
+                    @Override
+                    public void destroy(I obj) {
+                        __destroy(obj);
+                    }
+                }, capacity);
+
+                poolMap.put(instanceClass, pool);
+            }
+
+            return pool;
+        }
+    }
+
     /**
      * Registers an instance using given class default constructor.
      *
+     * Instance is created by the factory associated with given class (see {@linkplain SingletonManager#registerFactory(Class, InstanceFactory)}).
+     *
      * @param <I> instance class.
      * @param instanceClass class used to instantiate an object using its default constructor.
      * @param overrideClassHierarchy defines class hierachy should be overriden.
@@ -209,7 +716,7 @@ public class SingletonManager<T> {
             if (instanceClass == null)
                 throw new IllegalArgumentException("Class cannot be null");
 
-            I instance = getDefaultObjInstance(instanceClass);
+            I instance = __newInstance(instanceClass);
             registerInstance(instance, overrideClassHierarchy);
             return instance;
         }
@@ -231,6 +738,9 @@ public class SingletonManager<T> {
     /**
      * Returns an instance singleton.
      *
+     * If given class is an interface or an abstract class, the single managed
+     * instance of given type is returned.
+     *
      * @param <I> instance type
      * @param instanceClass instance class
      * @param autoRegistration defines if an instance shall be created and
@@ -240,14 +750,22 @@ public class SingletonManager<T> {
      * @return instance singleton.
      */
     public <I extends T> I getInstance(Class<I> instanceClass, boolean autoRegistration, boolean overrideClassHierarchy) {
+        if (instanceClass == null)
+            throw new IllegalArgumentException("Instance class cannot be null");
+
+        I instance = (I) instanceMap.get(instanceClass);
+
+        if (instance == null && __isAbstract(instanceClass) && thisClass.isAssignableFrom(instanceClass))
+            instance = (I) __resolveAbstract(instanceClass);
+
+        if (instance != null || !autoRegistration)
+            return instance;
+
         synchronized(instanceMap) {
-            if (instanceClass == null)
-                throw new IllegalArgumentException("Instance class cannot be null");
+            instance = (I) instanceMap.get(instanceClass);
 
-            I instance = (I) instanceMap.get(instanceClass);
-            if (instance == null && autoRegistration) {
+            if (instance == null)
                 instance = registerClass(instanceClass, overrideClassHierarchy);
-            }
 
             return instance;
         }
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.web.toolkit.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counter optimized for concurrent updates.
+ *
+ * Uncontended counters hold a single value. When concurrent updates collide,
+ * padded cells selected by the updating thread are created (and their number
+ * is doubled on further collisions, up to twice the number of processors), so
+ * concurrent threads rarely contend on the same memory location. Reading the
+ * counter sums all cells, hence it is more expensive than an update and is
+ * not an atomic snapshot while updates are in progress.
+ */
+public class StripedCounter {
+
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    /** Number of array slots per cell (a cell spans 128 bytes to avoid false sharing). */
+    private static final int CELL_SIZE = 16;
+
+    /** Index of the value inside a cell (remaining slots are padding). */
+    private static final int VALUE_INDEX = CELL_SIZE / 2;
+
+    private static final int MAX_CELLS = __getMaxCells();
+
+    private static int __getMaxCells() {
+        int target = Math.min(64, Runtime.getRuntime().availableProcessors() * 2);
+        int cellCount = 1;
+
+        while (cellCount < target) {
+            cellCount <<= 1;
+        }
+
+        return cellCount;
+    }
+
+    /** Returns the index of the cell updated by current thread. */
+    private static int __getIndex(int cellCount) {
+        long id = Thread.currentThread().getId();
+        int hash = (int) (id ^ (id >>> 32));
+        hash ^= (hash >>> 16);
+
+        return hash & (cellCount - 1);
+    }
+    // =========================================================================
+    // </editor-fold>
+
+    private final AtomicLong base = new AtomicLong();
+    private volatile AtomicLongArray[] cells = null; // <-- created upon contention
+
+    /**
+     * Adds cells to this counter.
+     *
+     * Existing cells are kept, so updates applied to them are never lost.
+     *
+     * @param current cells which found contention (null if contention was found on base value).
+     * @return current cells.
+     */
+    private synchronized AtomicLongArray[] __grow(AtomicLongArray[] current) {
+        AtomicLongArray[] mCells = cells;
+
+        if (mCells != current || (mCells != null && mCells.length >= MAX_CELLS))
+            return mCells; // <-- already grown by another thread (or cannot grow)
+
+        int cellCount = mCells == null ? 2 : mCells.length * 2;
+        AtomicLongArray[] newCells = new AtomicLongArray[cellCount];
+        int i = 0;
+
+        if (mCells != null) {
+            System.arraycopy(mCells, 0, newCells, 0, mCells.length);
+            i = mCells.length;
+        }
+
+        for (; i < cellCount; i++) {
+            newCells[i] = new AtomicLongArray(CELL_SIZE);
+        }
+
+        cells = newCells;
+        return newCells;
+    }
+
+    /**
+     * Adds given value to this counter.
+     *
+     * @param delta value to be added.
+     */
+    public void add(long delta) {
+        AtomicLongArray[] mCells = cells;
+
+        if (mCells == null) {
+            long value = base.get();
+
+            if (base.compareAndSet(value, value + delta))
+                return;
+
+            mCells = __grow(null);
+        }
+
+        AtomicLongArray cell = mCells[__getIndex(mCells.length)];
+        long value = cell.get(VALUE_INDEX);
+
+        if (cell.compareAndSet(VALUE_INDEX, value, value + delta))
+            return;
+
+        __grow(mCells); // <-- next updates of current thread may use another cell
+        cell.getAndAdd(VALUE_INDEX, delta);
+    }
+
+    /** Increments this counter. */
+    public void increment() {
+        add(1);
+    }
+
+    /** Decrements this counter. */
+    public void decrement() {
+        add(-1);
+    }
+
+    /**
+     * Returns counter value.
+     *
+     * @return the sum of all cells.
+     */
+    public long sum() {
+        long sum = base.get();
+        AtomicLongArray[] mCells = cells;
+
+        if (mCells != null) {
+            for (AtomicLongArray cell : mCells) {
+                sum += cell.get(VALUE_INDEX);
+            }
+        }
+
+        return sum;
+    }
+
+    /**
+     * Resets this counter to zero.
+     *
+     * This method is not atomic with respect to concurrent updates.
+     */
+    public void reset() {
+        base.set(0);
+        AtomicLongArray[] mCells = cells;
+
+        if (mCells != null) {
+            for (AtomicLongArray cell : mCells) {
+                cell.set(VALUE_INDEX, 0);
+            }
+        }
+    }
+
+    /** Returns the number of cells created upon contention (0 if counter was never contended). */
+    final int _getCellCount() {
+        AtomicLongArray[] mCells = cells;
+        return mCells == null ? 0 : mCells.length;
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString(sum());
+    }
+
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.web.toolkit;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PropertiesReloadTest {
+
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    private static final String KEY_VALUE = "test.value";
+
+    public static class ReconfigurableService extends Service {
+        private volatile String value;
+
+        @Override
+        protected void onStart() {
+            super.onStart();
+            value = getApplication().getProperty(KEY_VALUE, null);
+        }
+
+        @Override
+        protected void onPropertiesChanged(Set<String> changedKeys) {
+            super.onPropertiesChanged(changedKeys);
+
+            if (changedKeys.contains(KEY_VALUE))
+                value = getApplication().getProperty(KEY_VALUE, null);
+        }
+    }
+
+    private static class ReloadApplication extends MockedWebApplication {
+        private final boolean watchProperties;
+
+        public ReloadApplication(boolean watchProperties) {
+            this.watchProperties = watchProperties;
+        }
+
+        @Override
+        public String getRootName() {
+            return watchProperties ? "properties-watch-test" : "properties-reload-test";
+        }
+
+        @Override
+        protected Properties getDefaultProperties() {
+            Properties properties = super.getDefaultProperties();
+
+            if (properties == null)
+                properties = new Properties();
+
+            properties.setProperty(KEY_WATCH_PROPERTIES, Boolean.toString(watchProperties));
+            return properties;
+        }
+    }
+
+    private static void writeProperties(AbstractApplication app, String value) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty(KEY_VALUE, value);
+        properties.setProperty(AbstractApplication.KEY_WATCH_PROPERTIES, app.getProperty(AbstractApplication.KEY_WATCH_PROPERTIES, "false"));
+
+        try (FileOutputStream fos = new FileOutputStream(new File(app.getDirectory(), AbstractApplication.PROPERTIES_FILENAME))) {
+            properties.store(fos, null);
+        }
+    }
+
+    private static Properties readProperties(File directory) throws IOException {
+        Properties properties = new Properties();
+
+        try (FileInputStream fis = new FileInputStream(new File(directory, AbstractApplication.PROPERTIES_FILENAME))) {
+            properties.load(fis);
+        }
+
+        return properties;
+    }
+    // =========================================================================
+    // </editor-fold>
+
+    private AbstractApplication app;
+
+    @After
+    public void after() {
+        if (app != null && app.isRunning())
+            app.stop();
+    }
+
+    @Test
+    public void testReloadNotification() throws IOException {
+        app = new ReloadApplication(false);
+        app.start();
+        writeProperties(app, "initial");
+        app.loadProperties();
+
+        final List<String> changes = new CopyOnWriteArrayList<>();
+        app.addPropertyListener(KEY_VALUE, new AbstractApplication.PropertyListener() {
+            @Override
+            public void onPropertyChanged(AbstractApplication app, String key, String oldValue, String newValue) {
+                changes.add(oldValue + " -> " + newValue);
+            }
+        });
+
+        ReconfigurableService service = app.getServiceOnDemand(ReconfigurableService.class);
+        Assert.assertEquals("initial", service.value);
+
+        app.loadProperties(); // <-- Nothing changed
+        Assert.assertTrue(changes.isEmpty());
+
+        writeProperties(app, "changed");
+        app.loadProperties();
+
+        Assert.assertEquals(1, changes.size());
+        Assert.assertEquals("initial -> changed", changes.get(0));
+        Assert.assertEquals("changed", service.value);
+        Assert.assertTrue(service.isRunning());
+    }
+
+    @Test
+    public void testWatcher() throws IOException, InterruptedException {
+        app = new ReloadApplication(true);
+        app.start();
+        writeProperties(app, "initial");
+        app.loadProperties();
+
+        ReconfigurableService service = app.getServiceOnDemand(ReconfigurableService.class);
+        Assert.assertEquals("initial", service.value);
+
+        writeProperties(app, "changed");
+
+        for (int i = 0; i < 100 && !"changed".equals(service.value); i++) {
+            Thread.sleep(100);
+        }
+
+        Assert.assertEquals("changed", service.value);
+    }
+
+    @Test
+    public void testSave() throws IOException {
+        app = new ReloadApplication(false);
+        app.start();
+        File directory = app.getDirectory();
+
+        app.setProperty(KEY_VALUE, "saved");
+        app.saveProperties();
+        app.setProperty(KEY_VALUE, "flushed");
+        app.saveProperties(); // <-- coalesced with previous call
+        app.flushProperties();
+        Assert.assertEquals("flushed", readProperties(directory).getProperty(KEY_VALUE));
+        Assert.assertFalse(new File(directory, AbstractApplication.PROPERTIES_FILENAME + ".tmp").exists());
+
+        app.setProperty(KEY_VALUE, "stopped");
+        app.saveProperties();
+        app.stop(); // <-- pending changes are written during stop
+        Assert.assertEquals("stopped", readProperties(directory).getProperty(KEY_VALUE));
+    }
+
+    @Test
+    public void testUnsavedChangesSurviveReload() throws IOException {
+        app = new ReloadApplication(false);
+        app.start();
+        writeProperties(app, "initial");
+        app.loadProperties();
+
+        app.setProperty(KEY_VALUE, "memory");
+        app.setProperty("test.other", "other");
+        writeProperties(app, "file");
+        app.loadProperties(); // <-- unsaved changes take precedence over file contents
+
+        Assert.assertEquals("memory", app.getProperty(KEY_VALUE, null));
+        Assert.assertEquals("other", app.getProperty("test.other", null));
+
+        app.saveProperties();
+        app.flushProperties();
+        writeProperties(app, "external");
+        app.loadProperties(); // <-- saved changes are replaced by file contents
+
+        Assert.assertEquals("external", app.getProperty(KEY_VALUE, null));
+        Assert.assertNull(app.getProperty("test.other", null));
+    }
+
+    @Test
+    public void testWatcherIgnoresOwnWrites() throws IOException, InterruptedException {
+        app = new ReloadApplication(true);
+        app.start();
+        app.flushProperties();
+        Thread.sleep(1000); // <-- events generated during start are handled
+
+        app.setProperty(KEY_VALUE, "own");
+        app.saveProperties();
+        app.flushProperties();
+
+        int revision = app._getPropertiesRevision();
+        Thread.sleep(1000);
+        Assert.assertEquals(revision, app._getPropertiesRevision()); // <-- properties were not reloaded
+
+        writeProperties(app, "external");
+
+        for (int i = 0; i < 100 && !"external".equals(app.getProperty(KEY_VALUE, null)); i++) {
+            Thread.sleep(100);
+        }
+
+        Assert.assertEquals("external", app.getProperty(KEY_VALUE, null));
+    }
+
+}
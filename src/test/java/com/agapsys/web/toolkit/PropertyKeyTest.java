@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.web.toolkit;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Properties;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PropertyKeyTest {
+
+    private static final PropertyKey<Integer> KEY_INT    = new PropertyKey<>(Integer.class, "test.int", 10);
+    private static final PropertyKey<Boolean> KEY_BOOL   = new PropertyKey<>(Boolean.class, "test.bool", true);
+    private static final PropertyKey<String>  KEY_STRING = PropertyKey.of("test.string", "default");
+
+    private AbstractApplication app;
+
+    @Before
+    public void before() {
+        app = new MockedWebApplication() {
+            @Override
+            public String getRootName() {
+                return "property-key-test";
+            }
+        };
+        app.start();
+    }
+
+    @After
+    public void after() {
+        app.stop();
+    }
+
+    @Test
+    public void testDefaults() {
+        Assert.assertEquals(10, app.getInt(KEY_INT));
+        Assert.assertTrue(app.getBoolean(KEY_BOOL));
+        Assert.assertEquals("default", app.getProperty(KEY_STRING));
+
+        Assert.assertEquals(5, app.getInt("test.missing", 5));
+        Assert.assertEquals(5L, app.getLong("test.missing", 5L));
+        Assert.assertFalse(app.getBoolean("test.missing", false));
+    }
+
+    @Test
+    public void testInvalidation() {
+        Assert.assertEquals(10, app.getInt(KEY_INT));
+        Assert.assertSame(app.getProperty(KEY_STRING), app.getProperty(KEY_STRING)); // <-- cached value
+
+        app.setProperty(KEY_INT.getKey(), 20);
+        app.setProperty(KEY_BOOL.getKey(), false);
+        app.setProperty(KEY_STRING.getKey(), "changed");
+
+        Assert.assertEquals(20, app.getInt(KEY_INT));
+        Assert.assertEquals(20, app.getInt(KEY_INT.getKey(), 10));
+        Assert.assertFalse(app.getBoolean(KEY_BOOL));
+        Assert.assertEquals("changed", app.getProperty(KEY_STRING));
+
+        app.removeProperty(KEY_INT.getKey());
+        Assert.assertEquals(10, app.getInt(KEY_INT));
+        Assert.assertEquals(7, app.getInt(KEY_INT.getKey(), 7)); // <-- raw reads see removal as well
+        Assert.assertEquals("changed", app.getProperty(KEY_STRING.getKey(), null));
+    }
+
+    @Test
+    public void testReload() throws Exception {
+        Assert.assertEquals("default", app.getProperty(KEY_STRING));
+
+        File propertiesFile = new File(app.getDirectory(), AbstractApplication.PROPERTIES_FILENAME);
+        Properties properties = new Properties();
+        properties.setProperty(KEY_STRING.getKey(), "reloaded");
+
+        try {
+            try (FileOutputStream fos = new FileOutputStream(propertiesFile)) {
+                properties.store(fos, null);
+            }
+
+            app.loadProperties(); // <-- cached value is discarded
+            Assert.assertEquals("reloaded", app.getProperty(KEY_STRING));
+        } finally {
+            propertiesFile.delete(); // <-- properties file is shared with other tests
+        }
+    }
+}
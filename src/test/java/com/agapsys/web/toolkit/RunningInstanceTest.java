@@ -0,0 +1,111 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.web.toolkit;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RunningInstanceTest {
+
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    private static class TestApplication extends MockedWebApplication {
+        private final String rootName;
+
+        public TestApplication(String rootName) {
+            this.rootName = rootName;
+        }
+
+        @Override
+        public String getRootName() {
+            return rootName;
+        }
+    }
+    // =========================================================================
+    // </editor-fold>
+
+    private final ClassLoader originalClassLoader = Thread.currentThread().getContextClassLoader();
+    private final ClassLoader otherClassLoader    = new URLClassLoader(new URL[0], originalClassLoader);
+
+    private AbstractApplication app1;
+    private AbstractApplication app2;
+
+    @After
+    public void after() {
+        Thread.currentThread().setContextClassLoader(originalClassLoader);
+
+        if (app1 != null && app1.isRunning())
+            app1.stop();
+
+        Thread.currentThread().setContextClassLoader(otherClassLoader);
+
+        if (app2 != null && app2.isRunning())
+            app2.stop();
+
+        Thread.currentThread().setContextClassLoader(originalClassLoader);
+    }
+
+    @Test
+    public void testMultipleContexts() {
+        app1 = new TestApplication("running-instance-test-1");
+        app2 = new TestApplication("running-instance-test-2");
+
+        app1.start();
+        Assert.assertSame(app1, AbstractApplication.getRunningInstance());
+
+        Thread.currentThread().setContextClassLoader(otherClassLoader);
+        Assert.assertNull(AbstractApplication.getRunningInstance()); // <-- applications from other contexts are never returned
+        Assert.assertNull(AbstractWebApplication.getRunningInstance(null));
+
+        app2.start();
+        Assert.assertSame(app2, AbstractApplication.getRunningInstance());
+
+        Thread.currentThread().setContextClassLoader(originalClassLoader);
+        Assert.assertSame(app1, AbstractApplication.getRunningInstance());
+        Assert.assertTrue(app1.isRunning());
+        Assert.assertTrue(app2.isRunning());
+
+        app1.stop();
+        Assert.assertNull(AbstractApplication.getRunningInstance());
+
+        Thread.currentThread().setContextClassLoader(otherClassLoader);
+        Assert.assertSame(app2, AbstractApplication.getRunningInstance());
+        app2.stop();
+        Assert.assertNull(AbstractApplication.getRunningInstance());
+    }
+
+    @Test
+    public void testSameContext() {
+        app1 = new TestApplication("running-instance-test-1");
+        app2 = new TestApplication("running-instance-test-2");
+
+        app1.start();
+
+        Throwable t = null;
+        try {
+            app2.start();
+        } catch (IllegalStateException ex) {
+            t = ex;
+        }
+
+        Assert.assertNotNull(t);
+        Assert.assertTrue(t.getMessage().startsWith("Another application instance is already running"));
+        Assert.assertFalse(app2.isRunning());
+    }
+}
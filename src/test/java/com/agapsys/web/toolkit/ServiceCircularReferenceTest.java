@@ -15,6 +15,12 @@
  */
 package com.agapsys.web.toolkit;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Test;
@@ -80,6 +86,48 @@ public class ServiceCircularReferenceTest {
 
     }
 
+    /** Waits until both concurrent services are starting. */
+    private static void __await(CountDownLatch starting) {
+        starting.countDown();
+
+        try {
+            if (!starting.await(5, TimeUnit.SECONDS))
+                throw new RuntimeException("Timeout waiting for concurrent start");
+        } catch (InterruptedException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    public static class ConcurrentService1 extends Service {
+        private final CountDownLatch starting;
+
+        public ConcurrentService1(CountDownLatch starting) {
+            this.starting = starting;
+        }
+
+        @Override
+        protected void onStart() {
+            super.onStart();
+            __await(starting);
+            getOnDemandService(ConcurrentService2.class);
+        }
+    }
+
+    public static class ConcurrentService2 extends Service {
+        private final CountDownLatch starting;
+
+        public ConcurrentService2(CountDownLatch starting) {
+            this.starting = starting;
+        }
+
+        @Override
+        protected void onStart() {
+            super.onStart();
+            __await(starting);
+            getOnDemandService(ConcurrentService1.class);
+        }
+    }
+
     private AbstractApplication app;
     
     @After
@@ -190,4 +238,63 @@ public class ServiceCircularReferenceTest {
 
         app.stop();
     }
+
+    @Test
+    public void testConcurrentCircularReference() throws InterruptedException {
+        CountDownLatch starting = new CountDownLatch(2);
+        final ConcurrentService1 service1 = new ConcurrentService1(starting);
+        final ConcurrentService2 service2 = new ConcurrentService2(starting);
+
+        app = new MockedWebApplication() {
+            @Override
+            public String getRootName() {
+                return "concurrent-circular-ref";
+            }
+
+            @Override
+            protected void beforeStart() {
+                super.beforeStart();
+                registerService(service1);
+                registerService(service2);
+            }
+        };
+
+        app.start();
+
+        final List<Throwable> errors = new CopyOnWriteArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+
+        for (final Class<? extends Service> serviceClass : Arrays.<Class<? extends Service>>asList(ConcurrentService1.class, ConcurrentService2.class)) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        app.getServiceOnDemand(serviceClass);
+                    } catch (Throwable t) {
+                        errors.add(t);
+                    }
+                }
+            });
+            thread.setDaemon(true); // <-- a deadlock must not prevent test runner from finishing
+            thread.start();
+            threads.add(thread);
+        }
+
+        for (Thread thread : threads) {
+            thread.join(5000);
+            Assert.assertFalse("Services deadlocked", thread.isAlive());
+        }
+
+        Assert.assertFalse(errors.isEmpty());
+
+        for (Throwable t : errors) {
+            Assert.assertTrue(t.getMessage(), t.getMessage().startsWith("Circular service reference"));
+        }
+
+        Assert.assertFalse(service1.isRunning());
+        Assert.assertFalse(service2.isRunning());
+
+        app.stop();
+    }
+
 }
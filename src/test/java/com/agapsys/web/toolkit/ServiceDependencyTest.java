@@ -0,0 +1,389 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.web.toolkit;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ServiceDependencyTest {
+
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    private static final List<Class<? extends Service>> START_ORDER = new CopyOnWriteArrayList<>();
+    private static final List<Class<? extends Service>> STOP_ORDER  = new CopyOnWriteArrayList<>();
+
+    public static abstract class RecordingService extends Service {
+        @Override
+        protected void onStart() {
+            super.onStart();
+            START_ORDER.add(getClass());
+        }
+
+        @Override
+        protected void onStop() {
+            super.onStop();
+            STOP_ORDER.add(getClass());
+        }
+    }
+
+    @DependsOn({Service2.class, Service3.class})
+    public static class Service1 extends RecordingService {}
+
+    @DependsOn(Service3.class)
+    public static class Service2 extends RecordingService {}
+
+    public static class Service3 extends RecordingService {}
+
+    public static class Service4 extends RecordingService {
+        private boolean warmedUp = false;
+
+        @Override
+        protected void onWarmUp() {
+            super.onWarmUp();
+            warmedUp = true;
+        }
+    }
+
+    public static class HangingService extends RecordingService {
+        @Override
+        protected void onStop() {
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        protected long getStopTimeout() {
+            return 100;
+        }
+    }
+
+    public static class SlowService extends RecordingService {
+        private volatile boolean warmedUp = false;
+
+        @Override
+        protected void onStart() {
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+
+            super.onStart();
+        }
+
+        @Override
+        protected void onWarmUp() {
+            super.onWarmUp();
+            warmedUp = true;
+        }
+
+        @Override
+        protected boolean isAsyncStart() {
+            return true;
+        }
+    }
+
+    public static class ImpatientSlowService extends SlowService {
+        @Override
+        protected long getReadyTimeout() {
+            return 50;
+        }
+    }
+
+    public static class FailingAsyncService extends RecordingService {
+        @Override
+        protected void onStart() {
+            throw new RuntimeException("Start failure");
+        }
+
+        @Override
+        protected boolean isAsyncStart() {
+            return true;
+        }
+    }
+
+    public static class FailingStopService extends RecordingService {
+        @Override
+        protected void onStop() {
+            throw new RuntimeException("Stop failure");
+        }
+    }
+
+    @DependsOn(CircularService2.class)
+    public static class CircularService1 extends RecordingService {}
+
+    @DependsOn(CircularService1.class)
+    public static class CircularService2 extends RecordingService {}
+
+    private static class StartupApplication extends MockedWebApplication {
+        private final List<Class<? extends Service>> startupServices;
+
+        public StartupApplication(Class<? extends Service>...startupServices) {
+            this.startupServices = Arrays.asList(startupServices);
+        }
+
+        @Override
+        public String getRootName() {
+            return "dependency-test";
+        }
+
+        @Override
+        protected Collection<Class<? extends Service>> getStartupServices() {
+            return startupServices;
+        }
+    }
+
+    private static class EagerPropertyApplication extends StartupApplication {
+
+        @Override
+        public String getRootName() {
+            return "eager-property-test";
+        }
+
+        @Override
+        protected Properties getDefaultProperties() {
+            Properties properties = super.getDefaultProperties();
+
+            if (properties == null)
+                properties = new Properties();
+
+            properties.setProperty(KEY_EAGER_SERVICES, Service3.class.getName() + ", " + Service4.class.getName());
+            return properties;
+        }
+    }
+    // =========================================================================
+    // </editor-fold>
+
+    private AbstractApplication app;
+
+    @After
+    public void after() {
+        if (app != null && app.isRunning())
+            app.stop();
+
+        START_ORDER.clear();
+        STOP_ORDER.clear();
+    }
+
+    @Test
+    public void testDeclaredDependencies() {
+        Assert.assertTrue(new Service4().getDependencies().isEmpty());
+        Assert.assertEquals(2, new Service1().getDependencies().size());
+        Assert.assertTrue(new Service1().getDependencies().contains(Service2.class));
+        Assert.assertTrue(new Service1().getDependencies().contains(Service3.class));
+    }
+
+    @Test
+    public void testStartupServices() {
+        app = new StartupApplication(Service1.class, Service4.class);
+        app.start();
+
+        Assert.assertEquals(4, START_ORDER.size());
+        Assert.assertTrue(START_ORDER.indexOf(Service3.class) < START_ORDER.indexOf(Service2.class));
+        Assert.assertTrue(START_ORDER.indexOf(Service2.class) < START_ORDER.indexOf(Service1.class));
+        Assert.assertTrue(START_ORDER.contains(Service4.class));
+
+        Assert.assertTrue(app.getRegisteredService(Service1.class).isRunning());
+        Assert.assertTrue(app.getRegisteredService(Service4.class).isRunning());
+    }
+
+    @Test
+    public void testLazyStartDependencies() {
+        app = new StartupApplication();
+        app.start();
+
+        Assert.assertTrue(START_ORDER.isEmpty());
+        app.getServiceOnDemand(Service1.class);
+
+        Assert.assertEquals(Arrays.asList(Service3.class, Service2.class, Service1.class), START_ORDER); // <-- declared dependencies are started first
+        Assert.assertTrue(app.getRegisteredService(Service2.class).isRunning());
+        Assert.assertTrue(app.getRegisteredService(Service3.class).isRunning());
+
+        app.stop();
+        Assert.assertTrue(STOP_ORDER.indexOf(Service1.class) < STOP_ORDER.indexOf(Service2.class));
+        Assert.assertTrue(STOP_ORDER.indexOf(Service2.class) < STOP_ORDER.indexOf(Service3.class));
+    }
+
+    @Test
+    public void testLazyCircularDependency() {
+        app = new StartupApplication();
+        app.start();
+
+        Throwable t = null;
+        try {
+            app.getServiceOnDemand(CircularService1.class);
+        } catch (RuntimeException ex) {
+            t = ex;
+        }
+
+        Assert.assertNotNull(t);
+        Assert.assertTrue(t.getMessage().startsWith("Circular service reference"));
+        Assert.assertTrue(START_ORDER.isEmpty());
+    }
+
+    @Test
+    public void testCircularDependency() {
+        app = new StartupApplication(CircularService1.class);
+
+        Throwable t = null;
+        try {
+            app.start();
+        } catch (RuntimeException ex) {
+            t = ex;
+        }
+
+        Assert.assertNotNull(t);
+        Assert.assertTrue(t.getMessage().startsWith("Circular service dependency"));
+        Assert.assertTrue(START_ORDER.isEmpty());
+    }
+
+    @Test
+    public void testEagerServicesProperty() {
+        app = new EagerPropertyApplication();
+        app.start();
+
+        Assert.assertEquals(2, START_ORDER.size());
+        Assert.assertTrue(START_ORDER.contains(Service3.class));
+        Assert.assertTrue(START_ORDER.contains(Service4.class));
+        Assert.assertTrue(app.getRegisteredService(Service4.class).warmedUp);
+    }
+
+    @Test
+    public void testStopOrder() {
+        app = new StartupApplication(Service1.class, Service4.class);
+        app.start();
+        app.stop();
+
+        Assert.assertEquals(4, STOP_ORDER.size());
+        Assert.assertTrue(STOP_ORDER.indexOf(Service1.class) < STOP_ORDER.indexOf(Service2.class));
+        Assert.assertTrue(STOP_ORDER.indexOf(Service2.class) < STOP_ORDER.indexOf(Service3.class));
+    }
+
+    @Test
+    public void testStopTimeout() {
+        app = new StartupApplication(HangingService.class, Service3.class);
+        app.start();
+
+        long t0 = System.currentTimeMillis();
+        app.stop();
+
+        Assert.assertTrue(System.currentTimeMillis() - t0 < 5000);
+        Assert.assertEquals(Arrays.<Class<? extends Service>>asList(Service3.class), STOP_ORDER);
+        Assert.assertNotNull(app.getTimeline().getEntry(Timeline.Phase.SERVICE_STOP_TIMEOUT, HangingService.class));
+        Assert.assertNull(app.getTimeline().getEntry(Timeline.Phase.SERVICE_STOP_TIMEOUT, Service3.class));
+    }
+
+    @Test
+    public void testStopFailure() throws IOException {
+        app = new StartupApplication(FailingStopService.class, Service3.class);
+        app.start();
+
+        File propertiesFile = new File(app.getDirectory(), AbstractApplication.PROPERTIES_FILENAME);
+
+        try {
+            app.setProperty("stop.failure.test", "pending");
+            app.saveProperties(); // <-- write is coalesced (not written yet)
+
+            Throwable t = null;
+            try {
+                app.stop();
+            } catch (RuntimeException ex) {
+                t = ex;
+            }
+
+            Assert.assertNotNull(t);
+            Assert.assertEquals("Stop failure", t.getMessage());
+            Assert.assertFalse(app.isRunning());
+            Assert.assertTrue(STOP_ORDER.contains(Service3.class));
+
+            Properties properties = new Properties();
+            try (FileInputStream fis = new FileInputStream(propertiesFile)) {
+                properties.load(fis);
+            }
+            Assert.assertEquals("pending", properties.getProperty("stop.failure.test")); // <-- pending write was flushed
+        } finally {
+            propertiesFile.delete();
+        }
+    }
+
+    @Test
+    public void testAsyncStart() {
+        app = new StartupApplication(SlowService.class, Service3.class);
+
+        long t0 = System.currentTimeMillis();
+        app.start();
+        Assert.assertTrue(System.currentTimeMillis() - t0 < 500);
+        Assert.assertEquals(Arrays.<Class<? extends Service>>asList(Service3.class), START_ORDER);
+
+        SlowService service = app.getService(SlowService.class, false); // <-- waits until service is ready
+        Assert.assertEquals(Service.State.RUNNING, service.getState());
+        Assert.assertTrue(START_ORDER.contains(SlowService.class));
+
+        long t1 = System.currentTimeMillis();
+        while (!service.warmedUp && System.currentTimeMillis() - t1 < 5000) {
+            Thread.yield();
+        }
+        Assert.assertTrue(service.warmedUp);
+    }
+
+    @Test
+    public void testAsyncStartTimeout() {
+        app = new StartupApplication();
+        app.start();
+
+        Throwable t = null;
+        try {
+            app.getServiceOnDemand(ImpatientSlowService.class);
+        } catch (IllegalStateException ex) {
+            t = ex;
+        }
+
+        Assert.assertNotNull(t);
+        Assert.assertTrue(t.getMessage().startsWith("Service is not ready"));
+
+        app.stop(); // <-- waits for background start before stopping the service
+        Assert.assertTrue(STOP_ORDER.contains(ImpatientSlowService.class));
+    }
+
+    @Test
+    public void testAsyncStartFailure() {
+        app = new StartupApplication();
+        app.start();
+
+        Throwable t = null;
+        try {
+            app.getServiceOnDemand(FailingAsyncService.class);
+        } catch (RuntimeException ex) {
+            t = ex;
+        }
+
+        Assert.assertNotNull(t);
+        Assert.assertTrue(t.getMessage().startsWith("Service failed to start"));
+        Assert.assertEquals("Start failure", t.getCause().getMessage());
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.web.toolkit;
+
+import com.agapsys.web.toolkit.utils.SingletonManager.InstanceFactory;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ServiceRegistryTest {
+
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    private static final List<Class<?>> CREATED = new CopyOnWriteArrayList<>();
+
+    public static class DependencyService extends Service {}
+
+    public static class RegistryService extends Service {
+        final DependencyService dependency;
+
+        public RegistryService(DependencyService dependency) {
+            this.dependency = dependency;
+        }
+    }
+
+    public static class SubRegistryService extends RegistryService {
+        public SubRegistryService(DependencyService dependency) {
+            super(dependency);
+        }
+    }
+
+    public static class TestRegistry extends ServiceRegistry {
+        public TestRegistry() {
+            register(
+                DependencyService.class,
+                new Class<?>[] {DependencyService.class},
+                new Class<?>[] {},
+                new InstanceFactory<DependencyService>() {
+                    @Override
+                    public Class<?>[] getDependencies() {
+                        return new Class<?>[] {};
+                    }
+
+                    @Override
+                    public DependencyService newInstance(Object...dependencies) {
+                        CREATED.add(DependencyService.class);
+                        return new DependencyService();
+                    }
+                }
+            );
+            register(
+                SubRegistryService.class,
+                new Class<?>[] {SubRegistryService.class, RegistryService.class},
+                new Class<?>[] {DependencyService.class},
+                new InstanceFactory<SubRegistryService>() {
+                    @Override
+                    public Class<?>[] getDependencies() {
+                        return new Class<?>[] {DependencyService.class};
+                    }
+
+                    @Override
+                    public SubRegistryService newInstance(Object...dependencies) {
+                        CREATED.add(SubRegistryService.class);
+                        return new SubRegistryService((DependencyService) dependencies[0]);
+                    }
+                }
+            );
+        }
+    }
+
+    private static class RegistryApplication extends MockedWebApplication {
+
+        @Override
+        public String getRootName() {
+            return "registry-test";
+        }
+
+        @Override
+        protected Iterable<ServiceRegistry> getServiceRegistries() {
+            return Collections.<ServiceRegistry>singletonList(new TestRegistry());
+        }
+
+        @Override
+        protected Collection<Class<? extends Service>> getStartupServices() {
+            return Arrays.<Class<? extends Service>>asList(SubRegistryService.class);
+        }
+    }
+    // =========================================================================
+    // </editor-fold>
+
+    private AbstractApplication app;
+
+    @After
+    public void after() {
+        if (app != null && app.isRunning())
+            app.stop();
+
+        CREATED.clear();
+    }
+
+    @Test
+    public void testRegistry() {
+        TestRegistry registry = new TestRegistry();
+
+        Assert.assertEquals(2, registry.getServiceClasses().size());
+        Assert.assertEquals(Arrays.<Class<?>>asList(SubRegistryService.class, RegistryService.class), registry.getHierarchy(SubRegistryService.class));
+        Assert.assertTrue(registry.getDependencies(SubRegistryService.class).contains(DependencyService.class));
+        Assert.assertNull(registry.getDependencies(RegistryService.class));
+        Assert.assertNull(registry.getFactory(RegistryService.class));
+    }
+
+    @Test
+    public void testInvalidRegistration() {
+        Throwable t = null;
+
+        try {
+            new ServiceRegistry() {
+                {
+                    register(DependencyService.class, new Class<?>[] {DependencyService.class, String.class}, null, null);
+                }
+            };
+        } catch (IllegalArgumentException ex) {
+            t = ex;
+        }
+
+        Assert.assertNotNull(t);
+    }
+
+    @Test
+    public void testBootFromRegistry() {
+        app = new RegistryApplication();
+        app.start();
+
+        Assert.assertEquals(Arrays.<Class<?>>asList(DependencyService.class, SubRegistryService.class), CREATED);
+
+        SubRegistryService service = app.getRegisteredService(SubRegistryService.class);
+        Assert.assertSame(app.getRegisteredService(DependencyService.class), service.dependency);
+        Assert.assertTrue(service.isRunning());
+
+        // Registered hierarchy is used when overriding class hierarchy...
+        SubRegistryService other = new SubRegistryService(service.dependency);
+        app.registerService(other);
+        Assert.assertSame(other, app.getRegisteredService(RegistryService.class));
+    }
+
+}
@@ -16,6 +16,9 @@
 
 package com.agapsys.web.toolkit;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -27,15 +30,54 @@ public class ServiceTest {
     private static class TestService extends Service {
         private boolean isStartCalled = false;
         private boolean isStopCalled = false;
+        private State stateOnStart = null;
+        private State stateOnStop = null;
 
         @Override
         protected void onStart() {
             isStartCalled = true;
+            stateOnStart = getState();
         }
 
         @Override
         protected void onStop() {
             isStopCalled = true;
+            stateOnStop = getState();
+        }
+    }
+
+    private static class CallService extends Service {
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private volatile long inFlightOnStop = -1;
+        private final AtomicInteger startCount = new AtomicInteger();
+
+        public void call(long millis) {
+            beginCall();
+
+            try {
+                entered.countDown();
+                Thread.sleep(millis);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } finally {
+                endCall();
+            }
+        }
+
+        @Override
+        protected void onStart() {
+            startCount.incrementAndGet();
+        }
+
+        @Override
+        protected void onStop() {
+            inFlightOnStop = getInFlightCallCount();
+        }
+    }
+    private static class FailingService extends Service {
+        @Override
+        protected void onStart() {
+            throw new RuntimeException("Start failure");
         }
     }
     // =========================================================================
@@ -72,4 +114,143 @@ public class ServiceTest {
         
         app.stop();
     }
+
+    @Test
+    public void testState() {
+        Assert.assertEquals(Service.State.NEW, service.getState());
+
+        app.start();
+
+        service._start(app);
+        Assert.assertEquals(Service.State.STARTING, service.stateOnStart);
+        Assert.assertEquals(Service.State.RUNNING, service.getState());
+        Assert.assertSame(app, service.getApplication());
+
+        Throwable t = null;
+        try {
+            service._start(app);
+        } catch (IllegalStateException ex) {
+            t = ex;
+        }
+        Assert.assertNotNull(t);
+
+        service._stop();
+        Assert.assertEquals(Service.State.STOPPING, service.stateOnStop);
+        Assert.assertEquals(Service.State.STOPPED, service.getState());
+        Assert.assertNull(service.getApplication());
+
+        service._start(app); // <-- stopped services can be started again
+        Assert.assertEquals(Service.State.RUNNING, service.getState());
+        service._stop();
+
+        FailingService failingService = new FailingService();
+        try {
+            failingService._start(app);
+        } catch (RuntimeException ex) {
+            // Expected...
+        }
+        Assert.assertEquals(Service.State.NEW, failingService.getState());
+        Assert.assertNull(failingService.getApplication());
+
+        app.stop();
+    }
+
+    @Test
+    public void testCallDraining() throws InterruptedException {
+        app.start();
+
+        final CallService callService = new CallService();
+        callService._start(app);
+
+        Thread caller = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                callService.call(300);
+            }
+        });
+        caller.start();
+        callService.entered.await();
+
+        final AtomicReference<Throwable> restartError = new AtomicReference<>();
+        Thread restarter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    callService.restart();
+                } catch (Throwable t) {
+                    restartError.set(t);
+                }
+            }
+        });
+        restarter.start();
+
+        Thread.sleep(50);
+        callService.call(0); // <-- waits while service is restarting
+
+        Assert.assertTrue(callService.isRunning());
+        Assert.assertEquals(0, callService.inFlightOnStop);
+
+        restarter.join();
+        caller.join();
+        Assert.assertNull(restartError.get());
+        Assert.assertEquals(0, callService.getInFlightCallCount());
+
+        callService._stop();
+
+        Throwable t = null;
+        try {
+            callService.call(0);
+        } catch (IllegalStateException ex) {
+            t = ex;
+        }
+        Assert.assertNotNull(t);
+
+        app.stop();
+    }
+
+    @Test
+    public void testGetServiceDuringRestart() throws InterruptedException {
+        app.start();
+
+        final CallService restartService = new CallService();
+        app.registerService(restartService);
+        Assert.assertSame(restartService, app.getService(CallService.class, false));
+
+        Thread caller = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                restartService.call(300); // <-- keeps service stopping while calls are drained
+            }
+        });
+        caller.start();
+        restartService.entered.await();
+
+        final AtomicReference<Throwable> restartError = new AtomicReference<>();
+        Thread restarter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    restartService.restart();
+                } catch (Throwable t) {
+                    restartError.set(t);
+                }
+            }
+        });
+        restarter.start();
+
+        Thread.sleep(50);
+        Assert.assertEquals(Service.State.STOPPING, restartService.getState());
+
+        Assert.assertSame(restartService, app.getService(CallService.class, false)); // <-- waits while service is restarting
+        Assert.assertTrue(restartService.isRunning());
+
+        restarter.join();
+        caller.join();
+        Assert.assertNull(restartError.get());
+        Assert.assertEquals(2, restartService.startCount.get());
+
+        app.stop();
+        Assert.assertEquals(Service.State.STOPPED, restartService.getState()); // <-- stopped once along with the application
+    }
+
 }
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.web.toolkit;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TimelineTest {
+
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    public static class Service1 extends Service {
+        @Override
+        protected void onStart() {
+            super.onStart();
+            getOnDemandService(Service2.class);
+        }
+    }
+
+    public static class Service2 extends Service {}
+
+    @DependsOn(Service1.class)
+    public static class Service3 extends Service {}
+    // =========================================================================
+    // </editor-fold>
+
+    private AbstractApplication app;
+
+    @After
+    public void after() {
+        if (app != null && app.isRunning())
+            app.stop();
+    }
+
+    @Test
+    public void testTimeline() {
+        app = new MockedWebApplication() {
+            @Override
+            public String getRootName() {
+                return "timeline-test";
+            }
+
+            @Override
+            protected Properties getDefaultProperties() {
+                Properties properties = new Properties();
+                properties.setProperty(KEY_DUMP_TIMELINE, "true");
+                return properties;
+            }
+
+            @Override
+            protected Collection<Class<? extends Service>> getStartupServices() {
+                return Arrays.<Class<? extends Service>>asList(Service3.class);
+            }
+        };
+
+        Assert.assertNull(app.getTimeline());
+
+        app.start();
+
+        Timeline timeline = app.getTimeline();
+        Assert.assertEquals(1, timeline.getEntries(Timeline.Phase.PROPERTIES_LOAD).size());
+        Assert.assertEquals(1, timeline.getEntries(Timeline.Phase.BEFORE_START).size());
+        Assert.assertEquals(1, timeline.getEntries(Timeline.Phase.APPLICATION_START).size());
+
+        Assert.assertNull(timeline.getEntry(Timeline.Phase.SERVICE_START, Service1.class).getParentClass());
+        Assert.assertEquals(Service1.class, timeline.getEntry(Timeline.Phase.SERVICE_START, Service2.class).getParentClass());
+        Assert.assertEquals(Service1.class, timeline.getEntry(Timeline.Phase.SERVICE_START, Service3.class).getParentClass());
+        Assert.assertNotNull(timeline.getEntry(Timeline.Phase.SERVICE_WARM_UP, Service3.class));
+
+        List<Timeline.Entry> criticalPath = timeline.getCriticalPath();
+        Assert.assertEquals(2, criticalPath.size());
+        Assert.assertEquals(Service1.class, criticalPath.get(0).getServiceClass());
+        Assert.assertEquals(Service3.class, criticalPath.get(1).getServiceClass());
+
+        File timelineFile = new File(app.getDirectory(), AbstractApplication.TIMELINE_FILENAME);
+        Assert.assertTrue(timelineFile.exists());
+        timelineFile.delete();
+
+        app.stop();
+
+        Assert.assertSame(timeline, app.getTimeline());
+        Assert.assertEquals(3, timeline.getEntries(Timeline.Phase.SERVICE_STOP).size());
+        Assert.assertEquals(1, timeline.getEntries(Timeline.Phase.AFTER_STOP).size());
+        Assert.assertTrue(timeline.toJson().contains("\"service\": \"" + Service2.class.getName() + "\""));
+        Assert.assertTrue(timelineFile.exists());
+    }
+
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.web.toolkit.services;
+
+import com.agapsys.web.toolkit.AbstractApplication;
+import com.agapsys.web.toolkit.LogType;
+import com.agapsys.web.toolkit.MockedWebApplication;
+import com.agapsys.web.toolkit.services.LogService.DailyFileLogger;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Date;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DailyFileLoggerTest {
+
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    private static final AtomicInteger APP_COUNTER = new AtomicInteger();
+
+    private static class LoggerApplication extends MockedWebApplication {
+        private final String rootName = "daily-file-logger-test-" + APP_COUNTER.incrementAndGet(); // <-- each instance has its own properties file
+        private final LogService logService;
+        private final String[] properties;
+
+        /**
+         * @param properties application properties (key followed by value).
+         */
+        public LoggerApplication(LogService logService, String...properties) {
+            this.logService = logService;
+            this.properties = properties;
+        }
+
+        @Override
+        public String getRootName() {
+            return rootName;
+        }
+
+        @Override
+        protected Properties getDefaultProperties() {
+            Properties mProperties = new Properties();
+
+            for (int i = 0; i < properties.length; i += 2) {
+                mProperties.setProperty(properties[i], properties[i + 1]);
+            }
+
+            return mProperties;
+        }
+
+        @Override
+        protected void beforeStart() {
+            super.beforeStart();
+            registerService(logService);
+        }
+    }
+
+    /** Logger whose current time is controlled by tests. */
+    private static class ClockedLogger extends DailyFileLogger {
+        private volatile long time;
+
+        public ClockedLogger(File logDir, long time) {
+            super(logDir);
+            this.time = time;
+        }
+
+        @Override
+        long _getCurrentTime() {
+            return time;
+        }
+    }
+
+    private static String __read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), Charset.defaultCharset());
+    }
+    // =========================================================================
+    // </editor-fold>
+
+    private File logDir;
+    private AbstractApplication app;
+
+    @Before
+    public void before() throws IOException {
+        logDir = Files.createTempDirectory("daily-file-logger-test").toFile();
+    }
+
+    @After
+    public void after() {
+        if (app != null && app.isRunning())
+            app.stop();
+    }
+
+    private DailyFileLogger __start(String...properties) {
+        return __start(new DailyFileLogger(logDir), properties);
+    }
+
+    private DailyFileLogger __start(DailyFileLogger logger, String...properties) {
+        app = new LoggerApplication(new LogService(logger), properties);
+        app.start();
+        app.getRegisteredService(LogService.class);
+        return logger;
+    }
+
+    private File __getLogFile() {
+        File[] files = logDir.listFiles();
+        Assert.assertEquals(1, files.length);
+        return files[0];
+    }
+
+    /** Waits until log file contains given text. */
+    private void __await(String text) throws IOException, InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+
+        while (!__read(__getLogFile()).contains(text)) {
+            if (System.currentTimeMillis() > deadline)
+                Assert.fail("Message was not written: " + text);
+
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    public void testUnbuffered() throws IOException {
+        __start(DailyFileLogger.KEY_BUFFER_SIZE, "0");
+
+        app.log(LogType.INFO, "unbuffered message");
+        Assert.assertTrue(__read(__getLogFile()).contains("[INFO] unbuffered message"));
+    }
+
+    @Test
+    public void testBuffered() throws IOException {
+        __start(DailyFileLogger.KEY_BUFFER_SIZE, "65536", DailyFileLogger.KEY_FLUSH_INTERVAL, "0");
+
+        app.log(LogType.INFO, "buffered message");
+        Assert.assertFalse(__read(__getLogFile()).contains("buffered message"));
+
+        app.stop(); // <-- buffered messages are written when logger stops
+        Assert.assertTrue(__read(__getLogFile()).contains("[INFO] buffered message"));
+    }
+
+    @Test
+    public void testBufferFull() throws IOException {
+        __start(DailyFileLogger.KEY_BUFFER_SIZE, "256", DailyFileLogger.KEY_FLUSH_INTERVAL, "0");
+
+        for (int i = 0; i < 20; i++) {
+            app.log(LogType.INFO, "message %d", i);
+        }
+
+        String content = __read(__getLogFile());
+        Assert.assertTrue(content.contains("message 0"));
+        Assert.assertFalse(content.contains("message 19"));
+    }
+
+    @Test
+    public void testFlushInterval() throws IOException, InterruptedException {
+        __start(DailyFileLogger.KEY_FLUSH_INTERVAL, "20", DailyFileLogger.KEY_SYNC_POLICY, "per_interval");
+
+        app.log(LogType.INFO, "periodic message");
+        __await("[INFO] periodic message");
+    }
+
+    @Test
+    public void testSyncPerBatch() throws IOException, InterruptedException {
+        __start(
+            LogService.KEY_ASYNC, "true",
+            DailyFileLogger.KEY_FLUSH_INTERVAL, "0",
+            DailyFileLogger.KEY_SYNC_POLICY, "PER_BATCH"
+        );
+
+        app.log(LogType.INFO, "batch message");
+        __await("[INFO] batch message"); // <-- written when asynchronous writer finishes the batch
+    }
+
+    @Test
+    public void testSyncPerBatchSynchronous() throws IOException {
+        __start(DailyFileLogger.KEY_FLUSH_INTERVAL, "0", DailyFileLogger.KEY_SYNC_POLICY, "PER_BATCH");
+
+        app.log(LogType.INFO, "synchronous batch message");
+        Assert.assertTrue(__read(__getLogFile()).contains("[INFO] synchronous batch message")); // <-- each synchronous write is a batch
+    }
+
+    @Test
+    public void testEventTimestamp() throws IOException, InterruptedException {
+        __start(LogService.KEY_ASYNC, "true", DailyFileLogger.KEY_BUFFER_SIZE, "0");
+
+        app.log(new Date(0), LogType.INFO, "past message");
+        __await("1970-01-01 00:00:00.000Z [INFO] past message"); // <-- formatted with event time instead of write time
+    }
+
+    @Test
+    public void testRollover() throws IOException {
+        long now = System.currentTimeMillis();
+        ClockedLogger logger = new ClockedLogger(logDir, now);
+        __start(logger, DailyFileLogger.KEY_BUFFER_SIZE, "0");
+
+        app.log(LogType.INFO, "first day");
+        File firstFile = __getLogFile();
+
+        logger.time = now + TimeUnit.DAYS.toMillis(1);
+        app.log(LogType.INFO, "second day");
+
+        File[] files = logDir.listFiles();
+        Assert.assertEquals(2, files.length);
+
+        File secondFile = files[0].equals(firstFile) ? files[1] : files[0];
+        Assert.assertTrue(secondFile.getName().compareTo(firstFile.getName()) > 0);
+
+        String firstContent = __read(firstFile);
+        Assert.assertTrue(firstContent.contains("[INFO] first day"));
+        Assert.assertFalse(firstContent.contains("second day"));
+        Assert.assertTrue(__read(secondFile).contains("[INFO] second day"));
+    }
+
+}
@@ -0,0 +1,580 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.web.toolkit.services;
+
+import com.agapsys.web.toolkit.AbstractApplication;
+import com.agapsys.web.toolkit.LogType;
+import com.agapsys.web.toolkit.MockedWebApplication;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LogServiceTest {
+
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    public static class RecordingLogger extends LogService.LoggerAdapter {
+        public final List<String> messages = new CopyOnWriteArrayList<>();
+        public final Set<Thread> threads = new CopyOnWriteArraySet<>();
+        public final AtomicInteger flushCount = new AtomicInteger();
+
+        @Override
+        public void log(Date timestamp, LogType logType, String message) {
+            messages.add(logType.name() + " " + message);
+            threads.add(Thread.currentThread());
+        }
+
+        @Override
+        public void flush() {
+            flushCount.incrementAndGet();
+        }
+    }
+
+    /** Logger implementing only the basic interface (without adapter). */
+    public static class PlainLogger implements LogService.Logger {
+        public final List<String> messages = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void start(AbstractApplication application) {}
+
+        @Override
+        public void stop() {}
+
+        @Override
+        public void log(Date timestamp, LogType logType, String message) {
+            messages.add(logType.name() + " " + message);
+        }
+    }
+
+    /** Logger which fails on messages starting with "fail". */
+    public static class FailingLogger extends RecordingLogger {
+        @Override
+        public void log(Date timestamp, LogType logType, String message) {
+            if (message.startsWith("fail"))
+                throw new RuntimeException("Logger failure");
+
+            super.log(timestamp, logType, message);
+        }
+    }
+
+    /** Logger slower than message producers. */
+    public static class SlowLogger extends RecordingLogger {
+        @Override
+        public void log(Date timestamp, LogType logType, String message) {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException ex) {
+                throw new RuntimeException(ex);
+            }
+
+            super.log(timestamp, logType, message);
+        }
+    }
+
+    /** Logger which holds "gated" messages until it is opened. */
+    public static class GatedLogger extends RecordingLogger {
+        public final CountDownLatch gate  = new CountDownLatch(1);
+        public final CountDownLatch ready = new CountDownLatch(1); // <-- released when "ready" message is flushed
+
+        @Override
+        public void flush() {
+            super.flush();
+
+            if (messages.contains("INFO ready"))
+                ready.countDown();
+        }
+
+        @Override
+        public void log(Date timestamp, LogType logType, String message) {
+            if (message.startsWith("gated")) {
+                try {
+                    gate.await();
+                } catch (InterruptedException ex) {
+                    throw new RuntimeException(ex);
+                }
+            }
+
+            super.log(timestamp, logType, message);
+        }
+    }
+
+    private static final AtomicInteger ASYNC_APP_COUNTER = new AtomicInteger();
+
+    private static class AsyncApplication extends MockedWebApplication {
+        private final String rootName = "log-service-async-test-" + ASYNC_APP_COUNTER.incrementAndGet(); // <-- each instance has its own properties file
+        private final LogService logService;
+        private final int bufferSize;
+        private final String[] properties;
+
+        /**
+         * @param properties additional properties (key followed by value).
+         */
+        public AsyncApplication(LogService logService, int bufferSize, String...properties) {
+            this.logService = logService;
+            this.bufferSize = bufferSize;
+            this.properties = properties;
+        }
+
+        @Override
+        public String getRootName() {
+            return rootName;
+        }
+
+        @Override
+        protected Properties getDefaultProperties() {
+            Properties properties = new Properties();
+            properties.setProperty(LogService.KEY_ASYNC, "true");
+            properties.setProperty(LogService.KEY_BUFFER_SIZE, Integer.toString(bufferSize));
+
+            for (int i = 0; i < this.properties.length; i += 2) {
+                properties.setProperty(this.properties[i], this.properties[i + 1]);
+            }
+
+            return properties;
+        }
+
+        @Override
+        protected void beforeStart() {
+            super.beforeStart();
+            registerService(logService);
+        }
+    }
+
+    private static List<String> __filter(List<String> messages, String prefix) {
+        List<String> filtered = new ArrayList<>();
+
+        for (String message : messages) {
+            if (message.startsWith(prefix))
+                filtered.add(message);
+        }
+
+        return filtered;
+    }
+    // =========================================================================
+    // </editor-fold>
+
+    private AbstractApplication app;
+    private GatedLogger gatedLogger;
+
+    @After
+    public void after() {
+        if (gatedLogger != null)
+            gatedLogger.gate.countDown();
+
+        if (app != null && app.isRunning())
+            app.stop();
+    }
+
+    @Test
+    public void testMinLogType() {
+        final RecordingLogger logger = new RecordingLogger();
+        final LogService logService = new LogService(logger);
+        logService.setMinLogType(LogType.WARNING);
+
+        app = new MockedWebApplication() {
+            @Override
+            public String getRootName() {
+                return "log-service-test";
+            }
+
+            @Override
+            protected void beforeStart() {
+                super.beforeStart();
+                registerService(logService);
+            }
+        };
+
+        app.start();
+        logger.messages.clear();
+
+        Assert.assertFalse(app.isLoggable(LogType.INFO));
+        Assert.assertTrue(app.isLoggable(LogType.WARNING));
+
+        app.log(LogType.INFO, "info %d", 1);
+        app.log(LogType.WARNING, "warning %d", 2);
+        app.log(LogType.ERROR, "error %d", 3);
+
+        Assert.assertEquals(2, logger.messages.size());
+        Assert.assertEquals("WARNING warning 2", logger.messages.get(0));
+        Assert.assertEquals("ERROR error 3", logger.messages.get(1));
+
+        logService.setMinLogType(LogType.INFO);
+        app.log(LogType.INFO, "info %d", 4);
+        Assert.assertEquals("INFO info 4", logger.messages.get(2));
+    }
+
+    @Test
+    public void testServiceReplacement() {
+        final RecordingLogger logger1 = new RecordingLogger();
+        final RecordingLogger logger2 = new RecordingLogger();
+
+        app = new MockedWebApplication() {
+            @Override
+            public String getRootName() {
+                return "log-service-test";
+            }
+
+            @Override
+            protected void beforeStart() {
+                super.beforeStart();
+                registerService(new LogService(logger1));
+            }
+        };
+
+        app.start();
+        app.log(LogType.INFO, "first");
+        Assert.assertTrue(logger1.messages.contains("INFO first"));
+
+        app.registerService(new LogService(logger2));
+        app.log(LogType.INFO, "second");
+        Assert.assertFalse(logger1.messages.contains("INFO second"));
+        Assert.assertTrue(logger2.messages.contains("INFO second"));
+    }
+
+    @Test
+    public void testAsync() throws InterruptedException {
+        final RecordingLogger logger = new RecordingLogger();
+        final LogService logService = new LogService(logger);
+
+        app = new AsyncApplication(logService, 64);
+        app.start();
+        app.getRegisteredService(LogService.class);
+        Assert.assertTrue(logService.isAsync());
+
+        Thread[] threads = new Thread[4];
+
+        for (int i = 0; i < threads.length; i++) {
+            final int threadIndex = i;
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 1000; j++) {
+                        logService.log(LogType.INFO, "async %d %d", threadIndex, j);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        app.stop(); // <-- pending messages are written before service stops
+        Assert.assertFalse(logService.isAsync());
+
+        for (int i = 0; i < threads.length; i++) {
+            List<String> messages = __filter(logger.messages, String.format("INFO async %d ", i));
+            Assert.assertEquals(1000, messages.size());
+
+            // Messages from the same thread keep their order...
+            for (int j = 0; j < messages.size(); j++) {
+                Assert.assertEquals(String.format("INFO async %d %d", i, j), messages.get(j));
+            }
+        }
+
+        for (Thread thread : threads) {
+            Assert.assertFalse(logger.threads.contains(thread));
+        }
+
+        Assert.assertTrue(logger.flushCount.get() > 0);
+    }
+
+    @Test
+    public void testAsyncFlushOnStop() {
+        final SlowLogger logger = new SlowLogger();
+        final LogService logService = new LogService(logger);
+
+        app = new AsyncApplication(logService, 256);
+        app.start();
+        app.getRegisteredService(LogService.class);
+
+        for (int i = 0; i < 100; i++) {
+            logService.log(LogType.INFO, "pending %d", i);
+        }
+
+        Assert.assertTrue(__filter(logger.messages, "INFO pending").size() < 100);
+
+        app.stop();
+        Assert.assertEquals(100, __filter(logger.messages, "INFO pending").size());
+    }
+
+    /** Fills the buffer (size 4) of given service while its logger is closed. */
+    private static void __fillBuffer(GatedLogger logger, LogService logService) throws InterruptedException {
+        // Waits until buffer is empty...
+        logService.log(LogType.INFO, "ready");
+        logger.ready.await();
+
+        for (int i = 0; i < 4; i++) {
+            logService.log(LogType.INFO, "gated %d", i);
+        }
+    }
+
+    private static void __awaitBlocked(LogService logService, long count) throws InterruptedException {
+        while (logService.getBlockedMessageCount() < count) {
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    public void testOverflowDropNewest() throws InterruptedException {
+        GatedLogger logger = gatedLogger = new GatedLogger();
+        LogService logService = new LogService(logger);
+
+        app = new AsyncApplication(logService, 4, LogService.KEY_OVERFLOW_POLICY, "drop_newest");
+        app.start();
+        app.getRegisteredService(LogService.class);
+
+        __fillBuffer(logger, logService);
+
+        for (int i = 0; i < 10; i++) {
+            logService.log(LogType.ERROR, "dropped %d", i);
+        }
+
+        Assert.assertEquals(10, logService.getDroppedMessageCount());
+        Assert.assertEquals(0, logService.getBlockedMessageCount());
+
+        MetricsService metricsService = new MetricsService();
+        logService.registerMeters(metricsService);
+        Assert.assertEquals(0, ((MetricsService.Counter) metricsService.getMeter("log_error_messages_total")).get()); // <-- dropped messages are counted apart
+
+        logger.gate.countDown();
+        app.stop();
+
+        Assert.assertEquals(4, __filter(logger.messages, "INFO gated").size());
+        Assert.assertTrue(__filter(logger.messages, "ERROR dropped").isEmpty());
+    }
+
+    @Test
+    public void testOverflowDropBelowLevel() throws InterruptedException {
+        GatedLogger logger = gatedLogger = new GatedLogger();
+        final LogService logService = new LogService(logger);
+
+        app = new AsyncApplication(logService, 4, LogService.KEY_OVERFLOW_POLICY, "DROP_BELOW_LEVEL");
+        app.start();
+        app.getRegisteredService(LogService.class);
+
+        __fillBuffer(logger, logService);
+
+        for (int i = 0; i < 5; i++) {
+            logService.log(LogType.WARNING, "dropped %d", i);
+        }
+
+        Thread errorThread = new Thread() {
+            @Override
+            public void run() {
+                logService.log(LogType.ERROR, "kept");
+            }
+        };
+        errorThread.start();
+
+        __awaitBlocked(logService, 1); // <-- errors wait for room
+        Assert.assertEquals(5, logService.getDroppedMessageCount());
+
+        logger.gate.countDown();
+        errorThread.join();
+        app.stop();
+
+        Assert.assertTrue(logger.messages.contains("ERROR kept"));
+        Assert.assertTrue(__filter(logger.messages, "WARNING dropped").isEmpty());
+    }
+
+    @Test
+    public void testOverflowSample() throws InterruptedException {
+        GatedLogger logger = gatedLogger = new GatedLogger();
+        final LogService logService = new LogService(logger);
+
+        app = new AsyncApplication(logService, 4, LogService.KEY_OVERFLOW_POLICY, "SAMPLE", LogService.KEY_OVERFLOW_SAMPLE_RATE, "3");
+        app.start();
+        app.getRegisteredService(LogService.class);
+
+        __fillBuffer(logger, logService);
+
+        Thread sampledThread = new Thread() {
+            @Override
+            public void run() {
+                logService.log(LogType.INFO, "sampled 0");
+            }
+        };
+        sampledThread.start();
+        __awaitBlocked(logService, 1); // <-- first overflowing message is kept
+
+        logService.log(LogType.INFO, "sampled 1");
+        logService.log(LogType.INFO, "sampled 2");
+        Assert.assertEquals(2, logService.getDroppedMessageCount());
+
+        logger.gate.countDown();
+        sampledThread.join();
+        app.stop();
+
+        Assert.assertEquals(Arrays.asList("INFO sampled 0"), __filter(logger.messages, "INFO sampled"));
+    }
+
+    @Test
+    public void testLoggerMinLogType() {
+        final RecordingLogger infoLogger = new RecordingLogger();
+        final RecordingLogger warningLogger = new RecordingLogger();
+        warningLogger.setMinLogType(LogType.WARNING);
+
+        final LogService logService = new LogService(infoLogger, warningLogger);
+
+        app = new MockedWebApplication() {
+            @Override
+            public String getRootName() {
+                return "log-service-test";
+            }
+
+            @Override
+            protected void beforeStart() {
+                super.beforeStart();
+                registerService(logService);
+            }
+        };
+
+        app.start();
+        app.getRegisteredService(LogService.class);
+
+        app.log(LogType.INFO, "info");
+        app.log(LogType.WARNING, "warning");
+        Assert.assertTrue(infoLogger.messages.contains("INFO info"));
+        Assert.assertTrue(infoLogger.messages.contains("WARNING warning"));
+        Assert.assertFalse(warningLogger.messages.contains("INFO info"));
+        Assert.assertTrue(warningLogger.messages.contains("WARNING warning"));
+
+        // Messages not accepted by any logger are not formatted...
+        infoLogger.setMinLogType(LogType.ERROR);
+        Assert.assertFalse(logService.isLoggable(LogType.INFO));
+
+        Object failingArg = new Object() {
+            @Override
+            public String toString() {
+                throw new RuntimeException("Message was formatted");
+            }
+        };
+
+        logService.log(LogType.INFO, "info %s", failingArg);
+        Assert.assertFalse(infoLogger.messages.contains("INFO info null"));
+    }
+
+    @Test
+    public void testMinLogTypeProperty() {
+        final RecordingLogger logger = new RecordingLogger();
+        final LogService logService = new LogService(logger);
+
+        app = new MockedWebApplication() {
+            @Override
+            public String getRootName() {
+                return "log-service-level-test";
+            }
+
+            @Override
+            protected Properties getDefaultProperties() {
+                Properties properties = new Properties();
+                properties.setProperty(LogService.KEY_MIN_LOG_TYPE, "warning");
+                return properties;
+            }
+
+            @Override
+            protected void beforeStart() {
+                super.beforeStart();
+                registerService(logService);
+            }
+        };
+
+        app.start();
+        app.getRegisteredService(LogService.class);
+
+        Assert.assertEquals(LogType.WARNING, logService.getMinLogType());
+        Assert.assertFalse(app.isLoggable(LogType.INFO));
+        Assert.assertTrue(app.isLoggable(LogType.WARNING));
+    }
+
+    @Test
+    public void testOverriddenLog() {
+        final List<String> messages = new ArrayList<>();
+
+        app = new MockedWebApplication() {
+            @Override
+            public String getRootName() {
+                return "log-service-test";
+            }
+
+            @Override
+            public void log(Date timestamp, LogType logType, String message, Object... msgArgs) {
+                messages.add(logType.name() + " " + String.format(message, msgArgs));
+            }
+        };
+
+        app.start();
+        messages.clear();
+
+        Assert.assertFalse(app.isLoggable(LogType.INFO)); // <-- there is no log service
+        app.log(LogType.INFO, "info %d", 1);
+
+        Assert.assertEquals(1, messages.size()); // <-- convenience method delegates to overridden method
+        Assert.assertEquals("INFO info 1", messages.get(0));
+    }
+
+    @Test
+    public void testPlainLogger() {
+        PlainLogger logger = new PlainLogger();
+        app = new AsyncApplication(new LogService(logger), 16);
+        app.start();
+
+        app.log(LogType.INFO, "plain message");
+        app.stop(); // <-- pending messages are written before loggers stop
+
+        Assert.assertTrue(logger.messages.contains("INFO plain message"));
+    }
+
+    @Test
+    public void testAsyncErrorHandler() {
+        FailingLogger logger = new FailingLogger();
+        LogService logService = new LogService(logger);
+
+        final List<RuntimeException> errors = new CopyOnWriteArrayList<>();
+        logService.setErrorHandler(new LogService.ErrorHandler() {
+            @Override
+            public void onError(RuntimeException error) {
+                errors.add(error);
+            }
+        });
+
+        app = new AsyncApplication(logService, 16);
+        app.start();
+        app.getRegisteredService(LogService.class);
+
+        app.log(LogType.INFO, "failing message");
+        app.log(LogType.INFO, "next message");
+        app.stop();
+
+        Assert.assertTrue(logger.messages.contains("INFO next message")); // <-- an error does not stop the writer
+        Assert.assertEquals(1, logService.getErrorCount());
+        Assert.assertEquals(1, errors.size());
+        Assert.assertEquals("Logger failure", errors.get(0).getMessage());
+    }
+
+}
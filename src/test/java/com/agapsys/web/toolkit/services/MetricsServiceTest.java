@@ -0,0 +1,207 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.web.toolkit.services;
+
+import com.agapsys.web.toolkit.AbstractApplication;
+import com.agapsys.web.toolkit.LogType;
+import com.agapsys.web.toolkit.MockedWebApplication;
+import com.agapsys.web.toolkit.Service;
+import java.util.Arrays;
+import java.util.Collection;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MetricsServiceTest {
+
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    private static int __countOccurrences(String text, String str) {
+        int count = 0;
+
+        for (int i = text.indexOf(str); i >= 0; i = text.indexOf(str, i + 1)) {
+            count++;
+        }
+
+        return count;
+    }
+    // =========================================================================
+    // </editor-fold>
+
+    private AbstractApplication app;
+
+    @After
+    public void after() {
+        if (app != null && app.isRunning())
+            app.stop();
+    }
+
+    @Test
+    public void testCounter() {
+        MetricsService metricsService = new MetricsService();
+
+        MetricsService.Counter counter = metricsService.counter("test_total", "Test counter");
+        Assert.assertSame(counter, metricsService.counter("test_total", "Ignored"));
+
+        counter.increment();
+        counter.add(2);
+        Assert.assertEquals(3, counter.get());
+
+        Throwable t = null;
+        try {
+            counter.add(-1);
+        } catch (IllegalArgumentException ex) {
+            t = ex;
+        }
+        Assert.assertNotNull(t);
+
+        t = null;
+        try {
+            metricsService.histogram("test_total", null);
+        } catch (IllegalArgumentException ex) {
+            t = ex;
+        }
+        Assert.assertNotNull(t);
+
+        t = null;
+        try {
+            metricsService.counter("invalid name", null);
+        } catch (IllegalArgumentException ex) {
+            t = ex;
+        }
+        Assert.assertNotNull(t);
+    }
+
+    @Test
+    public void testHistogram() {
+        MetricsService.Histogram histogram = new MetricsService.Histogram();
+        Assert.assertEquals(0, histogram.getValueAtPercentile(50));
+
+        for (int i = 0; i < 90; i++) {
+            histogram.record(500); // <-- below first bucket bound
+        }
+
+        for (int i = 0; i < 10; i++) {
+            histogram.record(3000000); // <-- 3 ms
+        }
+
+        Assert.assertEquals(100, histogram.getCount());
+        Assert.assertEquals(90 * 500 + 10 * 3000000, histogram.getSum());
+        Assert.assertEquals(1024, histogram.getValueAtPercentile(50));
+        Assert.assertEquals(1024, histogram.getValueAtPercentile(90));
+
+        // Bucket bounds have bounded relative error...
+        long p99 = histogram.getValueAtPercentile(99);
+        Assert.assertTrue(p99 >= 3000000 && p99 <= 3000000 * 1.125);
+
+        histogram.record(Long.MAX_VALUE);
+        Assert.assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testPrometheusText() {
+        MetricsService metricsService = new MetricsService();
+        metricsService.counter("requests_total", "Processed\nrequests").add(5);
+        metricsService.histogram("request_duration_seconds", null).record(2000);
+        metricsService.register("pool_size", "Pool size", new MetricsService.Gauge() {
+            @Override
+            public double getValue() {
+                return 2.5;
+            }
+        });
+        metricsService.register("broken", null, new MetricsService.Gauge() {
+            @Override
+            public double getValue() {
+                throw new RuntimeException();
+            }
+        });
+
+        String text = metricsService.toPrometheusText();
+
+        Assert.assertTrue(text.contains("# HELP requests_total Processed\\nrequests\n# TYPE requests_total counter\nrequests_total 5\n"));
+        Assert.assertTrue(text.contains("# TYPE pool_size gauge\npool_size 2.5\n"));
+        Assert.assertTrue(text.contains("broken NaN\n"));
+        Assert.assertFalse(text.contains("# HELP request_duration_seconds"));
+        Assert.assertTrue(text.contains("# TYPE request_duration_seconds histogram\n"));
+        Assert.assertTrue(text.contains("request_duration_seconds_bucket{le=\"1.024E-6\"} 0\n"));
+        Assert.assertTrue(text.contains("request_duration_seconds_bucket{le=\"+Inf\"} 1\n"));
+        Assert.assertTrue(text.contains("request_duration_seconds_sum 2.0E-6\n"));
+        Assert.assertTrue(text.contains("request_duration_seconds_count 1\n"));
+
+        metricsService.unregister("broken");
+        Assert.assertNull(metricsService.getMeter("broken"));
+        Assert.assertFalse(metricsService.toPrometheusText().contains("broken"));
+    }
+
+    @Test
+    public void testExportedBuckets() {
+        MetricsService metricsService = new MetricsService();
+        metricsService.histogram("default_seconds", null).record(2000);
+
+        MetricsService.Histogram histogram = new MetricsService.Histogram(1000000, 1000000000, Long.MAX_VALUE);
+        metricsService.register("custom_seconds", null, histogram);
+        histogram.record(900000);
+        histogram.record(2000000);
+
+        String text = metricsService.toPrometheusText();
+
+        Assert.assertEquals(14, __countOccurrences(text, "default_seconds_bucket{")); // <-- every other power of two, plus +Inf
+        Assert.assertTrue(text.contains("default_seconds_bucket{le=\"4.096E-6\"} 1\n"));
+
+        Assert.assertEquals(3, __countOccurrences(text, "custom_seconds_bucket{"));    // <-- bounds beyond range are covered by +Inf
+        Assert.assertTrue(text.contains("custom_seconds_bucket{le=\"0.001048576\"} 1\n")); // <-- rounded up to bucket bound
+        Assert.assertTrue(text.contains("custom_seconds_bucket{le=\"1.00663296\"} 2\n"));
+        Assert.assertTrue(text.contains("custom_seconds_bucket{le=\"+Inf\"} 2\n"));
+
+        Assert.assertEquals(917504, histogram.getValueAtPercentile(50)); // <-- percentiles still use fine buckets
+    }
+
+    @Test
+    public void testInstrumentedServices() {
+        app = new MockedWebApplication() {
+            @Override
+            public String getRootName() {
+                return "metrics-service-test";
+            }
+
+            @Override
+            protected void beforeStart() {
+                super.beforeStart();
+                registerService(new LogService(new LogServiceTest.RecordingLogger()));
+                registerService(new ExceptionReporterService());
+            }
+
+            @Override
+            protected Collection<Class<? extends Service>> getStartupServices() {
+                return Arrays.<Class<? extends Service>>asList(MetricsService.class);
+            }
+        };
+
+        app.start();
+        app.getRegisteredService(ExceptionReporterService.class);
+
+        MetricsService metricsService = app.getService(MetricsService.class, true);
+        MetricsService.Counter errorCounter = (MetricsService.Counter) metricsService.getMeter("log_error_messages_total");
+        Assert.assertNotNull(errorCounter);
+        Assert.assertNotNull(metricsService.getMeter("exception_reports_total"));
+
+        long count = errorCounter.get();
+        app.log(LogType.ERROR, "metrics test");
+        Assert.assertEquals(count + 1, errorCounter.get());
+        Assert.assertTrue(metricsService.toPrometheusText().contains("log_write_duration_seconds_count"));
+    }
+
+}
@@ -18,6 +18,9 @@ package com.agapsys.web.toolkit.services;
 
 import com.agapsys.web.toolkit.AbstractApplication;
 import com.agapsys.web.toolkit.MockedWebApplication;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import javax.persistence.EntityManager;
 import org.junit.Assert;
 import org.junit.Before;
@@ -47,6 +50,31 @@ public class PersistenceServiceTest {
         @Override
         protected void onStop() {}
     }
+
+    private static class TrackedPersistenceService extends TestPersistenceService {
+        private int closeCount = 0;
+        private EntityManager lastInstance = null;
+
+        @Override
+        protected EmFactory getEmFactory() {
+            return new EmFactory() {
+                @Override
+                public EntityManager getInstance() {
+                    lastInstance = (EntityManager) Proxy.newProxyInstance(EntityManager.class.getClassLoader(), new Class<?>[] {EntityManager.class}, new InvocationHandler() {
+                        @Override
+                        public Object invoke(Object proxy, Method method, Object[] args) {
+                            if (method.getName().equals("close"))
+                                closeCount++;
+
+                            return null;
+                        }
+                    });
+
+                    return lastInstance;
+                }
+            };
+        }
+    }
     // =========================================================================
     // </editor-fold>
 
@@ -84,4 +112,42 @@ public class PersistenceServiceTest {
         app.stop();
         Assert.assertNull(AbstractApplication.getRunningInstance());
     }
+
+    @Test
+    public void testWithEntityManager() {
+        final TrackedPersistenceService trackedService = new TrackedPersistenceService();
+
+        MockedWebApplication app = new MockedWebApplication() {
+            @Override
+            protected void beforeStart() {
+                super.beforeStart();
+
+                registerService(trackedService);
+            }
+        };
+        app.start();
+
+        try {
+            PersistenceService persistenceService = app.getServiceOnDemand(PersistenceService.class);
+
+            EntityManager em = persistenceService.getEntityManager();
+            Assert.assertSame(trackedService.lastInstance, em); // <-- provider instance is returned as is
+            Assert.assertEquals(0, trackedService.getInFlightCallCount());
+
+            Long inFlight = persistenceService.withEntityManager(new PersistenceService.EmCallback<Long>() {
+                @Override
+                public Long call(EntityManager em) {
+                    Assert.assertSame(trackedService.lastInstance, em);
+                    Assert.assertEquals(0, trackedService.closeCount);
+                    return trackedService.getInFlightCallCount();
+                }
+            });
+
+            Assert.assertEquals(1, (long) inFlight);                         // <-- service stop waits for the unit of work
+            Assert.assertEquals(1, trackedService.closeCount);                // <-- entity manager is closed afterwards
+            Assert.assertEquals(0, trackedService.getInFlightCallCount());
+        } finally {
+            app.stop();
+        }
+    }
 }
@@ -20,7 +20,12 @@ import com.agapsys.mail.Message;
 import com.agapsys.mail.MessageBuilder;
 import com.agapsys.web.toolkit.AbstractApplication;
 import com.agapsys.web.toolkit.MockedWebApplication;
+import com.agapsys.mail.SecurityType;
 import com.sun.mail.util.MailConnectException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Properties;
 import javax.mail.MessagingException;
 import javax.mail.internet.AddressException;
 import org.junit.After;
@@ -42,6 +47,18 @@ public class SmtpServiceTest {
         }
         
     }
+
+    private static final String PROPERTIES_FILENAME = "application.properties"; // <-- see AbstractApplication.PROPERTIES_FILENAME
+
+    private static void __writeProperties(AbstractApplication app, String server, String securityType) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty(SmtpService.KEY_SERVER, server);
+        properties.setProperty(SmtpService.KEY_SECURITY_TYPE, securityType);
+
+        try (FileOutputStream fos = new FileOutputStream(new File(app.getDirectory(), PROPERTIES_FILENAME))) {
+            properties.store(fos, null);
+        }
+    }
     // =========================================================================
     // </editor-fold>
 
@@ -94,4 +111,44 @@ public class SmtpServiceTest {
         app.stop();
         Assert.assertNull(AbstractApplication.getRunningInstance());
     }
+
+    @Test
+    public void testInvalidReloadKeepsSettings() throws IOException {
+        app = new MockedWebApplication() {
+            @Override
+            public String getRootName() {
+                return "smtp-reload-test";
+            }
+
+            @Override
+            protected void beforeStart() {
+                super.beforeStart();
+
+                registerService(service);
+            }
+        };
+        app.start();
+
+        File propertiesFile = new File(app.getDirectory(), PROPERTIES_FILENAME);
+
+        try {
+            SmtpService smtpService = app.getServiceOnDemand(SmtpService.class);
+            Assert.assertEquals(SmtpService.DEFAULT_SERVER, smtpService.getServer());
+
+            __writeProperties(app, "invalid.server", "INVALID");
+            app.loadProperties();
+
+            Assert.assertEquals(SmtpService.DEFAULT_SERVER, smtpService.getServer()); // <-- invalid reload does not replace settings
+            Assert.assertEquals(SmtpService.DEFAULT_SECURITY_TYPE, smtpService.getSecurityType());
+            Assert.assertNotNull(smtpService.getSender());
+
+            __writeProperties(app, "valid.server", SecurityType.NONE.name());
+            app.loadProperties();
+
+            Assert.assertEquals("valid.server", smtpService.getServer());
+        } finally {
+            app.stop();
+            propertiesFile.delete();
+        }
+    }
 }
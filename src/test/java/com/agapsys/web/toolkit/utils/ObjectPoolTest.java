@@ -0,0 +1,93 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.web.toolkit.utils;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ObjectPoolTest {
+
+    // <editor-fold desc="STATIC SCOPE" defaultstate="collapsed">
+    // =========================================================================
+    private static class CountingFactory implements ObjectPool.ObjectFactory<Integer> {
+        private final AtomicInteger counter = new AtomicInteger();
+        private final List<Integer> destroyed = new CopyOnWriteArrayList<>();
+
+        @Override
+        public Integer create() {
+            return counter.incrementAndGet();
+        }
+
+        @Override
+        public void destroy(Integer obj) {
+            destroyed.add(obj);
+        }
+    }
+    // =========================================================================
+    // </editor-fold>
+
+    @Test
+    public void testBorrowAndReturn() throws InterruptedException {
+        CountingFactory factory = new CountingFactory();
+        ObjectPool<Integer> pool = new ObjectPool<>(factory, 2);
+
+        Integer obj1 = pool.borrow();
+        Integer obj2 = pool.borrow();
+        Assert.assertFalse(obj1.equals(obj2));
+        Assert.assertEquals(0, pool.getAvailableCount());
+        Assert.assertNull(pool.borrow(10, TimeUnit.MILLISECONDS)); // <-- pool is exhausted
+
+        pool.returnObject(obj2);
+        Assert.assertEquals(1, pool.getIdleCount());
+        Assert.assertEquals(obj2, pool.borrow(10, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(2, factory.counter.get());
+
+        pool.invalidate(obj2);
+        Assert.assertTrue(factory.destroyed.contains(obj2));
+        Assert.assertEquals(Integer.valueOf(3), pool.borrow()); // <-- invalidated objects are replaced
+    }
+
+    @Test
+    public void testClose() throws InterruptedException {
+        CountingFactory factory = new CountingFactory();
+        ObjectPool<Integer> pool = new ObjectPool<>(factory, 2);
+
+        Integer obj1 = pool.borrow();
+        Integer obj2 = pool.borrow();
+        pool.returnObject(obj1);
+
+        pool.close();
+        Assert.assertTrue(factory.destroyed.contains(obj1));
+        Assert.assertFalse(factory.destroyed.contains(obj2));
+
+        pool.returnObject(obj2);
+        Assert.assertTrue(factory.destroyed.contains(obj2));
+
+        Throwable t = null;
+        try {
+            pool.borrow();
+        } catch (IllegalStateException ex) {
+            t = ex;
+        }
+
+        Assert.assertNotNull(t);
+        Assert.assertEquals(2, pool.getAvailableCount());
+    }
+}
@@ -51,8 +51,8 @@ public class SingletonManagerTest {
         Assert.assertTrue(sm.getClasses().contains(SubClass.class));
         Assert.assertTrue(sm.getClasses().contains(SubSubClass.class));
 
-        Assert.assertNull(sm.getInstance(RootInterface.class));
-        Assert.assertNull(sm.getInstance(AbstractBase.class));
+        Assert.assertSame(ssc, sm.getInstance(RootInterface.class)); // <-- abstract types are resolved to the single instance of such type
+        Assert.assertSame(ssc, sm.getInstance(AbstractBase.class));
 
         Assert.assertSame(ssc, sm.getInstance(BaseClass.class));
         Assert.assertSame(ssc, sm.getInstance(SubClass.class));
@@ -173,4 +173,202 @@ public class SingletonManagerTest {
         Assert.assertSame(scInstance, sm.getInstance(BaseClass.class));
         Assert.assertSame(scInstance, sm.getInstance(SubClass.class));
     }
+
+    @Test
+    public void concurrentAutoRegistration() throws InterruptedException {
+        final SingletonManager<BaseClass> sm = new SingletonManager<>(BaseClass.class);
+        final BaseClass[] instances = new BaseClass[8];
+        Thread[] threads = new Thread[instances.length];
+
+        for (int i = 0; i < threads.length; i++) {
+            final int index = i;
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    instances[index] = sm.getInstance(SubClass.class, true);
+                }
+            });
+            threads[i].start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (BaseClass instance : instances) {
+            Assert.assertSame(instances[0], instance);
+        }
+
+        Assert.assertSame(instances[0], sm.getInstance(BaseClass.class));
+        Assert.assertEquals(1, sm.getInstances().size());
+    }
+
+    @Test
+    public void abstractTypeResolution() {
+        SingletonManager<RootInterface> sm = new SingletonManager<>(RootInterface.class);
+        Assert.assertNull(sm.getInstance(AbstractBase.class));
+
+        SubClass sc = new SubClass();
+        sm.registerInstance(sc);
+        Assert.assertSame(sc, sm.getInstance(AbstractBase.class));
+
+        SubSubClass ssc = new SubSubClass();
+        sm.registerInstance(ssc); // <-- replaces sc (same hierarchy)
+        Assert.assertSame(ssc, sm.getInstance(AbstractBase.class));
+        Assert.assertSame(ssc, sm.getInstance(RootInterface.class));
+    }
+
+    public static class OtherClass extends AbstractBase {}
+
+    @Test(expected = IllegalStateException.class)
+    public void ambiguousAbstractType() {
+        SingletonManager<RootInterface> sm = new SingletonManager<>(RootInterface.class);
+        sm.registerInstance(new SubClass());
+        sm.registerInstance(new OtherClass());
+
+        sm.getInstance(AbstractBase.class);
+    }
+
+    public static class Dependency implements RootInterface {}
+
+    public static class InjectedClass implements RootInterface {
+        private final Dependency dependency;
+
+        public InjectedClass(Dependency dependency) {
+            this.dependency = dependency;
+        }
+    }
+
+    public static class CircularClass1 implements RootInterface {
+        public CircularClass1(CircularClass2 other) {}
+    }
+
+    public static class CircularClass2 implements RootInterface {
+        public CircularClass2(CircularClass1 other) {}
+    }
+
+    @Test
+    public void constructorInjection() {
+        SingletonManager<RootInterface> sm = new SingletonManager<>(RootInterface.class);
+
+        InjectedClass injected = sm.getInstance(InjectedClass.class, true);
+        Assert.assertNotNull(injected.dependency);
+        Assert.assertSame(injected.dependency, sm.getInstance(Dependency.class));
+    }
+
+    @Test
+    public void registeredFactory() {
+        SingletonManager<RootInterface> sm = new SingletonManager<>(RootInterface.class);
+        final Dependency dependency = new Dependency();
+
+        sm.registerFactory(InjectedClass.class, new SingletonManager.InstanceFactory<InjectedClass>() {
+            @Override
+            public Class<?>[] getDependencies() {
+                return new Class<?>[0];
+            }
+
+            @Override
+            public InjectedClass newInstance(Object... dependencies) {
+                return new InjectedClass(dependency);
+            }
+        });
+
+        Assert.assertSame(dependency, sm.getInstance(InjectedClass.class, true).dependency);
+        Assert.assertNull(sm.getInstance(Dependency.class));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void circularConstructorDependency() {
+        SingletonManager<RootInterface> sm = new SingletonManager<>(RootInterface.class);
+        sm.getInstance(CircularClass1.class, true);
+    }
+
+    public static class ScopedClass implements RootInterface, AutoCloseable {
+        private final Dependency dependency;
+        private boolean closed = false;
+
+        public ScopedClass(Dependency dependency) {
+            this.dependency = dependency;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    @Test
+    public void threadScope() throws InterruptedException {
+        final SingletonManager<RootInterface> sm = new SingletonManager<>(RootInterface.class);
+        final ScopedClass[] otherInstance = new ScopedClass[1];
+
+        ScopedClass instance = sm.getThreadInstance(ScopedClass.class);
+        Assert.assertSame(instance, sm.getThreadInstance(ScopedClass.class));
+        Assert.assertSame(sm.getInstance(Dependency.class), instance.dependency);
+        Assert.assertNull(sm.getInstance(ScopedClass.class)); // <-- scoped instances are not singletons
+
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                otherInstance[0] = sm.getThreadInstance(ScopedClass.class);
+            }
+        });
+        thread.start();
+        thread.join();
+
+        Assert.assertNotNull(otherInstance[0]);
+        Assert.assertNotSame(instance, otherInstance[0]);
+        Assert.assertSame(instance.dependency, otherInstance[0].dependency);
+
+        sm.clear();
+        Assert.assertTrue(instance.closed);           // <-- instances of every thread are released when manager is cleared
+        Assert.assertTrue(otherInstance[0].closed);
+        Assert.assertNotSame(instance, sm.getThreadInstance(ScopedClass.class));
+    }
+
+    @Test
+    public void requestScope() {
+        SingletonManager<RootInterface> sm = new SingletonManager<>(RootInterface.class);
+
+        Throwable t = null;
+        try {
+            sm.getRequestInstance(ScopedClass.class);
+        } catch (IllegalStateException ex) {
+            t = ex;
+        }
+        Assert.assertNotNull(t); // <-- there is no active request scope
+
+        Assert.assertTrue(SingletonManager.beginRequestScope());
+        Assert.assertFalse(SingletonManager.beginRequestScope()); // <-- scope is already active
+
+        ScopedClass instance = sm.getRequestInstance(ScopedClass.class);
+        Assert.assertSame(instance, sm.getRequestInstance(ScopedClass.class));
+        Assert.assertFalse(instance.closed);
+
+        SingletonManager.destroyRequestInstances();
+        Assert.assertTrue(instance.closed);
+
+        SingletonManager.beginRequestScope();
+        Assert.assertNotSame(instance, sm.getRequestInstance(ScopedClass.class));
+
+        SingletonManager.destroyRequestInstances();
+    }
+
+    @Test
+    public void pooledScope() throws InterruptedException {
+        SingletonManager<RootInterface> sm = new SingletonManager<>(RootInterface.class);
+
+        ObjectPool<ScopedClass> pool = sm.getPool(ScopedClass.class, 2);
+        Assert.assertSame(pool, sm.getPool(ScopedClass.class, 5));
+        Assert.assertEquals(2, pool.getCapacity());
+
+        ScopedClass instance = pool.borrow();
+        pool.returnObject(instance);
+        Assert.assertSame(instance, pool.borrow());
+        pool.returnObject(instance);
+
+        sm.clear();
+        Assert.assertTrue(pool.isClosed());
+        Assert.assertTrue(instance.closed);
+    }
 }
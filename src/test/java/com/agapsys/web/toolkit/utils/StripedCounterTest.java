@@ -0,0 +1,74 @@
+/*
+ * Copyright 2017 Agapsys Tecnologia Ltda-ME.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.agapsys.web.toolkit.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StripedCounterTest {
+
+    @Test
+    public void testSingleThread() {
+        StripedCounter counter = new StripedCounter();
+        Assert.assertEquals(0, counter.sum());
+
+        counter.increment();
+        counter.increment();
+        counter.decrement();
+        counter.add(10);
+        Assert.assertEquals(11, counter.sum());
+
+        counter.reset();
+        Assert.assertEquals(0, counter.sum());
+        Assert.assertEquals(0, counter._getCellCount()); // <-- cells are only created upon contention
+    }
+
+    @Test
+    public void testConcurrentUpdates() throws InterruptedException {
+        final StripedCounter counter = new StripedCounter();
+        final int threadCount = 8;
+        final int iterations = 100000;
+
+        List<Thread> threads = new ArrayList<>();
+
+        for (int i = 0; i < threadCount; i++) {
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < iterations; j++) {
+                        counter.increment();
+                        counter.increment();
+                        counter.decrement();
+                    }
+                }
+            }));
+        }
+
+        for (Thread thread : threads) {
+            thread.start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertEquals(threadCount * iterations, counter.sum());
+        Assert.assertTrue(counter._getCellCount() <= 64);
+    }
+
+}